@@ -0,0 +1,1179 @@
+// 🌳 B+tree NavigableMap (alternative to TreeMap for range queries)
+
+// CollectionsInJava.java: TreeMap → sorted map using Red-Black Tree, O(log n).
+// The problem is not the O(log n), it's the memory layout:
+//   every entry = 1 Entry object (key, value, left, right, parent, color) ≈ 40 bytes,
+//   a lookup follows ~log2(n) pointers = ~23 random cache misses for 10M entries,
+//   a range scan (subMap / tailMap) jumps around the heap from node to node.
+
+// ✅ B+tree:
+//  Wide nodes: up to 64 keys packed in one array → a lookup touches ~log64(n) nodes (4 for 10M).
+//  All entries live in the leaves, leaves are linked (next / prev)
+//   → range scan = walk arrays left to right, almost no pointer chasing.
+//  No per-entry object: keys[] and values[] arrays per leaf.
+
+// BPlusTreeMap<K, V>  → full NavigableMap (headMap, tailMap, subMap, ceilingEntry, descendingMap...)
+//                       Views share the same tree, like TreeMap's views.
+// LongKeyBPlusTree<V> → long keys stored in long[] (no Long boxing) + forEachInRange() for scans
+//                       over timestamps / ids.
+
+// BPlusTreeMap deletes don't merge half-empty nodes; only empty leaves are dropped.
+// (Lookups stay O(log n); sparse leaves just cost some memory after heavy deletes.)
+// LongKeyBPlusTree.remove() borrows from / merges with a sibling → every node stays half full.
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+class BPlusTreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    static final int ORDER = 64; // max keys per leaf / children per inner node
+
+    // ---------------------------------------------------------------- tree core
+
+    abstract static class Node {
+        final Object[] keys = new Object[ORDER + 1]; // +1: insert first, then split
+        int n;
+    }
+
+    static final class Leaf extends Node {
+        final Object[] vals = new Object[ORDER + 1];
+        Leaf next, prev;
+    }
+
+    static final class Inner extends Node {
+        // n = number of children, keys[0..n-2] are separators: keys[i] <= every key in children[i + 1]
+        final Node[] children = new Node[ORDER + 2];
+    }
+
+    static final class Tree<K, V> {
+        final Comparator<? super K> comparator;
+        Node root = new Leaf();
+        int size;
+        int modCount;
+        Object oldValue; // set by insert/delete
+
+        Tree(Comparator<? super K> comparator) {
+            this.comparator = comparator;
+        }
+
+        @SuppressWarnings("unchecked")
+        int compare(Object a, Object b) {
+            return comparator == null ? ((Comparable<Object>) a).compareTo(b) : comparator.compare((K) a, (K) b);
+        }
+
+        // First index with keys[i] >= key (strict=false) or keys[i] > key (strict=true)
+        int bound(Object[] keys, int len, Object key, boolean strict) {
+            int lo = 0, hi = len;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = compare(keys[mid], key);
+                if (c < 0 || (strict && c == 0)) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        Leaf findLeaf(Object key) {
+            Node node = root;
+            while (node instanceof Inner) {
+                Inner in = (Inner) node;
+                node = in.children[bound(in.keys, in.n - 1, key, true)];
+            }
+            return (Leaf) node;
+        }
+
+        Object get(Object key) {
+            Leaf leaf = findLeaf(key);
+            int i = bound(leaf.keys, leaf.n, key, false);
+            return i < leaf.n && compare(leaf.keys[i], key) == 0 ? leaf.vals[i] : null;
+        }
+
+        boolean containsKey(Object key) {
+            Leaf leaf = findLeaf(key);
+            int i = bound(leaf.keys, leaf.n, key, false);
+            return i < leaf.n && compare(leaf.keys[i], key) == 0;
+        }
+
+        // Returns true if a new key was added; previous value in oldValue.
+        boolean put(Object key, Object value) {
+            Objects.requireNonNull(key);
+            if (size == 0) {
+                compare(key, key); // type check, like TreeMap
+            }
+            oldValue = null;
+            int before = size;
+            Node right = insert(root, key, value);
+            if (right != null) {
+                Inner r = new Inner();
+                r.children[0] = root;
+                r.children[1] = right;
+                r.keys[0] = splitKey;
+                r.n = 2;
+                root = r;
+            }
+            return size != before;
+        }
+
+        private Object splitKey;
+
+        private Node insert(Node node, Object key, Object value) {
+            if (node instanceof Leaf) {
+                Leaf leaf = (Leaf) node;
+                int i = bound(leaf.keys, leaf.n, key, false);
+                if (i < leaf.n && compare(leaf.keys[i], key) == 0) {
+                    oldValue = leaf.vals[i];
+                    leaf.vals[i] = value;
+                    return null;
+                }
+                System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.n - i);
+                System.arraycopy(leaf.vals, i, leaf.vals, i + 1, leaf.n - i);
+                leaf.keys[i] = key;
+                leaf.vals[i] = value;
+                leaf.n++;
+                size++;
+                modCount++;
+                return leaf.n > ORDER ? splitLeaf(leaf) : null;
+            }
+            Inner in = (Inner) node;
+            int ci = bound(in.keys, in.n - 1, key, true);
+            Node right = insert(in.children[ci], key, value);
+            if (right == null) {
+                return null;
+            }
+            System.arraycopy(in.keys, ci, in.keys, ci + 1, in.n - 1 - ci);
+            System.arraycopy(in.children, ci + 1, in.children, ci + 2, in.n - 1 - ci);
+            in.keys[ci] = splitKey;
+            in.children[ci + 1] = right;
+            in.n++;
+            return in.n > ORDER ? splitInner(in) : null;
+        }
+
+        private Node splitLeaf(Leaf leaf) {
+            Leaf right = new Leaf();
+            int mid = leaf.n >>> 1;
+            right.n = leaf.n - mid;
+            System.arraycopy(leaf.keys, mid, right.keys, 0, right.n);
+            System.arraycopy(leaf.vals, mid, right.vals, 0, right.n);
+            Arrays.fill(leaf.keys, mid, leaf.n, null);
+            Arrays.fill(leaf.vals, mid, leaf.n, null);
+            leaf.n = mid;
+            right.next = leaf.next;
+            right.prev = leaf;
+            if (leaf.next != null) leaf.next.prev = right;
+            leaf.next = right;
+            splitKey = right.keys[0];
+            return right;
+        }
+
+        private Node splitInner(Inner in) {
+            Inner right = new Inner();
+            int mid = in.n >>> 1;           // left keeps children [0, mid)
+            right.n = in.n - mid;
+            System.arraycopy(in.children, mid, right.children, 0, right.n);
+            System.arraycopy(in.keys, mid, right.keys, 0, right.n - 1);
+            splitKey = in.keys[mid - 1];
+            Arrays.fill(in.children, mid, in.n, null);
+            Arrays.fill(in.keys, mid - 1, in.n - 1, null);
+            in.n = mid;
+            return right;
+        }
+
+        // Returns true if the key was removed; previous value in oldValue.
+        boolean remove(Object key) {
+            oldValue = null;
+            int before = size;
+            delete(root, key);
+            while (root instanceof Inner && root.n == 1) {
+                root = ((Inner) root).children[0];
+            }
+            if (root instanceof Inner && root.n == 0) {
+                root = new Leaf();
+            }
+            return size != before;
+        }
+
+        // Returns true if 'node' became empty and must be dropped by its parent.
+        private boolean delete(Node node, Object key) {
+            if (node instanceof Leaf) {
+                Leaf leaf = (Leaf) node;
+                int i = bound(leaf.keys, leaf.n, key, false);
+                if (i == leaf.n || compare(leaf.keys[i], key) != 0) {
+                    return false;
+                }
+                oldValue = leaf.vals[i];
+                System.arraycopy(leaf.keys, i + 1, leaf.keys, i, leaf.n - 1 - i);
+                System.arraycopy(leaf.vals, i + 1, leaf.vals, i, leaf.n - 1 - i);
+                leaf.n--;
+                leaf.keys[leaf.n] = null;
+                leaf.vals[leaf.n] = null;
+                size--;
+                modCount++;
+                if (leaf.n > 0 || leaf == root) {
+                    return false;
+                }
+                if (leaf.prev != null) leaf.prev.next = leaf.next;
+                if (leaf.next != null) leaf.next.prev = leaf.prev;
+                return true;
+            }
+            Inner in = (Inner) node;
+            int ci = bound(in.keys, in.n - 1, key, true);
+            if (!delete(in.children[ci], key)) {
+                return false;
+            }
+            int k = ci == 0 ? 0 : ci - 1; // separator that goes away with the child
+            System.arraycopy(in.children, ci + 1, in.children, ci, in.n - 1 - ci);
+            if (in.n > 1) {
+                System.arraycopy(in.keys, k + 1, in.keys, k, in.n - 2 - k);
+                in.keys[in.n - 2] = null;
+            }
+            in.n--;
+            in.children[in.n] = null;
+            return in.n == 0;
+        }
+
+        void clear() {
+            root = new Leaf();
+            size = 0;
+            modCount++;
+        }
+
+        Leaf firstLeaf() {
+            Node node = root;
+            while (node instanceof Inner) node = ((Inner) node).children[0];
+            return node.n == 0 ? null : (Leaf) node;
+        }
+
+        Leaf lastLeaf() {
+            Node node = root;
+            while (node instanceof Inner) node = ((Inner) node).children[node.n - 1];
+            return node.n == 0 ? null : (Leaf) node;
+        }
+    }
+
+    // A position in the leaf chain.
+    static final class Pos {
+        Leaf leaf;
+        int idx;
+
+        Pos(Leaf leaf, int idx) {
+            this.leaf = leaf;
+            this.idx = idx;
+        }
+
+        Object key() { return leaf.keys[idx]; }
+        Object value() { return leaf.vals[idx]; }
+    }
+
+    // ---------------------------------------------------------------- map / view state
+
+    final Tree<K, V> tree;
+    // Bounds of this view (the top-level map has none)
+    private final boolean hasLo, loInclusive, hasHi, hiInclusive;
+    private final K lo, hi;
+    private final boolean descending;
+
+    BPlusTreeMap() {
+        this((Comparator<? super K>) null);
+    }
+
+    BPlusTreeMap(Comparator<? super K> comparator) {
+        this(new Tree<>(comparator), false, null, false, false, null, false, false);
+    }
+
+    BPlusTreeMap(Map<? extends K, ? extends V> m) {
+        this();
+        putAll(m);
+    }
+
+    private BPlusTreeMap(Tree<K, V> tree, boolean hasLo, K lo, boolean loInclusive,
+                         boolean hasHi, K hi, boolean hiInclusive, boolean descending) {
+        this.tree = tree;
+        this.hasLo = hasLo;
+        this.lo = lo;
+        this.loInclusive = loInclusive;
+        this.hasHi = hasHi;
+        this.hi = hi;
+        this.hiInclusive = hiInclusive;
+        this.descending = descending;
+    }
+
+    private boolean bounded() {
+        return hasLo || hasHi;
+    }
+
+    private boolean tooLow(Object key) {
+        if (!hasLo) return false;
+        int c = tree.compare(key, lo);
+        return c < 0 || (c == 0 && !loInclusive);
+    }
+
+    private boolean tooHigh(Object key) {
+        if (!hasHi) return false;
+        int c = tree.compare(key, hi);
+        return c > 0 || (c == 0 && !hiInclusive);
+    }
+
+    private boolean inRange(Object key) {
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    // Positions in ascending key order, restricted to this view's bounds.
+
+    private Pos ceilingPos(Object key, boolean inclusive) {
+        Leaf leaf = tree.findLeaf(key);
+        int i = tree.bound(leaf.keys, leaf.n, key, !inclusive);
+        if (i == leaf.n) {
+            leaf = leaf.next;
+            i = 0;
+        }
+        return leaf == null || leaf.n == 0 ? null : new Pos(leaf, i);
+    }
+
+    private Pos floorPos(Object key, boolean inclusive) {
+        Leaf leaf = tree.findLeaf(key);
+        int i = tree.bound(leaf.keys, leaf.n, key, inclusive) - 1;
+        if (i < 0) {
+            leaf = leaf.prev;
+            if (leaf == null) return null;
+            i = leaf.n - 1;
+        }
+        return leaf.n == 0 ? null : new Pos(leaf, i);
+    }
+
+    private Pos lowest() {
+        Pos p;
+        if (hasLo) {
+            p = ceilingPos(lo, loInclusive);
+        } else {
+            Leaf l = tree.firstLeaf();
+            p = l == null ? null : new Pos(l, 0);
+        }
+        return p == null || tooHigh(p.key()) ? null : p;
+    }
+
+    private Pos highest() {
+        Pos p;
+        if (hasHi) {
+            p = floorPos(hi, hiInclusive);
+        } else {
+            Leaf l = tree.lastLeaf();
+            p = l == null ? null : new Pos(l, l.n - 1);
+        }
+        return p == null || tooLow(p.key()) ? null : p;
+    }
+
+    private Pos ceiling(Object key, boolean inclusive) {
+        if (tooLow(key)) return lowest();
+        Pos p = ceilingPos(key, inclusive);
+        return p == null || tooHigh(p.key()) ? null : p;
+    }
+
+    private Pos floor(Object key, boolean inclusive) {
+        if (tooHigh(key)) return highest();
+        Pos p = floorPos(key, inclusive);
+        return p == null || tooLow(p.key()) ? null : p;
+    }
+
+    // Same as above but in this view's iteration order (flipped for descending views).
+    private Pos first() { return descending ? highest() : lowest(); }
+    private Pos last() { return descending ? lowest() : highest(); }
+    private Pos ceil(Object k, boolean inc) { return descending ? floor(k, inc) : ceiling(k, inc); }
+    private Pos flr(Object k, boolean inc) { return descending ? ceiling(k, inc) : floor(k, inc); }
+
+    @SuppressWarnings("unchecked")
+    private Map.Entry<K, V> entry(Pos p) {
+        return p == null ? null : new SimpleImmutableEntry<>((K) p.key(), (V) p.value());
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(Pos p) {
+        return p == null ? null : (K) p.key();
+    }
+
+    // ---------------------------------------------------------------- Map
+
+    @Override
+    public int size() {
+        if (!bounded()) {
+            return tree.size;
+        }
+        int count = 0;
+        for (Iterator<K> it = keyIterator(false); it.hasNext(); it.next()) count++;
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bounded() ? lowest() == null : tree.size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && inRange(key) && tree.containsKey(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return key == null || !inRange(key) ? null : (V) tree.get(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        if (!inRange(key)) {
+            throw new IllegalArgumentException("key out of range");
+        }
+        tree.put(key, value);
+        return (V) tree.oldValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (key == null || !inRange(key)) return null;
+        tree.remove(key);
+        return (V) tree.oldValue;
+    }
+
+    @Override
+    public void clear() {
+        if (!bounded()) {
+            tree.clear();
+        } else {
+            for (Iterator<K> it = keyIterator(false); it.hasNext(); ) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    // Scan in this view's order: one cursor per call, no iterator or Entry object per element.
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Cursor<Void> c = new Cursor<>(false) {
+            @Override
+            Void emit(Leaf leaf, int i) {
+                action.accept((K) leaf.keys[i], (V) leaf.vals[i]);
+                return null;
+            }
+        };
+        while (c.hasNext()) c.next();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Cursor<>(false) {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    V emit(Leaf leaf, int i) {
+                        return (V) leaf.vals[i];
+                    }
+                };
+            }
+
+            @Override public int size() { return BPlusTreeMap.this.size(); }
+            @Override public boolean isEmpty() { return BPlusTreeMap.this.isEmpty(); }
+            @Override public void clear() { BPlusTreeMap.this.clear(); }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new Cursor<>(false) {
+                    @Override
+                    Map.Entry<K, V> emit(Leaf leaf, int i) {
+                        return new EntryView(leaf.keys[i], leaf.vals[i]);
+                    }
+                };
+            }
+
+            @Override public int size() { return BPlusTreeMap.this.size(); }
+            @Override public boolean isEmpty() { return BPlusTreeMap.this.isEmpty(); }
+            @Override public void clear() { BPlusTreeMap.this.clear(); }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry)) return false;
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                return containsKey(e.getKey()) && Objects.equals(get(e.getKey()), e.getValue());
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!contains(o)) return false;
+                BPlusTreeMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+                return true;
+            }
+        };
+    }
+
+    // Entry whose setValue writes through to the map.
+    private final class EntryView extends SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        @SuppressWarnings("unchecked")
+        EntryView(Object k, Object v) {
+            super((K) k, (V) v);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    Iterator<K> keyIterator(boolean reverse) {
+        return new Cursor<>(reverse) {
+            @Override
+            @SuppressWarnings("unchecked")
+            K emit(Leaf leaf, int i) {
+                return (K) leaf.keys[i];
+            }
+        };
+    }
+
+    // Walks the leaf chain within the view's bounds, in view order (optionally reversed).
+    private abstract class Cursor<T> implements Iterator<T> {
+        private final boolean backwards;
+        private Leaf leaf;
+        private int idx;
+        // Last position inside the view: iteration stops there without comparing every key
+        private Leaf fenceLeaf;
+        private int fenceIdx;
+        private Object lastKey;
+        private int expectedMod = tree.modCount;
+
+        Cursor(boolean reverse) {
+            backwards = descending != reverse;
+            seek(backwards ? highest() : lowest());
+        }
+
+        private void seek(Pos p) {
+            Pos fence = backwards ? lowest() : highest();
+            if (p == null || fence == null) {
+                leaf = null;
+                return;
+            }
+            int c = tree.compare(p.key(), fence.key());
+            if (backwards ? c < 0 : c > 0) {
+                leaf = null;
+                return;
+            }
+            leaf = p.leaf;
+            idx = p.idx;
+            fenceLeaf = fence.leaf;
+            fenceIdx = fence.idx;
+        }
+
+        abstract T emit(Leaf leaf, int i);
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        public T next() {
+            if (leaf == null) throw new NoSuchElementException();
+            if (expectedMod != tree.modCount) throw new ConcurrentModificationException();
+            T out = emit(leaf, idx);
+            lastKey = leaf.keys[idx];
+            if (leaf == fenceLeaf && idx == fenceIdx) {
+                leaf = null;
+            } else if (backwards) {
+                if (--idx < 0) {
+                    leaf = leaf.prev;
+                    idx = leaf.n - 1;
+                }
+            } else if (++idx == leaf.n) {
+                leaf = leaf.next;
+                idx = 0;
+            }
+            return out;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) throw new IllegalStateException();
+            if (expectedMod != tree.modCount) throw new ConcurrentModificationException();
+            boolean more = leaf != null;
+            tree.remove(lastKey);
+            expectedMod = tree.modCount;
+            if (more) { // indices shifted → re-find the next position by key
+                seek(backwards ? floorPos(lastKey, false) : ceilingPos(lastKey, false));
+            }
+            lastKey = null;
+        }
+    }
+
+    // ---------------------------------------------------------------- SortedMap / NavigableMap
+
+    @Override
+    public Comparator<? super K> comparator() {
+        Comparator<? super K> c = tree.comparator;
+        if (!descending) return c;
+        return c == null ? Collections.reverseOrder() : Collections.reverseOrder(c);
+    }
+
+    @Override public Map.Entry<K, V> firstEntry() { return entry(first()); }
+    @Override public Map.Entry<K, V> lastEntry() { return entry(last()); }
+    @Override public Map.Entry<K, V> ceilingEntry(K key) { return entry(ceil(key, true)); }
+    @Override public Map.Entry<K, V> higherEntry(K key) { return entry(ceil(key, false)); }
+    @Override public Map.Entry<K, V> floorEntry(K key) { return entry(flr(key, true)); }
+    @Override public Map.Entry<K, V> lowerEntry(K key) { return entry(flr(key, false)); }
+    @Override public K ceilingKey(K key) { return key(ceil(key, true)); }
+    @Override public K higherKey(K key) { return key(ceil(key, false)); }
+    @Override public K floorKey(K key) { return key(flr(key, true)); }
+    @Override public K lowerKey(K key) { return key(flr(key, false)); }
+
+    @Override
+    public K firstKey() {
+        Pos p = first();
+        if (p == null) throw new NoSuchElementException();
+        return key(p);
+    }
+
+    @Override
+    public K lastKey() {
+        Pos p = last();
+        if (p == null) throw new NoSuchElementException();
+        return key(p);
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        Map.Entry<K, V> e = firstEntry();
+        if (e != null) tree.remove(e.getKey());
+        return e;
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        Map.Entry<K, V> e = lastEntry();
+        if (e != null) tree.remove(e.getKey());
+        return e;
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return new BPlusTreeMap<>(tree, hasLo, lo, loInclusive, hasHi, hi, hiInclusive, !descending);
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new KeySet<>(this);
+    }
+
+    @Override
+    public NavigableSet<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        if (descending) { // view order is reversed → from is the high bound
+            return restrict(toKey, toInclusive, true, fromKey, fromInclusive, true);
+        }
+        return restrict(fromKey, fromInclusive, true, toKey, toInclusive, true);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return descending ? restrict(toKey, inclusive, true, null, false, false)
+                : restrict(null, false, false, toKey, inclusive, true);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return descending ? restrict(null, false, false, fromKey, inclusive, true)
+                : restrict(fromKey, inclusive, true, null, false, false);
+    }
+
+    @Override public SortedMap<K, V> subMap(K fromKey, K toKey) { return subMap(fromKey, true, toKey, false); }
+    @Override public SortedMap<K, V> headMap(K toKey) { return headMap(toKey, false); }
+    @Override public SortedMap<K, V> tailMap(K fromKey) { return tailMap(fromKey, true); }
+
+    // Intersects the requested (ascending) bounds with this view's bounds.
+    private NavigableMap<K, V> restrict(K newLo, boolean newLoInc, boolean useLo,
+                                        K newHi, boolean newHiInc, boolean useHi) {
+        if (useLo && useHi && tree.compare(newLo, newHi) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        if (useLo && !withinBounds(newLo) || useHi && !withinBounds(newHi)) {
+            throw new IllegalArgumentException("key out of range");
+        }
+        boolean l = useLo || hasLo, h = useHi || hasHi;
+        K nl = useLo ? newLo : lo, nh = useHi ? newHi : hi;
+        // Requesting an inclusive bound on top of an equal exclusive one stays exclusive
+        boolean li = useLo ? newLoInc && !(hasLo && !loInclusive && tree.compare(newLo, lo) == 0) : loInclusive;
+        boolean hi2 = useHi ? newHiInc && !(hasHi && !hiInclusive && tree.compare(newHi, hi) == 0) : hiInclusive;
+        return new BPlusTreeMap<>(tree, l, nl, li, h, nh, hi2, descending);
+    }
+
+    // Like inRange, but a key equal to an exclusive bound still counts (allowed as a view bound).
+    private boolean withinBounds(K key) {
+        return !(hasLo && tree.compare(key, lo) < 0) && !(hasHi && tree.compare(key, hi) > 0);
+    }
+
+    // ---------------------------------------------------------------- key set view
+
+    static final class KeySet<K> extends AbstractSet<K> implements NavigableSet<K> {
+        private final BPlusTreeMap<K, ?> m;
+
+        KeySet(BPlusTreeMap<K, ?> m) {
+            this.m = m;
+        }
+
+        @Override public Iterator<K> iterator() { return m.keyIterator(false); }
+        @Override public Iterator<K> descendingIterator() { return m.keyIterator(true); }
+        @Override public int size() { return m.size(); }
+        @Override public boolean isEmpty() { return m.isEmpty(); }
+        @Override public boolean contains(Object o) { return m.containsKey(o); }
+        @Override public void clear() { m.clear(); }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!m.containsKey(o)) return false;
+            m.remove(o);
+            return true;
+        }
+
+        @Override public Comparator<? super K> comparator() { return m.comparator(); }
+        @Override public K first() { return m.firstKey(); }
+        @Override public K last() { return m.lastKey(); }
+        @Override public K lower(K k) { return m.lowerKey(k); }
+        @Override public K floor(K k) { return m.floorKey(k); }
+        @Override public K ceiling(K k) { return m.ceilingKey(k); }
+        @Override public K higher(K k) { return m.higherKey(k); }
+
+        @Override
+        public K pollFirst() {
+            Map.Entry<K, ?> e = m.pollFirstEntry();
+            return e == null ? null : e.getKey();
+        }
+
+        @Override
+        public K pollLast() {
+            Map.Entry<K, ?> e = m.pollLastEntry();
+            return e == null ? null : e.getKey();
+        }
+
+        @Override public NavigableSet<K> descendingSet() { return m.descendingKeySet(); }
+
+        @Override
+        public NavigableSet<K> subSet(K from, boolean fromInc, K to, boolean toInc) {
+            return m.subMap(from, fromInc, to, toInc).navigableKeySet();
+        }
+
+        @Override public NavigableSet<K> headSet(K to, boolean inc) { return m.headMap(to, inc).navigableKeySet(); }
+        @Override public NavigableSet<K> tailSet(K from, boolean inc) { return m.tailMap(from, inc).navigableKeySet(); }
+        @Override public SortedSet<K> subSet(K from, K to) { return subSet(from, true, to, false); }
+        @Override public SortedSet<K> headSet(K to) { return headSet(to, false); }
+        @Override public SortedSet<K> tailSet(K from) { return tailSet(from, true); }
+    }
+
+    // ---------------------------------------------------------------- demo
+
+    public static void main(String[] args) {
+        // Correctness: random operations checked against TreeMap, including views
+        Random rnd = new Random(1);
+        BPlusTreeMap<Integer, Integer> map = new BPlusTreeMap<>();
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        for (int i = 0; i < 300_000; i++) {
+            int k = rnd.nextInt(20_000);
+            if (rnd.nextInt(3) == 0) {
+                check(Objects.equals(map.remove(k), ref.remove(k)), "remove");
+            } else {
+                check(Objects.equals(map.put(k, i), ref.put(k, i)), "put");
+            }
+            if (i % 1_000 == 0) {
+                int a = rnd.nextInt(20_000), b = a + rnd.nextInt(2_000);
+                check(Objects.equals(map.ceilingEntry(a), ref.ceilingEntry(a)), "ceiling");
+                check(Objects.equals(map.lowerKey(a), ref.lowerKey(a)), "lower");
+                check(map.subMap(a, true, b, false).equals(ref.subMap(a, true, b, false)), "subMap");
+                check(new ArrayList<>(map.descendingMap().headMap(b, true).keySet())
+                        .equals(new ArrayList<>(ref.descendingMap().headMap(b, true).keySet())), "desc");
+                check(Objects.equals(map.tailMap(b, false).firstEntry(), ref.tailMap(b, false).firstEntry()), "tail");
+                check(new ArrayList<>(map.subMap(a, b).values()).equals(new ArrayList<>(ref.subMap(a, b).values())), "values");
+            }
+        }
+        map.subMap(5_000, 6_000).clear();
+        ref.subMap(5_000, 6_000).clear();
+        map.keySet().removeIf(k -> k % 7 == 0);
+        ref.keySet().removeIf(k -> k % 7 == 0);
+        map.descendingMap().tailMap(15_000, true).keySet().removeIf(k -> k % 5 == 0);
+        ref.descendingMap().tailMap(15_000, true).keySet().removeIf(k -> k % 5 == 0);
+        check(map.equals(ref) && map.size() == ref.size(), "final");
+        System.out.println("matches TreeMap: size=" + map.size());
+
+        // Same for the long-key tree: grow, then shrink through merges and borrows
+        LongKeyBPlusTree<Integer> lk = new LongKeyBPlusTree<>();
+        TreeMap<Long, Integer> lref = new TreeMap<>();
+        for (int i = 0; i < 600_000; i++) {
+            long k = rnd.nextInt(20_000);
+            if (i < 300_000 ? rnd.nextInt(3) == 0 : rnd.nextInt(3) != 0) {
+                check(Objects.equals(lk.remove(k), lref.remove(k)), "long remove");
+            } else {
+                check(Objects.equals(lk.put(k, i), lref.put(k, i)), "long put");
+            }
+            if (i % 1_000 == 0) {
+                long a = rnd.nextInt(20_000), b = a + rnd.nextInt(2_000);
+                check(Objects.equals(lk.get(a), lref.get(a)), "long get");
+                check(lk.countRange(a, b) == lref.subMap(a, b).size(), "long countRange");
+                Long c = lref.ceilingKey(a);
+                check(lk.ceilingKeyOr(a, -1) == (c == null ? -1 : c), "long ceiling");
+            }
+        }
+        check(lk.size() == lref.size() && lk.countRange(Long.MIN_VALUE, Long.MAX_VALUE) == lref.size(), "long final");
+        System.out.println("LongKeyBPlusTree matches TreeMap: size=" + lk.size());
+
+        // Time-range scans over transaction timestamps
+        int n = 2_000_000;
+        long[] ts = new long[n];
+        long t = 1_700_000_000_000L;
+        for (int i = 0; i < n; i++) ts[i] = t += 1 + rnd.nextInt(50);
+        BPlusTreeMap<Long, Integer> bt = new BPlusTreeMap<>();
+        TreeMap<Long, Integer> tm = new TreeMap<>();
+        LongKeyBPlusTree<Integer> lt = new LongKeyBPlusTree<>();
+        for (int i = 0; i < n; i++) {
+            bt.put(ts[i], i);
+            tm.put(ts[i], i);
+            lt.put(ts[i], i);
+        }
+        for (int round = 0; round < 3; round++) {
+            long[] sums = new long[3];
+            long[] times = new long[3];
+            for (int q = 0; q < 2_000; q++) {
+                long from = ts[rnd.nextInt(n - 5_000)], to = from + 25_000 * 20;
+                long s = System.nanoTime();
+                for (Integer v : tm.subMap(from, to).values()) sums[0] += v;
+                long s1 = System.nanoTime();
+                for (Integer v : bt.subMap(from, to).values()) sums[1] += v;
+                long s2 = System.nanoTime();
+                sums[2] += LongKeyBPlusTree.sumRange(lt, from, to);
+                long s3 = System.nanoTime();
+                times[0] += s1 - s;
+                times[1] += s2 - s1;
+                times[2] += s3 - s2;
+            }
+            System.out.printf("range scans: TreeMap %d ms, BPlusTreeMap %d ms, LongKeyBPlusTree %d ms (same result: %b)%n",
+                    times[0] / 1_000_000, times[1] / 1_000_000, times[2] / 1_000_000,
+                    sums[0] == sums[1] && sums[1] == sums[2]);
+        }
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new AssertionError("mismatch in " + what);
+    }
+}
+
+// ---------------------------------------------------------------- primitive long keys
+
+@FunctionalInterface
+interface LongObjConsumer<V> {
+    void accept(long key, V value);
+}
+
+final class LongKeyBPlusTree<V> {
+    private static final int ORDER = BPlusTreeMap.ORDER;
+    private static final int MIN = ORDER / 2; // a split leaves at least ORDER / 2 entries per side
+
+    private abstract static class Node {
+        final long[] keys = new long[ORDER + 1];
+        int n;
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] vals = new Object[ORDER + 1];
+        Leaf next;
+    }
+
+    private static final class Inner extends Node {
+        final Node[] children = new Node[ORDER + 2];
+    }
+
+    private Node root = new Leaf();
+    private int size;
+    private long splitKey;
+    private Object oldValue;
+
+    int size() {
+        return size;
+    }
+
+    // First index with keys[i] >= key (strict=false) or > key (strict=true)
+    private static int bound(long[] keys, int len, long key, boolean strict) {
+        int lo = 0, hi = len;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key || (strict && keys[mid] == key)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private Leaf findLeaf(long key) {
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner in = (Inner) node;
+            node = in.children[bound(in.keys, in.n - 1, key, true)];
+        }
+        return (Leaf) node;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        Leaf leaf = findLeaf(key);
+        int i = bound(leaf.keys, leaf.n, key, false);
+        return i < leaf.n && leaf.keys[i] == key ? (V) leaf.vals[i] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        oldValue = null;
+        Node right = insert(root, key, value);
+        if (right != null) {
+            Inner r = new Inner();
+            r.children[0] = root;
+            r.children[1] = right;
+            r.keys[0] = splitKey;
+            r.n = 2;
+            root = r;
+        }
+        return (V) oldValue;
+    }
+
+    private Node insert(Node node, long key, Object value) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int i = bound(leaf.keys, leaf.n, key, false);
+            if (i < leaf.n && leaf.keys[i] == key) {
+                oldValue = leaf.vals[i];
+                leaf.vals[i] = value;
+                return null;
+            }
+            System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.n - i);
+            System.arraycopy(leaf.vals, i, leaf.vals, i + 1, leaf.n - i);
+            leaf.keys[i] = key;
+            leaf.vals[i] = value;
+            leaf.n++;
+            size++;
+            if (leaf.n <= ORDER) {
+                return null;
+            }
+            Leaf right = new Leaf();
+            int mid = leaf.n >>> 1;
+            right.n = leaf.n - mid;
+            System.arraycopy(leaf.keys, mid, right.keys, 0, right.n);
+            System.arraycopy(leaf.vals, mid, right.vals, 0, right.n);
+            Arrays.fill(leaf.vals, mid, leaf.n, null);
+            leaf.n = mid;
+            right.next = leaf.next;
+            leaf.next = right;
+            splitKey = right.keys[0];
+            return right;
+        }
+        Inner in = (Inner) node;
+        int ci = bound(in.keys, in.n - 1, key, true);
+        Node child = insert(in.children[ci], key, value);
+        if (child == null) {
+            return null;
+        }
+        System.arraycopy(in.keys, ci, in.keys, ci + 1, in.n - 1 - ci);
+        System.arraycopy(in.children, ci + 1, in.children, ci + 2, in.n - 1 - ci);
+        in.keys[ci] = splitKey;
+        in.children[ci + 1] = child;
+        in.n++;
+        if (in.n <= ORDER) {
+            return null;
+        }
+        Inner right = new Inner();
+        int mid = in.n >>> 1;
+        right.n = in.n - mid;
+        System.arraycopy(in.children, mid, right.children, 0, right.n);
+        System.arraycopy(in.keys, mid, right.keys, 0, right.n - 1);
+        splitKey = in.keys[mid - 1];
+        Arrays.fill(in.children, mid, in.n, null);
+        in.n = mid;
+        return right;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        oldValue = null;
+        delete(root, key);
+        if (root instanceof Inner && root.n == 1) {
+            root = ((Inner) root).children[0];
+        }
+        return (V) oldValue;
+    }
+
+    // Returns true if 'node' fell below half full and its parent must rebalance it.
+    private boolean delete(Node node, long key) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int i = bound(leaf.keys, leaf.n, key, false);
+            if (i == leaf.n || leaf.keys[i] != key) {
+                return false;
+            }
+            oldValue = leaf.vals[i];
+            System.arraycopy(leaf.keys, i + 1, leaf.keys, i, leaf.n - 1 - i);
+            System.arraycopy(leaf.vals, i + 1, leaf.vals, i, leaf.n - 1 - i);
+            leaf.n--;
+            leaf.vals[leaf.n] = null;
+            size--;
+            return leaf.n < MIN;
+        }
+        Inner in = (Inner) node;
+        int ci = bound(in.keys, in.n - 1, key, true);
+        if (!delete(in.children[ci], key)) {
+            return false;
+        }
+        rebalance(in, ci == 0 ? 0 : ci - 1); // pair the child with its right (or left) sibling
+        return in.n < MIN;
+    }
+
+    // children[k] and children[k + 1] of 'parent', one of them below MIN:
+    // merge them if both fit in one node, otherwise move one entry over.
+    private void rebalance(Inner parent, int k) {
+        Node left = parent.children[k], right = parent.children[k + 1];
+        if (left.n + right.n <= ORDER) {
+            if (left instanceof Leaf) {
+                Leaf l = (Leaf) left, r = (Leaf) right;
+                System.arraycopy(r.keys, 0, l.keys, l.n, r.n);
+                System.arraycopy(r.vals, 0, l.vals, l.n, r.n);
+                l.next = r.next;
+            } else {
+                Inner l = (Inner) left, r = (Inner) right;
+                l.keys[l.n - 1] = parent.keys[k];
+                System.arraycopy(r.keys, 0, l.keys, l.n, r.n - 1);
+                System.arraycopy(r.children, 0, l.children, l.n, r.n);
+            }
+            left.n += right.n;
+            System.arraycopy(parent.keys, k + 1, parent.keys, k, parent.n - 2 - k);
+            System.arraycopy(parent.children, k + 2, parent.children, k + 1, parent.n - 2 - k);
+            parent.n--;
+            parent.children[parent.n] = null;
+        } else if (left instanceof Leaf) {
+            Leaf l = (Leaf) left, r = (Leaf) right;
+            if (l.n < r.n) { // borrow the first entry of the right leaf
+                l.keys[l.n] = r.keys[0];
+                l.vals[l.n] = r.vals[0];
+                l.n++;
+                r.n--;
+                System.arraycopy(r.keys, 1, r.keys, 0, r.n);
+                System.arraycopy(r.vals, 1, r.vals, 0, r.n);
+                r.vals[r.n] = null;
+            } else {             // borrow the last entry of the left leaf
+                System.arraycopy(r.keys, 0, r.keys, 1, r.n);
+                System.arraycopy(r.vals, 0, r.vals, 1, r.n);
+                l.n--;
+                r.keys[0] = l.keys[l.n];
+                r.vals[0] = l.vals[l.n];
+                l.vals[l.n] = null;
+                r.n++;
+            }
+            parent.keys[k] = r.keys[0];
+        } else {
+            Inner l = (Inner) left, r = (Inner) right;
+            if (l.n < r.n) { // rotate the first child of the right node through the parent
+                l.keys[l.n - 1] = parent.keys[k];
+                l.children[l.n] = r.children[0];
+                l.n++;
+                parent.keys[k] = r.keys[0];
+                r.n--;
+                System.arraycopy(r.keys, 1, r.keys, 0, r.n - 1);
+                System.arraycopy(r.children, 1, r.children, 0, r.n);
+                r.children[r.n] = null;
+            } else {             // rotate the last child of the left node through the parent
+                System.arraycopy(r.keys, 0, r.keys, 1, r.n - 1);
+                System.arraycopy(r.children, 0, r.children, 1, r.n);
+                r.keys[0] = parent.keys[k];
+                r.children[0] = l.children[l.n - 1];
+                r.n++;
+                l.n--;
+                parent.keys[k] = l.keys[l.n - 1];
+                l.children[l.n] = null;
+            }
+        }
+    }
+
+    // Smallest key >= key, or orElse if there is none.
+    long ceilingKeyOr(long key, long orElse) {
+        Leaf leaf = findLeaf(key);
+        int i = bound(leaf.keys, leaf.n, key, false);
+        if (i == leaf.n) {
+            leaf = leaf.next;
+            i = 0;
+        }
+        return leaf == null || leaf.n == 0 ? orElse : leaf.keys[i];
+    }
+
+    // Visits keys in [fromInclusive, toExclusive) in ascending order without allocating.
+    @SuppressWarnings("unchecked")
+    void forEachInRange(long fromInclusive, long toExclusive, LongObjConsumer<? super V> action) {
+        Leaf leaf = findLeaf(fromInclusive);
+        int i = bound(leaf.keys, leaf.n, fromInclusive, false);
+        for (; leaf != null; leaf = leaf.next, i = 0) {
+            long[] keys = leaf.keys;
+            for (int n = leaf.n; i < n; i++) {
+                if (keys[i] >= toExclusive) return;
+                action.accept(keys[i], (V) leaf.vals[i]);
+            }
+        }
+    }
+
+    // Sum of numeric values in [fromInclusive, toExclusive): the typical aggregate of a range scan.
+    // Static so that V is only required to be a Number here, not for the whole tree.
+    static long sumRange(LongKeyBPlusTree<? extends Number> tree, long fromInclusive, long toExclusive) {
+        long sum = 0;
+        LongKeyBPlusTree.Leaf leaf = tree.findLeaf(fromInclusive);
+        int i = bound(leaf.keys, leaf.n, fromInclusive, false);
+        for (; leaf != null; leaf = leaf.next, i = 0) {
+            long[] keys = leaf.keys;
+            for (int n = leaf.n; i < n; i++) {
+                if (keys[i] >= toExclusive) return sum;
+                sum += ((Number) leaf.vals[i]).longValue();
+            }
+        }
+        return sum;
+    }
+
+    int countRange(long fromInclusive, long toExclusive) {
+        int[] count = new int[1];
+        forEachInRange(fromInclusive, toExclusive, (k, v) -> count[0]++);
+        return count[0];
+    }
+}
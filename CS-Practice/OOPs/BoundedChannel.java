@@ -0,0 +1,362 @@
+// 📬 Bounded batching channel (instead of SharedResource wait()/notify())
+
+// ObjectClasses.java → SharedResource.produce()/consume():
+//  one `ready` flag + synchronized + wait()/notify()
+//  ❌ holds ONE item at a time → producer and consumer take turns.
+//  ❌ every item = lock + notify + wake-up of a sleeping thread (~10-50 µs each).
+//  ❌ notify() wakes one random waiter; multiple producers/consumers need notifyAll() storms.
+
+// ✅ BoundedChannel (many producers, many consumers)
+//  Buffer = MpmcRingQueue (lock-free, preallocated) → producers and consumers run in parallel.
+//  Backpressure: send() waits while the channel is full → a slow stage slows its producers
+//    instead of letting memory grow.
+//  Batching: sendAll() / receiveBatch() move many items per CAS and per wake-up.
+//  Waiting is pluggable (WaitStrategy): busySpin / yielding / parking / blocking.
+//  close(): senders fail fast, receivers drain what is left and then get null (end of stream).
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+final class BoundedChannel<E> implements AutoCloseable {
+    private final MpmcRingQueue<E> queue;
+    private final WaitStrategy waitStrategy;
+    private static final int CLOSED = Integer.MIN_VALUE;
+    // One word = closed flag (sign bit) + number of senders inside send*(): both are read and
+    // changed atomically, so "closed and no sender left" is an exact snapshot.
+    private final AtomicInteger state = new AtomicInteger();
+
+    BoundedChannel(int capacity) {
+        this(capacity, WaitStrategy.parking(TimeUnit.MICROSECONDS.toNanos(50)));
+    }
+
+    BoundedChannel(int capacity, WaitStrategy waitStrategy) {
+        this.queue = new MpmcRingQueue<>(capacity, waitStrategy);
+        this.waitStrategy = waitStrategy;
+    }
+
+    int capacity() {
+        return queue.capacity();
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    boolean isClosed() {
+        return state.get() < 0;
+    }
+
+    // ---------------------------------------------------------------- send
+
+    // Waits while full. Throws IllegalStateException once the channel is closed.
+    void send(E item) throws InterruptedException {
+        enter();
+        try {
+            for (int attempt = 0; !queue.offer(item); attempt++) {
+                checkOpen();
+                if (Thread.interrupted()) throw new InterruptedException();
+                waitStrategy.idle(attempt);
+            }
+        } finally {
+            state.decrementAndGet();
+        }
+    }
+
+    boolean trySend(E item) {
+        enter();
+        try {
+            return queue.offer(item);
+        } finally {
+            state.decrementAndGet();
+        }
+    }
+
+    boolean send(E item, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        enter();
+        try {
+            for (int attempt = 0; !queue.offer(item); attempt++) {
+                checkOpen();
+                if (Thread.interrupted()) throw new InterruptedException();
+                if (System.nanoTime() - deadline >= 0) return false;
+                waitStrategy.idle(attempt);
+            }
+            return true;
+        } finally {
+            state.decrementAndGet();
+        }
+    }
+
+    // Sends all items in order (waits for room as needed).
+    void sendAll(List<? extends E> items) throws InterruptedException {
+        for (E item : items) Objects.requireNonNull(item, "null item"); // all or nothing
+        enter();
+        try {
+            int done = 0, attempt = 0;
+            while (done < items.size()) {
+                int n = queue.offerAll(items.subList(done, items.size()));
+                if (n > 0) {
+                    done += n;
+                    attempt = 0;
+                } else {
+                    checkOpen();
+                    if (Thread.interrupted()) throw new InterruptedException();
+                    waitStrategy.idle(attempt++);
+                }
+            }
+        } finally {
+            state.decrementAndGet();
+        }
+    }
+
+    // ---------------------------------------------------------------- receive
+
+    // Waits for an item; returns null once the channel is closed and fully drained.
+    E receive() throws InterruptedException {
+        E item;
+        for (int attempt = 0; (item = queue.poll()) == null; attempt++) {
+            if (isDrained()) return null;
+            if (Thread.interrupted()) throw new InterruptedException();
+            waitStrategy.idle(attempt);
+        }
+        return item;
+    }
+
+    E tryReceive() {
+        return queue.poll();
+    }
+
+    // Null on timeout or when closed and drained.
+    E receive(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E item;
+        for (int attempt = 0; (item = queue.poll()) == null; attempt++) {
+            if (isDrained()) return null;
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (System.nanoTime() - deadline >= 0) return null;
+            waitStrategy.idle(attempt);
+        }
+        return item;
+    }
+
+    // Waits until at least one item is available, then hands up to maxItems to the consumer.
+    // Returns 0 only when the channel is closed and drained.
+    int receiveBatch(Consumer<? super E> consumer, int maxItems) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            int n = queue.drainTo(consumer, maxItems);
+            if (n > 0) return n;
+            if (isDrained()) return 0;
+            if (Thread.interrupted()) throw new InterruptedException();
+            waitStrategy.idle(attempt);
+        }
+    }
+
+    // ---------------------------------------------------------------- close
+
+    // Idempotent. Items already sent stay receivable.
+    @Override
+    public void close() {
+        state.getAndAccumulate(CLOSED, (s, flag) -> s | flag);
+        waitStrategy.signalAll();
+    }
+
+    // Closed, no sender can still add an item, and nothing is left.
+    // A sender offers before it leaves, so once state == CLOSED its item is visible to peek().
+    private boolean isDrained() {
+        return state.get() == CLOSED && queue.peek() == null;
+    }
+
+    // Registering and checking 'closed' is one atomic step: a sender either got in before
+    // close() (and is counted until it is done) or sees the flag and fails.
+    private void enter() {
+        if (state.getAndIncrement() < 0) {
+            state.decrementAndGet();
+            throw new IllegalStateException("Channel is closed");
+        }
+    }
+
+    private void checkOpen() {
+        if (isClosed()) throw new IllegalStateException("Channel is closed");
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedChannel{size=" + size() + ", capacity=" + capacity() + ", closed=" + isClosed() + "}";
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        BoundedChannel<String> orders = new BoundedChannel<>(4);
+        orders.sendAll(List.of("o1", "o2", "o3"));
+        System.out.println(orders.trySend("o4") + " " + orders.trySend("o5")); // true false (full → backpressure)
+        orders.close();
+        String o;
+        while ((o = orders.receive()) != null) System.out.print(o + " ");  // o1 o2 o3 o4, then end of stream
+        System.out.println();
+        try {
+            orders.send("late");
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage()); // Channel is closed
+        }
+
+        int producers = 4, consumers = 4, perProducer = 1_000_000;
+        runChannel("channel, parking ", new BoundedChannel<>(1 << 12), producers, consumers, perProducer);
+        runChannel("channel, blocking", new BoundedChannel<>(1 << 12, WaitStrategy.blocking()), producers, consumers, perProducer);
+        runBaseline("ArrayBlockingQueue", producers, consumers, perProducer);
+        runWaitNotify("wait/notify slot  ", producers, consumers, perProducer / 20);
+    }
+
+    // Producers send send-time stamps in batches of 64; consumers drain in batches and sample latency.
+    private static void runChannel(String name, BoundedChannel<Long> ch, int producers, int consumers,
+                                   int perProducer) throws InterruptedException {
+        long[][] latencies = new long[consumers][];
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                List<Long> batch = new ArrayList<>(64);
+                try {
+                    for (int i = 0; i < perProducer; i += 64) {
+                        batch.clear();
+                        long now = System.nanoTime();
+                        for (int j = 0; j < 64 && i + j < perProducer; j++) batch.add(now);
+                        ch.sendAll(batch);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            int id = c;
+            threads[producers + c] = new Thread(() -> {
+                LatencySampler sampler = new LatencySampler();
+                try {
+                    while (ch.receiveBatch(sampler, 256) > 0) {
+                        // keep draining until closed and empty
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                latencies[id] = sampler.samples();
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread t : threads) t.start();
+        for (int p = 0; p < producers; p++) threads[p].join();
+        ch.close();
+        for (int c = 0; c < consumers; c++) threads[producers + c].join();
+        report(name, (long) producers * perProducer, System.nanoTime() - start, latencies);
+    }
+
+    private static void runBaseline(String name, int producers, int consumers, int perProducer) throws InterruptedException {
+        ArrayBlockingQueue<Long> q = new ArrayBlockingQueue<>(1 << 12);
+        long[][] latencies = new long[consumers][];
+        int perConsumer = producers * perProducer / consumers;
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) q.put(System.nanoTime());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            int id = c;
+            threads[producers + c] = new Thread(() -> {
+                LatencySampler sampler = new LatencySampler();
+                try {
+                    for (int i = 0; i < perConsumer; i++) sampler.accept(q.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                latencies[id] = sampler.samples();
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        report(name, (long) producers * perProducer, System.nanoTime() - start, latencies);
+    }
+
+    // SharedResource from ObjectClasses.java, extended to carry one value per hand-off.
+    private static void runWaitNotify(String name, int producers, int consumers, int perProducer) throws InterruptedException {
+        Object lock = new Object();
+        long[] slot = new long[1];
+        boolean[] ready = new boolean[1];
+        long[][] latencies = new long[consumers][];
+        int perConsumer = producers * perProducer / consumers;
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        synchronized (lock) {
+                            while (ready[0]) lock.wait();
+                            slot[0] = System.nanoTime();
+                            ready[0] = true;
+                            lock.notifyAll();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            int id = c;
+            threads[producers + c] = new Thread(() -> {
+                LatencySampler sampler = new LatencySampler();
+                try {
+                    for (int i = 0; i < perConsumer; i++) {
+                        long stamp;
+                        synchronized (lock) {
+                            while (!ready[0]) lock.wait();
+                            stamp = slot[0];
+                            ready[0] = false;
+                            lock.notifyAll();
+                        }
+                        sampler.accept(stamp);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                latencies[id] = sampler.samples();
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        report(name, (long) producers * perProducer, System.nanoTime() - start, latencies);
+    }
+
+    // Keeps every 16th send→receive latency.
+    private static final class LatencySampler implements Consumer<Long> {
+        private long[] samples = new long[1024];
+        private int count, seen;
+
+        @Override
+        public void accept(Long sentAt) {
+            if ((seen++ & 15) == 0) {
+                if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+                samples[count++] = System.nanoTime() - sentAt;
+            }
+        }
+
+        long[] samples() {
+            return Arrays.copyOf(samples, count);
+        }
+    }
+
+    private static void report(String name, long items, long nanos, long[][] latencies) {
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%s: %5.1f M items/s, latency p50 %,d us, p99 %,d us%n", name,
+                items * 1e3 / nanos, all[all.length / 2] / 1000, all[(int) (all.length * 0.99)] / 1000);
+    }
+}
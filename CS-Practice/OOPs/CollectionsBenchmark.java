@@ -0,0 +1,445 @@
+// 📊 Measuring the Collections time-complexity cheat sheet
+
+// CollectionsInJava.java (section 7) lists Big-O only:
+// | ArrayList  | Access O(1) | Insert O(n)     | Delete O(n)     | Search O(n)     |
+// | LinkedList | Access O(n) | Insert O(1)     | Delete O(1)     | Search O(n)     |
+// | HashSet / HashMap           O(1)           | TreeSet / TreeMap  O(log n)        |
+// Big-O hides constants and memory effects: a "O(1)" HashMap lookup that misses the CPU cache
+// can cost more than a "O(log n)" walk that stays in cache.
+
+// ✅ CollectionsBenchmark = small self-contained micro-benchmark harness:
+//  Every case: warmup rounds (let the JIT compile) → measured rounds → median ns/op.
+//  Parameters: size (1e3 … 1e8), key type (Integer / String), access pattern
+//    sequential → next element is next in memory (cache friendly)
+//    random     → shuffled order (cache misses show up at large sizes)
+//  Results are fed into a blackhole (volatile sink) so the JIT cannot delete the work.
+//  Report = Markdown table + "observed growth" from the smallest to the largest size.
+
+// Run:  java CollectionsBenchmark [--sizes 1000,10000,100000,1000000] [--out report.md]
+// Sizes that would not fit in the heap are skipped (use -Xmx for 1e7 / 1e8).
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+final class CollectionsBenchmark {
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final long MIN_ROUND_NANOS = 10_000_000;   // repeat a trial until a round takes ≥ 10 ms
+    private static final long LINEAR_BUDGET = 20_000_000;     // element visits per O(n) trial
+    private static final int MAX_OPS = 200_000;
+
+    static volatile long sink; // blackhole
+
+    // One timed pass; returns a checksum for the blackhole.
+    interface Trial {
+        long run();
+
+        default void cleanup() {
+        }
+    }
+
+    interface TrialFactory {
+        Trial create(Fixture f, int ops);
+    }
+
+    static final class Case {
+        final String collection, operation;
+        final boolean linear;          // O(n) per op → fewer ops per trial
+        final boolean patternSensitive;
+        final int bytesPerElement;     // rough heap estimate, used to skip huge sizes
+        final TrialFactory factory;
+
+        Case(String collection, String operation, boolean linear, boolean patternSensitive,
+             int bytesPerElement, TrialFactory factory) {
+            this.collection = collection;
+            this.operation = operation;
+            this.linear = linear;
+            this.patternSensitive = patternSensitive;
+            this.bytesPerElement = bytesPerElement;
+            this.factory = factory;
+        }
+    }
+
+    // Keys, probe order and lazily built collections for one (size, key type, pattern).
+    static final class Fixture {
+        final int n;
+        final boolean stringKeys;
+        final boolean random;
+        final Object[] keys;    // n present keys + MAX_OPS absent keys
+        final int[] order;      // probe order over [0, n)
+        private final Map<String, Object> built = new HashMap<>();
+
+        Fixture(int n, boolean stringKeys, boolean random, Random rnd) {
+            this.n = n;
+            this.stringKeys = stringKeys;
+            this.random = random;
+            keys = new Object[n + MAX_OPS];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = stringKeys ? "ACC-" + i : (Object) i;
+            }
+            order = new int[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            if (random) {
+                for (int i = n - 1; i > 0; i--) {
+                    int j = rnd.nextInt(i + 1);
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                }
+            }
+        }
+
+        Object key(int i) {
+            return keys[i];
+        }
+
+        // i-th probe index of a trial with 'ops' probes.
+        // sequential + ops < n → evenly spaced ascending positions, so short O(n) trials still cover the whole range.
+        int probeIndex(int i, int ops) {
+            if (random) return order[i % n];
+            return ops < n ? (int) ((2L * i + 1) * n / (2L * ops)) : i % n;
+        }
+
+        Object probe(int i, int ops) {
+            return keys[probeIndex(i, ops)];
+        }
+
+        Object absent(int i) {
+            return keys[n + i];
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T get(String name, Supplier<T> factory) {
+            return (T) built.computeIfAbsent(name, k -> factory.get());
+        }
+
+        <C extends Collection<Object>> C fill(C c) {
+            for (int i = 0; i < n; i++) c.add(keys[i]);
+            return c;
+        }
+
+        <M extends Map<Object, Object>> M fill(M m) {
+            for (int i = 0; i < n; i++) m.put(keys[i], keys[i]);
+            return m;
+        }
+    }
+
+    // ---------------------------------------------------------------- cases
+
+    static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+        listCases(cases, "ArrayList", 24, () -> new ArrayList<>());
+        listCases(cases, "LinkedList", 48, () -> new LinkedList<>());
+        setCases(cases, "HashSet", 56, HashSet::new);
+        setCases(cases, "TreeSet", 56, TreeSet::new);
+        mapCases(cases, "HashMap", 56, HashMap::new);
+        mapCases(cases, "TreeMap", 56, TreeMap::new);
+        return cases;
+    }
+
+    private static void listCases(List<Case> cases, String name, int bytes,
+                                  Supplier<List<Object>> factory) {
+        boolean linked = name.equals("LinkedList");
+        cases.add(new Case(name, "Access get(i)", linked, true, bytes, (f, ops) -> {
+            List<Object> list = f.get(name, () -> f.fill(factory.get()));
+            return () -> {
+                long sum = 0;
+                for (int i = 0; i < ops; i++) sum += list.get(f.probeIndex(i, ops)).hashCode();
+                return sum;
+            };
+        }));
+        if (linked) {
+            cases.add(new Case(name, "Insert (head)", false, false, bytes, (f, ops) -> {
+                LinkedList<Object> list = f.get(name, () -> f.fill(new LinkedList<>()));
+                return trial(() -> {
+                    for (int i = 0; i < ops; i++) list.addFirst(f.absent(i));
+                    return list.size();
+                }, () -> {
+                    for (int i = 0; i < ops; i++) list.removeFirst();
+                });
+            }));
+            cases.add(new Case(name, "Delete (head)", false, false, bytes, (f, ops) -> {
+                LinkedList<Object> list = f.get(name, () -> f.fill(new LinkedList<>()));
+                for (int i = 0; i < ops; i++) list.addFirst(f.absent(i));
+                return () -> {
+                    long sum = 0;
+                    for (int i = 0; i < ops; i++) sum += list.removeFirst().hashCode();
+                    return sum;
+                };
+            }));
+        } else {
+            cases.add(new Case(name, "Insert (end)", false, false, bytes, (f, ops) -> {
+                List<Object> list = f.get(name, () -> f.fill(factory.get()));
+                return trial(() -> {
+                    for (int i = 0; i < ops; i++) list.add(f.absent(i));
+                    return list.size();
+                }, () -> list.subList(f.n, list.size()).clear());
+            }));
+        }
+        cases.add(new Case(name, "Insert (middle)", true, false, bytes, (f, ops) -> {
+            List<Object> list = f.get(name, () -> f.fill(factory.get()));
+            int mid = f.n / 2;
+            return trial(() -> {
+                for (int i = 0; i < ops; i++) list.add(mid, f.absent(i));
+                return list.size();
+            }, () -> list.subList(mid, mid + ops).clear());
+        }));
+        if (!linked) {
+            cases.add(new Case(name, "Delete (middle)", true, false, bytes, (f, ops) -> {
+                List<Object> list = f.get(name, () -> f.fill(factory.get()));
+                int mid = f.n / 2;
+                list.addAll(mid, Arrays.asList(f.keys).subList(f.n, f.n + ops));
+                return () -> {
+                    long sum = 0;
+                    for (int i = 0; i < ops; i++) sum += list.remove(mid).hashCode();
+                    return sum;
+                };
+            }));
+        }
+        cases.add(new Case(name, "Search contains", true, true, bytes, (f, ops) -> {
+            List<Object> list = f.get(name, () -> f.fill(factory.get()));
+            return () -> {
+                long hits = 0;
+                for (int i = 0; i < ops; i++) if (list.contains(f.probe(i, ops))) hits++;
+                return hits;
+            };
+        }));
+        cases.add(iterateCase(name, bytes, f -> f.get(name, () -> f.fill(factory.get()))));
+    }
+
+    private static void setCases(List<Case> cases, String name, int bytes,
+                                 Supplier<Set<Object>> factory) {
+        cases.add(new Case(name, "Insert add", false, false, bytes, (f, ops) -> {
+            Set<Object> set = f.get(name, () -> f.fill(factory.get()));
+            return trial(() -> {
+                long added = 0;
+                for (int i = 0; i < ops; i++) if (set.add(f.absent(i))) added++;
+                return added;
+            }, () -> {
+                for (int i = 0; i < ops; i++) set.remove(f.absent(i));
+            });
+        }));
+        cases.add(new Case(name, "Delete remove", false, false, bytes, (f, ops) -> {
+            Set<Object> set = f.get(name, () -> f.fill(factory.get()));
+            for (int i = 0; i < ops; i++) set.add(f.absent(i));
+            return () -> {
+                long removed = 0;
+                for (int i = 0; i < ops; i++) if (set.remove(f.absent(i))) removed++;
+                return removed;
+            };
+        }));
+        cases.add(new Case(name, "Search contains", false, true, bytes, (f, ops) -> {
+            Set<Object> set = f.get(name, () -> f.fill(factory.get()));
+            return () -> {
+                long hits = 0;
+                for (int i = 0; i < ops; i++) if (set.contains(f.probe(i, ops))) hits++;
+                return hits;
+            };
+        }));
+        cases.add(iterateCase(name, bytes, f -> f.get(name, () -> f.fill(factory.get()))));
+    }
+
+    private static void mapCases(List<Case> cases, String name, int bytes,
+                                 Supplier<Map<Object, Object>> factory) {
+        cases.add(new Case(name, "Insert put", false, false, bytes, (f, ops) -> {
+            Map<Object, Object> map = f.get(name, () -> f.fill(factory.get()));
+            return trial(() -> {
+                long added = 0;
+                for (int i = 0; i < ops; i++) if (map.put(f.absent(i), f.absent(i)) == null) added++;
+                return added;
+            }, () -> {
+                for (int i = 0; i < ops; i++) map.remove(f.absent(i));
+            });
+        }));
+        cases.add(new Case(name, "Delete remove", false, false, bytes, (f, ops) -> {
+            Map<Object, Object> map = f.get(name, () -> f.fill(factory.get()));
+            for (int i = 0; i < ops; i++) map.put(f.absent(i), f.absent(i));
+            return () -> {
+                long removed = 0;
+                for (int i = 0; i < ops; i++) if (map.remove(f.absent(i)) != null) removed++;
+                return removed;
+            };
+        }));
+        cases.add(new Case(name, "Search get", false, true, bytes, (f, ops) -> {
+            Map<Object, Object> map = f.get(name, () -> f.fill(factory.get()));
+            return () -> {
+                long sum = 0;
+                for (int i = 0; i < ops; i++) sum += map.get(f.probe(i, ops)).hashCode();
+                return sum;
+            };
+        }));
+        cases.add(iterateCase(name, bytes, f -> f.get(name, () -> f.fill(factory.get())).keySet()));
+    }
+
+    // ns/op here = ns per element visited (pointer chasing vs contiguous arrays).
+    private static Case iterateCase(String name, int bytes, Function<Fixture, Collection<?>> source) {
+        return new Case(name, "Iterate (per element)", false, false, bytes, (f, ops) -> {
+            Collection<?> c = source.apply(f);
+            return new Trial() {
+                @Override
+                public long run() {
+                    long sum = 0;
+                    int visited = 0;
+                    while (visited < ops) {
+                        for (Object o : c) {
+                            sum += o.hashCode();
+                            if (++visited == ops) break;
+                        }
+                    }
+                    return sum;
+                }
+            };
+        });
+    }
+
+    private static Trial trial(LongSupplier run, Runnable cleanup) {
+        return new Trial() {
+            @Override
+            public long run() {
+                return run.getAsLong();
+            }
+
+            @Override
+            public void cleanup() {
+                cleanup.run();
+            }
+        };
+    }
+
+    // ---------------------------------------------------------------- harness
+
+    // Median ns/op over the measured rounds, or NaN if the case was skipped.
+    static double measure(Case c, Fixture f) {
+        int ops = c.linear
+                ? (int) Math.max(5, Math.min(MAX_OPS, LINEAR_BUDGET / f.n))
+                : Math.min(MAX_OPS, Math.max(f.n, 10_000));
+        if (c.operation.startsWith("Delete") || c.operation.startsWith("Insert")) {
+            ops = Math.min(ops, Math.max(1, f.n / 4)); // keep the size close to n
+        }
+        double[] samples = new double[MEASURED_ROUNDS];
+        System.gc(); // do not charge this case for the previous case's garbage
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long elapsed = 0, done = 0;
+            while (elapsed < MIN_ROUND_NANOS) {
+                Trial t = c.factory.create(f, ops);
+                long start = System.nanoTime();
+                sink += t.run();
+                elapsed += System.nanoTime() - start;
+                t.cleanup();
+                done += ops;
+            }
+            if (round >= WARMUP_ROUNDS) {
+                samples[round - WARMUP_ROUNDS] = (double) elapsed / done;
+            }
+        }
+        Arrays.sort(samples);
+        return samples[MEASURED_ROUNDS / 2];
+    }
+
+    static String growth(double[] row, int[] sizes) {
+        int first = -1, last = -1;
+        for (int i = 0; i < row.length; i++) {
+            if (!Double.isNaN(row[i])) {
+                if (first < 0) first = i;
+                last = i;
+            }
+        }
+        if (first < 0 || first == last) return "-";
+        double slope = Math.log(row[last] / row[first]) / Math.log((double) sizes[last] / sizes[first]);
+        String shape = slope < 0.15 ? "flat" : slope < 0.6 ? "sub-linear" : "linear";
+        return String.format("%s (n^%.2f)", shape, slope);
+    }
+
+    private static String formatSize(int n) {
+        int exp = (int) Math.round(Math.log10(n));
+        return Math.pow(10, exp) == n ? "1e" + exp : Integer.toString(n);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] sizeArg = {1_000, 10_000, 100_000, 1_000_000};
+        Path out = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--sizes")) {
+                sizeArg = Arrays.stream(args[++i].split(",")).mapToInt(s -> (int) Double.parseDouble(s)).toArray();
+            } else if (args[i].equals("--out")) {
+                out = Path.of(args[++i]);
+            }
+        }
+
+        int[] sizes = sizeArg;
+        List<Case> cases = cases();
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        Random rnd = new Random(42);
+        // Warm-up pass over every case so the first measured size is not paying for JIT compilation
+        for (boolean stringKeys : new boolean[] {false, true}) {
+            Fixture f = new Fixture(sizes[0], stringKeys, true, rnd);
+            for (Case c : cases) measure(c, f);
+        }
+        // row key → ns/op per size
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (int s = 0; s < sizes.length; s++) {
+            int n = sizes[s];
+            for (boolean stringKeys : new boolean[] {false, true}) {
+                for (boolean random : new boolean[] {false, true}) {
+                    Fixture f = null;
+                    for (Case c : cases) {
+                        if (random && !c.patternSensitive) continue;
+                        String row = c.collection + " | " + c.operation + " | "
+                                + (stringKeys ? "String" : "Integer") + " | "
+                                + (c.patternSensitive ? (random ? "random" : "sequential") : "-");
+                        double[] cells = results.computeIfAbsent(row, k -> new double[sizes.length]);
+                        long estimate = (long) n * (c.bytesPerElement + (stringKeys ? 48 : 16));
+                        if (estimate > maxHeap / 3) {
+                            cells[s] = Double.NaN;
+                            continue;
+                        }
+                        if (f == null) f = new Fixture(n, stringKeys, random, rnd);
+                        cells[s] = measure(c, f);
+                    }
+                    System.out.printf("done: n=%s %s %s%n", formatSize(n),
+                            stringKeys ? "String" : "Integer", random ? "random" : "sequential");
+                }
+            }
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("# Collections benchmark (ns/op, median of %d rounds)%n%n", MEASURED_ROUNDS));
+        report.append(String.format("JVM %s, heap %d MB, %d cpus%n%n", System.getProperty("java.version"),
+                maxHeap >> 20, Runtime.getRuntime().availableProcessors()));
+        report.append("| Collection | Operation | Keys | Pattern |");
+        for (int n : sizes) report.append(' ').append(formatSize(n)).append(" |");
+        report.append(" Observed growth |\n|---|---|---|---|");
+        for (int i = 0; i < sizes.length; i++) report.append("---:|");
+        report.append("---|\n");
+        for (Map.Entry<String, double[]> e : results.entrySet()) {
+            report.append("| ").append(e.getKey()).append(" |");
+            for (double v : e.getValue()) {
+                report.append(Double.isNaN(v) ? " skipped |" : String.format(v < 10 ? " %.2f |" : " %.0f |", v));
+            }
+            report.append(' ').append(growth(e.getValue(), sizes)).append(" |\n");
+        }
+        System.out.println();
+        System.out.print(report);
+        if (out != null) {
+            Files.writeString(out, report);
+            System.out.println("report written to " + out.toAbsolutePath());
+        }
+    }
+}
@@ -0,0 +1,529 @@
+// 🧾 Batched Command executor with a memory-bounded undo log (Command pattern from DP.java)
+
+// DP.java → Command: encapsulate a request as an object. Example use: Undo/Redo, queue requests.
+// Textbook version: interface Command { void execute(); void undo(); }
+//   history.push(cmd) after every execute() → undo() = history.pop().undo()
+//  ❌ the history keeps every command OBJECT (plus whatever it references) → heap grows forever
+//     under a high-rate mutation stream; capping it just throws undo history away.
+//  ❌ commands mutate shared state from many threads → locks around every execute().
+
+// ✅ CommandExecutor<S>
+//  Queue: producers submit() commands into a BoundedChannel (backpressure when full).
+//  Single writer: ONE thread drains the channel in batches and executes them → the state needs
+//    no locks at all; undo/redo/flush are queued like any other command, so they are ordered too.
+//  Undo log: while executing, a command records how to reverse each change as a fixed 20-byte
+//    record (op, a, b) e.g. (SET_BALANCE, account, oldBalance); END marks the command boundary.
+//    Records go into a fixed-size heap buffer; when it is full the OLDEST half is spilled to a
+//    temp file (the log is a stack: newest in memory, older history on disk, read back on undo).
+//    Heap use is constant; maxSpillBytes caps the disk part (oldest history is dropped, straight
+//    from memory when the cap is below one spill chunk).
+//  A Reverter applies one record and records its inverse → that is what makes redo possible.
+//  A command that throws is rolled back from its own partial records → all-or-nothing.
+//    A command too big to keep whole (memory + maxSpillBytes) fails on its next record instead of
+//    losing its beginning; failures are counted in stats(), not logged one by one.
+//  A Reverter that throws leaves state and logs out of step → the history is cleared, the writer
+//    thread keeps running and every flush() still returns.
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+final class CommandExecutor<S> implements AutoCloseable {
+    interface Command<S> {
+        // Changes state and records every change's inverse in undo; runs on the writer thread only.
+        void execute(S state, UndoLog undo);
+    }
+
+    interface Reverter<S> {
+        // Applies one undo record (op, a, b) and records the inverse of what it did.
+        void revert(S state, int op, long a, long b, UndoLog inverse);
+    }
+
+    // Stack of fixed-size records: [int op][long a][long b]. Top in memory, bottom spilled to disk.
+    static final class UndoLog implements AutoCloseable {
+        static final int RECORD = 20;
+        private static final int END = Integer.MIN_VALUE; // command boundary
+        private static final UndoLog DISCARD = new UndoLog();  // sink for the inverse of a rollback
+
+        private final ByteBuffer mem;     // [0, position) = newest records
+        private final long maxSpillBytes;
+        private Path spillFile;
+        private FileChannel spill;
+        private long spilledBytes;        // records on disk: [0, spilledBytes)
+        private boolean spillSplitCommand; // disk ends in the middle of a command
+        private long droppedBytes;
+        private boolean truncated;        // oldest history was dropped; undo stops there
+
+        private final boolean discard;
+
+        UndoLog(int memoryBytes, long maxSpillBytes) {
+            if (memoryBytes < 4 * RECORD) throw new IllegalArgumentException("memoryBytes too small: " + memoryBytes);
+            this.mem = ByteBuffer.allocate(memoryBytes / RECORD * RECORD);
+            this.maxSpillBytes = maxSpillBytes;
+            this.discard = false;
+        }
+
+        private UndoLog() {
+            this.mem = ByteBuffer.allocate(0);
+            this.maxSpillBytes = 0;
+            this.discard = true;
+        }
+
+        void record(int op, long a, long b) {
+            if (op == END) throw new IllegalArgumentException("Reserved op: " + op);
+            if (!discard) write(op, a, b);
+        }
+
+        void endCommand() {
+            write(END, 0, 0);
+        }
+
+        private void write(int op, long a, long b) {
+            if (!mem.hasRemaining()) spillOldestHalf(); // throws if the running command cannot be kept whole
+            mem.putInt(op).putLong(a).putLong(b);
+        }
+
+        boolean isEmpty() {
+            return mem.position() == 0 && spilledBytes == 0;
+        }
+
+        void clear() {
+            mem.clear();
+            spilledBytes = 0;
+            spillSplitCommand = false;
+        }
+
+        long memoryBytes() {
+            return mem.capacity();
+        }
+
+        long spilledBytes() {
+            return spilledBytes;
+        }
+
+        long droppedBytes() {
+            return droppedBytes;
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        // Pops the newest complete command and reverts its records newest-first.
+        <S> boolean undoCommand(S state, Reverter<S> reverter, UndoLog inverse) {
+            if (isEmpty()) return false;
+            if (opAt(mem.position() - RECORD) != END) throw new IllegalStateException("Top of log is not a command end");
+            mem.position(mem.position() - RECORD);
+            revertUntilBoundary(state, reverter, inverse);
+            if (inverse != null) inverse.endCommand();
+            return true;
+        }
+
+        // Reverts the records of a command that failed before endCommand().
+        <S> void rollback(S state, Reverter<S> reverter) {
+            revertUntilBoundary(state, reverter, null);
+        }
+
+        private <S> void revertUntilBoundary(S state, Reverter<S> reverter, UndoLog inverse) {
+            UndoLog sink = inverse != null ? inverse : DISCARD;
+            while (true) {
+                if (mem.position() == 0 && !readBack()) return;
+                int p = mem.position() - RECORD;
+                int op = mem.getInt(p);
+                if (op == END) return;
+                mem.position(p);
+                reverter.revert(state, op, mem.getLong(p + 4), mem.getLong(p + 12), sink);
+            }
+        }
+
+        private int opAt(int p) {
+            if (p >= 0) return mem.getInt(p);
+            readBack();
+            return mem.getInt(mem.position() - RECORD);
+        }
+
+        // Moves the oldest records (cut at a command boundary when possible) to the spill file.
+        private void spillOldestHalf() {
+            int half = mem.capacity() / RECORD / 2 * RECORD;
+            int chunk = (int) Math.min(half, maxSpillBytes / RECORD * RECORD);
+            if (spilledBytes + chunk > maxSpillBytes) {
+                if (spillSplitCommand && firstEnd(0) < 0) throw tooLarge(); // disk holds its beginning
+                dropDiskHistory();
+                if (mem.hasRemaining()) return;
+            }
+            if (chunk == 0) { // no disk allowed: forget the oldest commands in memory instead
+                int cut = half;
+                while (cut > 0 && mem.getInt(cut - RECORD) != END) cut -= RECORD;
+                int end = firstEnd(cut > 0 ? cut - RECORD : 0);
+                if (end < 0) throw tooLarge(); // memory holds only the running command
+                dropMemory(end + RECORD);
+                truncated = true;
+                return;
+            }
+            int cut = chunk;
+            while (cut > 0 && mem.getInt(cut - RECORD) != END) cut -= RECORD;
+            boolean split = cut == 0;
+            if (split) cut = chunk; // one command bigger than the chunk
+            try {
+                if (spill == null) {
+                    spillFile = Files.createTempFile("undo", ".log");
+                    spill = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                            StandardOpenOption.DELETE_ON_CLOSE);
+                }
+                ByteBuffer out = mem.duplicate();
+                out.position(0).limit(cut);
+                while (out.hasRemaining()) spill.write(out, spilledBytes + out.position());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spilledBytes += cut;
+            spillSplitCommand = split;
+            mem.limit(mem.position()).position(cut);
+            mem.compact(); // newest records move to the front, position = their length
+        }
+
+        // Disk is over its cap: forget everything on disk (the oldest history).
+        private void dropDiskHistory() {
+            droppedBytes += spilledBytes;
+            spilledBytes = 0;
+            truncated = true;
+            if (spillSplitCommand) { // the first command in memory lost its beginning → drop its tail too
+                dropMemory(firstEnd(0) + RECORD);
+                spillSplitCommand = false;
+            }
+        }
+
+        // Offset of the first command end in memory at or after from, or -1.
+        private int firstEnd(int from) {
+            for (int p = from; p < mem.position(); p += RECORD) {
+                if (mem.getInt(p) == END) return p;
+            }
+            return -1;
+        }
+
+        // Drops the oldest n bytes of memory (always whole commands).
+        private void dropMemory(int n) {
+            mem.limit(mem.position()).position(n);
+            mem.compact();
+            droppedBytes += n;
+        }
+
+        private IllegalStateException tooLarge() {
+            return new IllegalStateException("Command does not fit in the undo log (" + mem.capacity()
+                    + " bytes in memory, " + maxSpillBytes + " on disk)");
+        }
+
+        // Memory is empty: loads the newest spilled chunk back. False if nothing is left.
+        private boolean readBack() {
+            if (spilledBytes == 0) return false;
+            int n = (int) Math.min(mem.capacity() / RECORD / 2 * RECORD, spilledBytes);
+            ByteBuffer in = mem.duplicate();
+            in.position(0).limit(n);
+            try {
+                while (in.hasRemaining()) spill.read(in, spilledBytes - n + in.position());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spilledBytes -= n;
+            spillSplitCommand = spilledBytes > 0 && spilledOpAt(spilledBytes - RECORD) != END;
+            mem.position(n);
+            return true;
+        }
+
+        private int spilledOpAt(long offset) {
+            ByteBuffer op = ByteBuffer.allocate(4);
+            try {
+                while (op.hasRemaining()) spill.read(op, offset + op.position());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return op.getInt(0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (spill != null) spill.close(); // DELETE_ON_CLOSE removes the file
+        }
+    }
+
+    // undo / redo / flush travel through the same queue as normal commands, but are not Commands.
+    private static final class Control {
+        final int undo, redo;
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Control(int undo, int redo) {
+            this.undo = undo;
+            this.redo = redo;
+        }
+    }
+
+    private final S state;
+    private final Reverter<S> reverter;
+    private final BoundedChannel<Object> channel; // Command<? super S> or Control
+    private final int batchSize;
+    private final UndoLog undoLog;
+    private final UndoLog redoLog;
+    private final Thread writer;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private long undone, redone; // writer thread only
+
+    CommandExecutor(S state, Reverter<S> reverter, int queueCapacity, int batchSize, int undoMemoryBytes,
+                    long maxSpillBytes) {
+        this.state = state;
+        this.reverter = reverter;
+        this.channel = new BoundedChannel<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.undoLog = new UndoLog(undoMemoryBytes, maxSpillBytes);
+        this.redoLog = new UndoLog(undoMemoryBytes, maxSpillBytes);
+        this.writer = new Thread(this::runWriter, "command-writer");
+        writer.start();
+    }
+
+    void submit(Command<? super S> command) throws InterruptedException {
+        channel.send(command);
+    }
+
+    boolean trySubmit(Command<? super S> command) {
+        return channel.trySend(command);
+    }
+
+    // Queued: reverts the last n commands once everything submitted before has run.
+    void undo(int n) throws InterruptedException {
+        channel.send(new Control(n, 0));
+    }
+
+    void redo(int n) throws InterruptedException {
+        channel.send(new Control(0, n));
+    }
+
+    // Waits until every command submitted before this call has been applied.
+    void flush() throws InterruptedException {
+        Control c = new Control(0, 0);
+        channel.send(c);
+        c.done.await();
+    }
+
+    private void runWriter() {
+        try {
+            while (channel.receiveBatch(this::apply, batchSize) > 0) {
+                batches.increment();
+            }
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    private void apply(Object item) {
+        if (item instanceof Control) {
+            control((Control) item);
+        } else {
+            execute(item);
+        }
+    }
+
+    private void control(Control c) {
+        try {
+            for (int i = 0; i < c.undo && undoLog.undoCommand(state, reverter, redoLog); i++) undone++;
+            for (int i = 0; i < c.redo && redoLog.undoCommand(state, reverter, undoLog); i++) redone++;
+        } catch (RuntimeException e) {
+            abandonHistory(c.undo > 0 ? "undo" : "redo", e);
+        } finally {
+            c.done.countDown(); // flush() must return whatever happened
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void execute(Object item) {
+        Command<? super S> command = (Command<? super S>) item; // only submit() queues commands
+        try {
+            command.execute(state, undoLog);
+            undoLog.endCommand();
+            redoLog.clear(); // a new change invalidates the redo history
+            executed.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            try {
+                undoLog.rollback(state, reverter);
+            } catch (RuntimeException r) {
+                abandonHistory("rollback of failed command", r);
+            }
+        }
+    }
+
+    // A Reverter threw halfway through: the logs no longer match the state → start a new history.
+    private void abandonHistory(String what, RuntimeException e) {
+        undoLog.clear();
+        redoLog.clear();
+        System.err.println(what + " failed, undo history cleared: " + e);
+    }
+
+    String stats() {
+        return String.format("executed=%d failed=%d batches=%d (avg %.1f) undone=%d redone=%d undo heap=%d KB spilled=%d KB dropped=%d KB",
+                executed.sum(), failed.sum(), batches.sum(), executed.sum() / Math.max(1.0, batches.sum()), undone, redone,
+                undoLog.memoryBytes() / 1024, undoLog.spilledBytes() / 1024, undoLog.droppedBytes() / 1024);
+    }
+
+    // Stops accepting commands, applies what is queued, then releases the undo logs.
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        undoLog.close();
+        redoLog.close();
+    }
+
+    // ---------------------------------------------------------------- demo
+
+    static final int SET_BALANCE = 1;
+
+    static final class Ledger {
+        final long[] balances;
+
+        Ledger(int accounts) {
+            balances = new long[accounts];
+        }
+
+        void set(int account, long value, UndoLog undo) {
+            undo.record(SET_BALANCE, account, balances[account]);
+            balances[account] = value;
+        }
+
+        long checksum() {
+            long h = 0;
+            for (int i = 0; i < balances.length; i++) h = h * 31 + balances[i];
+            return h;
+        }
+
+        static void revert(Ledger l, int op, long a, long b, UndoLog inverse) {
+            if (op != SET_BALANCE) throw new IllegalArgumentException("Unknown op " + op);
+            inverse.record(SET_BALANCE, a, l.balances[(int) a]);
+            l.balances[(int) a] = b;
+        }
+    }
+
+    static final class Deposit implements Command<Ledger> {
+        final int account;
+        final long amount;
+
+        Deposit(int account, long amount) {
+            this.account = account;
+            this.amount = amount;
+        }
+
+        @Override
+        public void execute(Ledger l, UndoLog undo) {
+            l.set(account, l.balances[account] + amount, undo);
+        }
+    }
+
+    static final class Transfer implements Command<Ledger> {
+        final int from, to;
+        final long amount;
+
+        Transfer(int from, int to, long amount) {
+            this.from = from;
+            this.to = to;
+            this.amount = amount;
+        }
+
+        @Override
+        public void execute(Ledger l, UndoLog undo) {
+            l.set(from, l.balances[from] - amount, undo); // debit first ...
+            if (l.balances[from] < 0) throw new IllegalStateException("insufficient funds in " + from); // ... rolled back
+            l.set(to, l.balances[to] + amount, undo);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int accounts = 100_000, commands = 2_000_000;
+        Ledger ledger = new Ledger(accounts);
+        Arrays.fill(ledger.balances, 1_000);
+        long initial = ledger.checksum();
+
+        CommandExecutor<Ledger> exec = new CommandExecutor<>(ledger, Ledger::revert, 1 << 14, 256, 1 << 20, 1L << 30);
+        Thread[] producers = new Thread[2];
+        long start = System.nanoTime();
+        for (int p = 0; p < producers.length; p++) {
+            int seed = p;
+            producers[p] = new Thread(() -> {
+                Random rnd = new Random(seed);
+                try {
+                    for (int i = 0; i < commands / producers.length; i++) {
+                        int a = rnd.nextInt(accounts);
+                        exec.submit(i % 2 == 0 ? new Deposit(a, 100) : new Transfer(a, rnd.nextInt(accounts), 1));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producers[p].start();
+        }
+        for (Thread p : producers) p.join();
+        exec.flush();
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(commands + " commands in " + ms + " ms");
+        System.out.println(exec.stats());
+
+        // A failing command leaves no trace
+        long before = ledger.checksum();
+        exec.submit(new Transfer(0, 1, Long.MAX_VALUE / 2));
+        exec.flush();
+        System.out.println("after failed transfer, state unchanged: " + (ledger.checksum() == before));
+
+        // Undo 10 / redo 10 round trip
+        exec.undo(10);
+        exec.flush();
+        long undone10 = ledger.checksum();
+        exec.redo(10);
+        exec.flush();
+        System.out.println("undo 10 + redo 10 restores state: " + (ledger.checksum() == before) + " (differs in between: "
+                + (undone10 != before) + ")");
+
+        // Undo everything, reading the spilled history back from disk
+        start = System.nanoTime();
+        exec.undo(Integer.MAX_VALUE);
+        exec.flush();
+        System.out.printf("undo all in %d ms, back to initial state: %b%n", (System.nanoTime() - start) / 1_000_000,
+                ledger.checksum() == initial);
+        System.out.println(exec.stats());
+
+        // A Reverter that throws does not kill the writer thread: flush() still returns
+        exec.submit((l, undo) -> undo.record(99, 0, 0)); // an op Ledger.revert does not know
+        exec.undo(1);
+        exec.flush();
+        System.out.println("flush after failed undo returned, history empty: " + exec.undoLog.isEmpty());
+        exec.close();
+
+        // Same history as command objects on the heap (textbook Deque<Command> history)
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long used = rt.totalMemory() - rt.freeMemory();
+        Deque<Command<Ledger>> history = new ArrayDeque<>();
+        Random rnd = new Random(1);
+        for (int i = 0; i < commands; i++) history.push(new Transfer(rnd.nextInt(accounts), rnd.nextInt(accounts), 1));
+        System.gc();
+        System.out.printf("Deque<Command> history of %d commands: ~%d MB heap (undo log above: 1 MB heap)%n",
+                history.size(), (rt.totalMemory() - rt.freeMemory() - used) >> 20);
+    }
+}
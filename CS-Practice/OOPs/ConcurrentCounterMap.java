@@ -0,0 +1,319 @@
+// 🔥 Concurrent counter map for hot-key counting (+ approximate top-K)
+
+// Counting per-account ops / per-merchant payments:
+//  HashMap<String, Integer> + synchronized → every thread waits for one lock.
+//  ConcurrentHashMap.merge(key, 1, Integer::sum) → locks the key's bin on every call
+//    → a hot key (one big merchant) turns into a single-threaded bottleneck, plus boxing.
+
+// ✅ ConcurrentCounterMap
+//  ConcurrentHashMap<K, Cell> → the map is only written when a key is seen the first time.
+//  Cell starts small: one volatile long updated with CAS (cold keys, ~16 B).
+//  When CAS keeps failing (other threads hit the same key) the cell "inflates" into a LongAdder
+//    → striped counters, one per contending thread, summed on read.
+//
+// ✅ Heavy hitters (top-K), Space-Saving algorithm:
+//  A small summary (e.g. 64 slots) tracks the keys with the largest counts.
+//  Writers feed it a 1-in-16 sample of updates, and only if its lock is free (tryLock)
+//  → never block on it; heavy hitters have so many updates that sampling still finds them.
+//  topK() reports the candidates with their exact counts from the cells.
+//
+// ✅ Snapshots: forEach / snapshot() walk the map weakly consistently → no lock, writers keep going.
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+
+final class ConcurrentCounterMap<K> {
+    private static final int INFLATE_AFTER_FAILURES = 2;
+    private static final int SUMMARY_SAMPLE_MASK = 15; // offer 1 in 16 updates to the top-K summary
+
+    static final class Cell {
+        private static final VarHandle BASE, ADDER;
+
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                BASE = l.findVarHandle(Cell.class, "base", long.class);
+                ADDER = l.findVarHandle(Cell.class, "adder", LongAdder.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile long base;
+        private volatile LongAdder adder; // non-null once the key got hot
+
+        void add(long delta) {
+            LongAdder a = adder;
+            if (a != null) {
+                a.add(delta);
+                return;
+            }
+            long b = base;
+            if (!BASE.compareAndSet(this, b, b + delta)) {
+                addContended(delta);
+            }
+        }
+
+        private void addContended(long delta) {
+            for (int failures = 1; ; failures++) {
+                LongAdder a = adder;
+                if (a == null && failures >= INFLATE_AFTER_FAILURES) {
+                    ADDER.compareAndSet(this, null, new LongAdder());
+                    a = adder;
+                }
+                if (a != null) {
+                    a.add(delta);
+                    return;
+                }
+                long b = base;
+                if (BASE.compareAndSet(this, b, b + delta)) {
+                    return;
+                }
+            }
+        }
+
+        // Updates go either to base or to adder, so the sum never loses one.
+        long sum() {
+            LongAdder a = adder;
+            return a == null ? base : base + a.sum();
+        }
+
+        boolean isInflated() {
+            return adder != null;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Cell> cells = new ConcurrentHashMap<>();
+    private final SpaceSaving<K> heavyHitters;
+    private final ReentrantLock heavyHittersLock = new ReentrantLock();
+    private final LongAdder skippedSummaryUpdates = new LongAdder();
+
+    ConcurrentCounterMap() {
+        this(64);
+    }
+
+    // trackedKeys = Space-Saving summary size (≈ 4-10× the K you want to ask for), 0 = no top-K.
+    ConcurrentCounterMap(int trackedKeys) {
+        this.heavyHitters = trackedKeys > 0 ? new SpaceSaving<>(trackedKeys) : null;
+    }
+
+    void increment(K key) {
+        add(key, 1);
+    }
+
+    void add(K key, long delta) {
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = cells.computeIfAbsent(key, k -> new Cell());
+        }
+        cell.add(delta);
+        if (heavyHitters != null && (ThreadLocalRandom.current().nextInt() & SUMMARY_SAMPLE_MASK) == 0) {
+            if (heavyHittersLock.tryLock()) {
+                try {
+                    heavyHitters.offer(key, delta);
+                } finally {
+                    heavyHittersLock.unlock();
+                }
+            } else {
+                skippedSummaryUpdates.increment();
+            }
+        }
+    }
+
+    long get(K key) {
+        Cell cell = cells.get(key);
+        return cell == null ? 0 : cell.sum();
+    }
+
+    int size() {
+        return cells.size();
+    }
+
+    long sum() {
+        long total = 0;
+        for (Cell c : cells.values()) total += c.sum();
+        return total;
+    }
+
+    long inflatedCells() {
+        return cells.values().stream().filter(Cell::isInflated).count();
+    }
+
+    long skippedSummaryUpdates() {
+        return skippedSummaryUpdates.sum();
+    }
+
+    // Weakly consistent: sees every key present when the walk started, counts as of the visit.
+    void forEach(ObjLongConsumer<? super K> action) {
+        cells.forEach((k, c) -> action.accept(k, c.sum()));
+    }
+
+    Map<K, Long> snapshot() {
+        Map<K, Long> copy = new HashMap<>(cells.size() * 2);
+        forEach(copy::put);
+        return copy;
+    }
+
+    // Approximate heavy hitters, largest first, with exact current counts.
+    List<Map.Entry<K, Long>> topK(int k) {
+        if (heavyHitters == null) throw new IllegalStateException("Top-K tracking disabled");
+        List<K> candidates;
+        heavyHittersLock.lock();
+        try {
+            candidates = heavyHitters.keys();
+        } finally {
+            heavyHittersLock.unlock();
+        }
+        List<Map.Entry<K, Long>> result = new ArrayList<>(candidates.size());
+        for (K key : candidates) result.add(Map.entry(key, get(key)));
+        result.sort(Map.Entry.<K, Long>comparingByValue(Comparator.reverseOrder()));
+        return result.subList(0, Math.min(k, result.size()));
+    }
+
+    // Space-Saving (Metwally et al.): fixed number of counters in a min-heap.
+    // A new key replaces the current minimum and inherits its count, so every key whose
+    // count in the offered stream exceeds total / capacity is guaranteed to be in the summary.
+    private static final class SpaceSaving<K> {
+        private final Object[] keys;
+        private final long[] counts;
+        private final Map<Object, Integer> slot = new HashMap<>();
+        private int size;
+
+        SpaceSaving(int capacity) {
+            keys = new Object[capacity];
+            counts = new long[capacity];
+        }
+
+        void offer(K key, long delta) {
+            Integer i = slot.get(key);
+            if (i != null) {
+                counts[i] += delta;
+                siftDown(i);
+            } else if (size < keys.length) {
+                keys[size] = key;
+                counts[size] = delta;
+                slot.put(key, size);
+                siftUp(size++);
+            } else {
+                slot.remove(keys[0]);
+                keys[0] = key;
+                counts[0] += delta; // inherits the evicted minimum (over-estimate)
+                slot.put(key, 0);
+                siftDown(0);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<K> keys() {
+            List<K> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) list.add((K) keys[i]);
+            return list;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (counts[parent] <= counts[i]) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1, right = left + 1, min = i;
+                if (left < size && counts[left] < counts[min]) min = left;
+                if (right < size && counts[right] < counts[min]) min = right;
+                if (min == i) return;
+                swap(i, min);
+                i = min;
+            }
+        }
+
+        private void swap(int a, int b) {
+            Object k = keys[a];
+            keys[a] = keys[b];
+            keys[b] = k;
+            long c = counts[a];
+            counts[a] = counts[b];
+            counts[b] = c;
+            slot.put(keys[a], a);
+            slot.put(keys[b], b);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int perThread = 2_000_000;
+        String[] merchants = new String[100_000];
+        for (int i = 0; i < merchants.length; i++) merchants[i] = "MERCHANT-" + i;
+
+        // Skewed traffic: ~50% of payments go to 10 big merchants
+        int[][] streams = new int[threads][perThread];
+        for (int t = 0; t < threads; t++) {
+            Random rnd = new Random(t);
+            for (int i = 0; i < perThread; i++) {
+                streams[t][i] = rnd.nextBoolean() ? rnd.nextInt(10) : rnd.nextInt(merchants.length);
+            }
+        }
+
+        for (int round = 0; round < 2; round++) {
+            ConcurrentCounterMap<String> counters = new ConcurrentCounterMap<>();
+            long ours = run(threads, t -> {
+                for (int i : streams[t]) counters.increment(merchants[i]);
+            });
+            ConcurrentHashMap<String, Long> merged = new ConcurrentHashMap<>();
+            long merge = run(threads, t -> {
+                for (int i : streams[t]) merged.merge(merchants[i], 1L, Long::sum);
+            });
+            Map<String, Long> locked = new HashMap<>();
+            long sync = run(threads, t -> {
+                for (int i : streams[t]) {
+                    synchronized (locked) {
+                        locked.merge(merchants[i], 1L, Long::sum);
+                    }
+                }
+            });
+            System.out.printf("%d threads: counter map %d ms, CHM.merge %d ms, synchronized HashMap %d ms%n",
+                    threads, ours, merge, sync);
+
+            if (round == 1) {
+                System.out.println("exact totals: " + (counters.sum() == (long) threads * perThread)
+                        + ", per key equal: " + counters.snapshot().equals(merged));
+                System.out.println("inflated cells: " + counters.inflatedCells() + " of " + counters.size()
+                        + ", skipped summary updates: " + counters.skippedSummaryUpdates());
+                System.out.println("top 5: " + counters.topK(5));
+                List<Map.Entry<String, Long>> exact = new ArrayList<>(merged.entrySet());
+                exact.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+                System.out.println("exact: " + exact.subList(0, 5));
+            }
+        }
+    }
+
+    interface Worker {
+        void run(int thread);
+    }
+
+    private static long run(int threads, Worker worker) throws InterruptedException {
+        Thread[] ts = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            ts[t] = new Thread(() -> worker.run(id));
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
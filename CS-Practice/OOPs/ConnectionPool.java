@@ -0,0 +1,386 @@
+// 🏊 Connection pool behind the Database interface (instead of db.connect() per request)
+
+// SoildPrinciples.java (DIP) → interface Database { void connect(); }
+//   class UserService { void getUser() { db.connect(); ... } }
+//  ❌ every getUser() opens a NEW connection: TCP handshake + TLS + auth ≈ 1 ms+ before the query runs.
+//  ❌ the SQL is parsed/planned again on every call (no prepared statement reuse).
+//  ❌ no upper bound → a traffic spike opens hundreds of connections and overloads the server.
+
+// ✅ ConnectionPool implements Database → UserService doesn't change, it still just calls connect().
+//  Bounded: at most maxSize physical connections; a Semaphore hands out permits (CAS fast path),
+//    callers beyond the limit wait up to connectTimeout, then fail fast.
+//  Lock-free borrow/return: connections sit in a fixed slot array, each with a state
+//    IDLE → IN_USE claimed with ONE CAS. Each thread first retries the slot it used last time
+//    (warm statement cache, no contention with other threads), then scans.
+//  close() on the borrowed handle = return to pool (state back to IDLE), not a real close.
+//  Validation: isValid() (a round trip with a real driver) only when a connection is borrowed
+//    after sitting idle for a while, never on every return.
+//  Idle eviction: connections unused for idleTimeout are closed, down to minIdle.
+//  Prepared statement cache: per connection, LRU (LinkedHashMap in access order)
+//    → the same SQL is prepared once per connection, not once per request.
+
+// Database / DbConnection / DbStatement, User + UserService and EmbeddedDatabase (in-process
+// stand-in for MySQLDatabase / MongoDatabase) each live in their own file.
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+final class ConnectionPool implements Database, AutoCloseable {
+    private static final int IDLE = 0, IN_USE = 1;
+    private static final long VALIDATE_AFTER_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    // One physical connection + its statement cache; lives in a slot until evicted.
+    static final class Entry {
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Entry.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile int state = IN_USE; // created by the borrower that reserved the slot
+        private DbConnection connection;      // set before the first release, then read after a CAS
+        private Map<String, DbStatement> statements;
+        private long lastUsedNanos;
+        private boolean broken; // a call failed on it → not handed out again
+
+        boolean tryClaim() {
+            return state == IDLE && STATE.compareAndSet(this, IDLE, IN_USE);
+        }
+
+        void release() {
+            lastUsedNanos = System.nanoTime();
+            state = IDLE; // volatile write publishes connection/statements to the next borrower
+        }
+    }
+
+    // What callers get from connect(); close() returns the entry, using it afterwards throws.
+    private final class PooledConnection implements DbConnection {
+        private final Entry entry;
+        private final int slot;
+        private boolean returned;
+
+        PooledConnection(Entry entry, int slot) {
+            this.entry = entry;
+            this.slot = slot;
+        }
+
+        @Override
+        public DbStatement prepare(String sql) {
+            if (returned) throw new IllegalStateException("Connection already returned to the pool");
+            DbStatement st = entry.statements.get(sql);
+            if (st != null) {
+                statementHits.increment();
+                return st;
+            }
+            statementMisses.increment();
+            try {
+                st = entry.connection.prepare(sql);
+            } catch (RuntimeException e) {
+                entry.broken = true;
+                throw e;
+            }
+            entry.statements.put(sql, st);
+            return st;
+        }
+
+        @Override
+        public boolean isValid() {
+            return !returned && entry.connection.isValid();
+        }
+
+        @Override
+        public void close() {
+            if (returned) return;
+            returned = true;
+            giveBack(entry, slot);
+        }
+    }
+
+    private final Database backend;
+    private final int minIdle;
+    private final long idleTimeoutNanos;
+    private final long connectTimeoutNanos;
+    private final int statementCacheSize;
+    private final AtomicReferenceArray<Entry> slots;
+    private final Semaphore permits;
+    private final ThreadLocal<int[]> lastSlot = ThreadLocal.withInitial(() -> new int[] {-1});
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final AtomicInteger open = new AtomicInteger();
+
+    ConnectionPool(Database backend, int maxSize) {
+        this(backend, maxSize, 0, 30_000, 5_000, 64);
+    }
+
+    ConnectionPool(Database backend, int maxSize, int minIdle, long idleTimeoutMillis,
+                   long connectTimeoutMillis, int statementCacheSize) {
+        if (maxSize <= 0 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("maxSize=" + maxSize + ", minIdle=" + minIdle);
+        }
+        this.backend = backend;
+        this.minIdle = minIdle;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.connectTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(connectTimeoutMillis);
+        this.statementCacheSize = statementCacheSize;
+        this.slots = new AtomicReferenceArray<>(maxSize);
+        this.permits = new Semaphore(maxSize);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public DbConnection connect() {
+        if (closed) throw new IllegalStateException("Pool is closed");
+        if (!permits.tryAcquire()) {
+            waits.increment();
+            try {
+                if (!permits.tryAcquire(connectTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                    throw new IllegalStateException("Timed out waiting for a connection (" + slots.length()
+                            + " in use)");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for a connection", e);
+            }
+        }
+        // Holding a permit guarantees an idle entry or an empty slot exists (or is about to).
+        try {
+            borrows.increment();
+            int[] hint = lastSlot.get();
+            if (hint[0] >= 0) {
+                PooledConnection c = tryClaim(hint[0]);
+                if (c != null) return c;
+            }
+            int n = slots.length();
+            for (int spins = 0; ; spins++) {
+                int start = spins == 0 ? 0 : ThreadLocalRandom.current().nextInt(n);
+                for (int k = 0; k < n; k++) {
+                    int i = (start + k) % n;
+                    PooledConnection c = tryClaim(i);
+                    if (c == null && slots.get(i) == null) c = openInto(i);
+                    if (c != null) {
+                        hint[0] = i;
+                        return c;
+                    }
+                }
+                Thread.onSpinWait(); // another thread is between returning and releasing its permit
+            }
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection tryClaim(int i) {
+        Entry e = slots.get(i);
+        if (e == null || !e.tryClaim()) return null;
+        if (System.nanoTime() - e.lastUsedNanos > VALIDATE_AFTER_IDLE_NANOS && !e.connection.isValid()) {
+            discard(e, i); // server dropped it while idle
+            return openInto(i);
+        }
+        return new PooledConnection(e, i);
+    }
+
+    private PooledConnection openInto(int i) {
+        Entry e = new Entry();
+        if (!slots.compareAndSet(i, null, e)) return null;
+        try {
+            e.connection = backend.connect();
+        } catch (RuntimeException ex) {
+            slots.set(i, null);
+            throw ex;
+        }
+        e.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DbStatement> eldest) {
+                if (size() <= statementCacheSize) return false;
+                eldest.getValue().close();
+                return true;
+            }
+        };
+        opened.increment();
+        open.incrementAndGet();
+        return new PooledConnection(e, i);
+    }
+
+    // No isValid() here: with a real driver that is a round trip per request. A connection that
+    // failed is dropped now; one that died while idle is caught by tryClaim() on the next borrow.
+    private void giveBack(Entry e, int slot) {
+        if (closed || e.broken) {
+            discard(e, slot);
+        } else {
+            e.release();
+        }
+        permits.release();
+    }
+
+    private void discard(Entry e, int slot) {
+        slots.compareAndSet(slot, e, null);
+        for (DbStatement st : e.statements.values()) st.close();
+        e.connection.close();
+        open.decrementAndGet();
+    }
+
+    // Closes connections idle for longer than idleTimeout, keeping at least minIdle open.
+    int evictIdle() {
+        int count = 0;
+        long now = System.nanoTime();
+        for (int i = 0; i < slots.length() && open.get() > minIdle; i++) {
+            Entry e = slots.get(i);
+            if (e == null || now - e.lastUsedNanos < idleTimeoutNanos) continue;
+            if (!permits.tryAcquire()) return count; // everything busy, nothing is idle anyway
+            try {
+                if (e.tryClaim()) {
+                    if (System.nanoTime() - e.lastUsedNanos < idleTimeoutNanos) { // used again meanwhile
+                        e.state = IDLE;
+                        continue;
+                    }
+                    discard(e, i);
+                    evicted.increment();
+                    count++;
+                }
+            } finally {
+                permits.release();
+            }
+        }
+        return count;
+    }
+
+    int openConnections() {
+        return open.get();
+    }
+
+    int idleConnections() {
+        int idle = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            Entry e = slots.get(i);
+            if (e != null && e.state == IDLE) idle++;
+        }
+        return idle;
+    }
+
+    String stats() {
+        long hits = statementHits.sum(), misses = statementMisses.sum();
+        return String.format(Locale.ROOT,
+                "open=%d idle=%d borrows=%d waits=%d opened=%d evicted=%d statement hit rate=%.4f",
+                openConnections(), idleConnections(), borrows.sum(), waits.sum(), opened.sum(), evicted.sum(),
+                hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+    }
+
+    // Exposes pool state as callback gauges in a MetricsRegistry.
+    void registerMetrics(MetricsRegistry registry, String prefix) {
+        registry.gauge(prefix + ".open", this::openConnections);
+        registry.gauge(prefix + ".idle", this::idleConnections);
+        registry.gauge(prefix + ".waits", waits::sum);
+        registry.gauge(prefix + ".opened", opened::sum);
+    }
+
+    // Stops eviction and closes idle connections; borrowed ones are closed when returned.
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        for (int i = 0; i < slots.length(); i++) {
+            Entry e = slots.get(i);
+            if (e != null && e.tryClaim()) discard(e, i);
+        }
+    }
+
+    // ---------------------------------------------------------------- demo
+
+    public static void main(String[] args) throws InterruptedException {
+        EmbeddedDatabase db = EmbeddedDatabase.withUsers(10_000);
+        int threads = 8, perThread = 300;
+
+        // Connect-per-request, exactly like the SOLID notes
+        UserService direct = new UserService(db);
+        long directMs = run(threads, perThread, direct);
+        long directOpened = db.connectsOpened();
+        System.out.printf("connect per request: %d ms, %d connections opened, %d statements prepared%n",
+                directMs, directOpened, db.statementsPrepared());
+        System.out.println("server saw up to " + db.maxConcurrentConnections() + " connections at once");
+
+        // Same UserService, pooled Database
+        try (ConnectionPool pool = new ConnectionPool(db, 4, 1, 200, 5_000, 64)) {
+            pool.registerMetrics(MetricsRegistry.global(), "db.pool");
+            UserService pooled = new UserService(pool);
+            long prepared = db.statementsPrepared();
+            run(threads, perThread, pooled); // warm-up
+            long pooledMs = run(threads, perThread * 10, pooled);
+            System.out.printf("pooled (max 4):      %d ms for 10x the calls, %d connections opened, "
+                    + "%d statements prepared%n", pooledMs, db.connectsOpened() - directOpened,
+                    db.statementsPrepared() - prepared);
+            System.out.println(pool.stats());
+
+            System.out.println(pooled.getUser(42));                              // User{id=42, name=user-42, ...}
+
+            // Bounded: a 3rd borrower waits, then times out
+            try (ConnectionPool small = new ConnectionPool(db, 2, 0, 30_000, 50, 8)) {
+                DbConnection a = small.connect(), b = small.connect();
+                try {
+                    small.connect();
+                } catch (IllegalStateException e) {
+                    System.out.println(e.getMessage());                          // Timed out waiting ...
+                }
+                a.close();
+                b.close();
+                try {
+                    a.prepare("SELECT id FROM users WHERE id = ?");
+                } catch (IllegalStateException e) {
+                    System.out.println(e.getMessage());                          // already returned
+                }
+            }
+
+            // Idle eviction back to minIdle; the one kept is dropped by a server restart
+            db.restart();
+            Thread.sleep(600);
+            System.out.println("after idle timeout: " + pool.stats());
+            System.out.println("after restart: " + pooled.getUser(7) + ", opened " + (db.connectsOpened() - directOpened));
+            System.out.println("metrics: " + MetricsRegistry.global().snapshot().values);
+        }
+    }
+
+    private static long run(int threads, int perThread, UserService service) throws InterruptedException {
+        Thread[] ts = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            ts[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    long id = rnd.nextInt(10_000);
+                    if (service.getUser(id).id != id) throw new AssertionError("wrong user");
+                }
+            });
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,6 @@
+// 🗄️ Database = the abstraction from the DIP section of SoildPrinciples.java
+// UserService depends only on this → MySQL, Mongo, EmbeddedDatabase or a ConnectionPool plug in.
+
+interface Database {
+    DbConnection connect();
+}
@@ -0,0 +1,10 @@
+// 🔌 DbConnection: what Database.connect() returns; close() ends it (or returns it to a pool).
+
+interface DbConnection extends AutoCloseable {
+    DbStatement prepare(String sql);
+
+    boolean isValid();
+
+    @Override
+    void close();
+}
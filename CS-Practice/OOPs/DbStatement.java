@@ -0,0 +1,11 @@
+// 📝 DbStatement: a prepared statement of a DbConnection (reused by ConnectionPool's statement cache).
+
+import java.util.List;
+
+interface DbStatement {
+    List<Object[]> query(Object... params);
+
+    int update(Object... params);
+
+    default void close() {}
+}
@@ -0,0 +1,208 @@
+// 🗄️ EmbeddedDatabase: in-process stand-in for MySQLDatabase / MongoDatabase
+// Simulated connect and prepare cost (handshake / round trip), so ConnectionPool, NearCache and
+// FanOutQuery can be benchmarked without a server. restart() drops every open connection.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// In-process table store with a tiny SQL subset:
+//   SELECT c1, c2 FROM t WHERE c = ?      UPDATE t SET c1 = ? WHERE c = ?
+// The first column of a table is its primary key (hash lookup); other WHERE columns scan.
+final class EmbeddedDatabase implements Database {
+    private static final class Table {
+        final String[] columns;
+        final ConcurrentHashMap<Object, Object[]> rows = new ConcurrentHashMap<>();
+
+        Table(String... columns) {
+            this.columns = columns;
+        }
+
+        int column(String name) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].equalsIgnoreCase(name)) return i;
+            }
+            throw new IllegalArgumentException("Unknown column: " + name);
+        }
+    }
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+    private final long connectNanos;
+    private final long prepareNanos;
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder prepares = new LongAdder();
+    private final AtomicInteger openNow = new AtomicInteger();
+    private final AtomicInteger openMax = new AtomicInteger();
+    private volatile int generation; // bumped by restart(); older connections become invalid
+
+    // connectNanos / prepareNanos simulate the handshake and the prepare round trip of a real server.
+    EmbeddedDatabase(long connectNanos, long prepareNanos) {
+        this.connectNanos = connectNanos;
+        this.prepareNanos = prepareNanos;
+    }
+
+    static EmbeddedDatabase withUsers(int count) {
+        EmbeddedDatabase db = new EmbeddedDatabase(TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MICROSECONDS.toNanos(50));
+        db.createTable("users", "id", "name", "email");
+        for (long id = 0; id < count; id++) db.insert("users", id, "user-" + id, "user" + id + "@example.com");
+        return db;
+    }
+
+    void createTable(String name, String... columns) {
+        tables.put(name.toLowerCase(Locale.ROOT), new Table(columns));
+    }
+
+    void insert(String table, Object... row) {
+        Table t = table(table);
+        if (row.length != t.columns.length) throw new IllegalArgumentException("Expected " + t.columns.length + " values");
+        t.rows.put(row[0], row.clone());
+    }
+
+    // Simulates a server restart: every open connection is dropped.
+    void restart() {
+        generation++;
+    }
+
+    long connectsOpened() {
+        return connects.sum();
+    }
+
+    long statementsPrepared() {
+        return prepares.sum();
+    }
+
+    int maxConcurrentConnections() {
+        return openMax.get();
+    }
+
+    private Table table(String name) {
+        Table t = tables.get(name.toLowerCase(Locale.ROOT));
+        if (t == null) throw new IllegalArgumentException("Unknown table: " + name);
+        return t;
+    }
+
+    private static void pause(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        for (long left = nanos; left > 0; left = deadline - System.nanoTime()) LockSupport.parkNanos(left);
+    }
+
+    @Override
+    public DbConnection connect() {
+        pause(connectNanos);
+        connects.increment();
+        openMax.accumulateAndGet(openNow.incrementAndGet(), Math::max);
+        int gen = generation;
+        return new DbConnection() {
+            private boolean closed;
+
+            @Override
+            public DbStatement prepare(String sql) {
+                if (!isValid()) throw new IllegalStateException("Connection is closed");
+                pause(prepareNanos);
+                prepares.increment();
+                return compile(sql);
+            }
+
+            @Override
+            public boolean isValid() {
+                return !closed && gen == generation;
+            }
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    openNow.decrementAndGet();
+                }
+            }
+        };
+    }
+
+    private DbStatement compile(String sql) {
+        String[] tok = sql.trim().replace(",", " , ").split("\\s+");
+        String verb = tok[0].toUpperCase(Locale.ROOT);
+        if (verb.equals("SELECT")) {
+            int from = indexOf(tok, "FROM", sql);
+            Table t = table(tok[from + 1]);
+            List<Integer> projection = new ArrayList<>();
+            for (int i = 1; i < from; i++) {
+                if (!tok[i].equals(",")) projection.add(t.column(tok[i]));
+            }
+            int[] cols = projection.stream().mapToInt(Integer::intValue).toArray();
+            int where = t.column(tok[indexOf(tok, "WHERE", sql) + 1]);
+            return new DbStatement() {
+                @Override
+                public List<Object[]> query(Object... params) {
+                    List<Object[]> out = new ArrayList<>(1);
+                    for (Object[] row : find(t, where, params[0])) {
+                        Object[] r = new Object[cols.length];
+                        for (int i = 0; i < cols.length; i++) r[i] = row[cols[i]];
+                        out.add(r);
+                    }
+                    return out;
+                }
+
+                @Override
+                public int update(Object... params) {
+                    throw new UnsupportedOperationException("SELECT statement");
+                }
+            };
+        }
+        if (verb.equals("UPDATE")) {
+            Table t = table(tok[1]);
+            int set = t.column(tok[indexOf(tok, "SET", sql) + 1]);
+            if (set == 0) throw new IllegalArgumentException("Primary key cannot be updated: " + sql);
+            int where = t.column(tok[indexOf(tok, "WHERE", sql) + 1]);
+            return new DbStatement() {
+                @Override
+                public List<Object[]> query(Object... params) {
+                    throw new UnsupportedOperationException("UPDATE statement");
+                }
+
+                @Override
+                public int update(Object... params) {
+                    int n = 0;
+                    for (Object[] row : find(t, where, params[1])) {
+                        Object[] copy = row.clone(); // rows are replaced, never mutated in place
+                        copy[set] = params[0];
+                        t.rows.put(copy[0], copy);
+                        n++;
+                    }
+                    return n;
+                }
+            };
+        }
+        throw new IllegalArgumentException("Unsupported SQL: " + sql);
+    }
+
+    private static List<Object[]> find(Table t, int column, Object value) {
+        if (column == 0) {
+            Object[] row = t.rows.get(value);
+            return row == null ? List.of() : List.<Object[]>of(row);
+        }
+        List<Object[]> out = new ArrayList<>();
+        for (Object[] row : t.rows.values()) {
+            if (value.equals(row[column])) out.add(row);
+        }
+        return out;
+    }
+
+    private static int indexOf(String[] tok, String keyword, String sql) {
+        for (int i = 0; i < tok.length; i++) {
+            if (tok[i].equalsIgnoreCase(keyword)) return i;
+        }
+        throw new IllegalArgumentException("Missing " + keyword + ": " + sql);
+    }
+
+    @Override
+    public String toString() {
+        return "EmbeddedDatabase" + Arrays.toString(tables.keySet().toArray());
+    }
+}
@@ -0,0 +1,537 @@
+// 📣 Disruptor-style event bus (Observer pattern from DP.java, for high event rates)
+
+// DP.java → Observer: one-to-many dependency, notify observers on state change (stock price updates).
+// Classic async version: each observer has its own BlockingQueue + thread, publish() = new Event(...)
+// and queue.put() for every observer.
+//  ❌ one allocation per event (+ a queue node per observer for linked queues) → GC pressure.
+//  ❌ a lock / CAS per observer per event; N observers = N copies of every event reference.
+//  ❌ no ordering between observers ("update the dashboard only after risk has seen the tick").
+
+// ✅ EventBus (LMAX Disruptor design)
+//  Ring buffer of PREALLOCATED event objects (size = power of two) → publish = claim a slot,
+//    overwrite its fields, publish the sequence number. Zero allocation per event.
+//  Sequencer: producers claim sequence numbers (single producer: plain field; multi: one CAS)
+//    and never wrap past the slowest end-of-chain observer (gating sequences).
+//  Every observer thread has its own Sequence (= last event it handled, padded to its own
+//    cache line). Nothing is removed from the ring: observers just read, all of them share ONE copy.
+//  SequenceBarrier: an observer may read up to min(published, sequences it depends on)
+//    → subscribe(risk, journal).then(dashboard): dashboard never sees a tick before risk did.
+//  Batching: a barrier returns the HIGHEST available sequence → the observer handles the whole
+//    run of events and publishes its progress once (endOfBatch tells it when to flush).
+//  Waiting uses WaitStrategy.java, as MpmcRingQueue does (busySpin / yielding / parking / blocking).
+//  Cheap observers can share one thread: EventBus.group(list of observers).
+//  Failures: anything an observer throws (Error too) goes to the ExceptionHandler and the event
+//    is skipped. If the handler itself throws, the bus halts: observers stop, and a producer
+//    that waits for them gets an IllegalStateException instead of spinning forever.
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+final class EventBus<E> implements AutoCloseable {
+    enum ProducerType { SINGLE, MULTI }
+
+    interface EventHandler<E> {
+        void onEvent(E event, long sequence, boolean endOfBatch);
+    }
+
+    // Called on the observer's thread with whatever its handler threw; throwing from here halts the bus.
+    interface ExceptionHandler<E> {
+        void handleEventException(Throwable ex, long sequence, E event);
+    }
+
+    // ---------------------------------------------------------------- sequences
+
+    // Padding keeps each sequence on its own cache line (like MpmcRingQueue's head/tail).
+    abstract static class SequencePad {
+        long p00, p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    abstract static class SequenceValue extends SequencePad {
+        volatile long value = -1;
+    }
+
+    static final class Sequence extends SequenceValue {
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long p10, p11, p12, p13, p14, p15, p16, p17;
+
+        long get() {
+            return value;
+        }
+
+        // Store-release: everything written before is visible to whoever reads this value.
+        void set(long v) {
+            VALUE.setRelease(this, v);
+        }
+
+        boolean compareAndSet(long expect, long update) {
+            return VALUE.compareAndSet(this, expect, update);
+        }
+
+        static long min(Sequence[] sequences, long orElse) {
+            long min = orElse;
+            for (Sequence s : sequences) min = Math.min(min, s.get());
+            return min;
+        }
+    }
+
+    // Waits until the requested sequence is published AND every dependency has passed it.
+    final class SequenceBarrier {
+        private final Sequence[] dependencies; // empty = depends only on the producers
+        private volatile boolean alerted;
+
+        SequenceBarrier(Sequence[] dependencies) {
+            this.dependencies = dependencies;
+        }
+
+        // Highest sequence >= wanted that may be read, or wanted - 1 if the bus is shutting down.
+        long waitFor(long wanted) throws InterruptedException {
+            for (int attempt = 0; ; attempt++) {
+                long available = dependencies.length == 0 ? cursor.get() : Sequence.min(dependencies, Long.MAX_VALUE);
+                if (available >= wanted) return highestPublished(wanted, available);
+                if (alerted) return wanted - 1;
+                waitStrategy.idle(attempt);
+            }
+        }
+
+        void alert() {
+            alerted = true;
+        }
+    }
+
+    // One thread: waits on its barrier, hands every available event to the handler, then
+    // publishes its own sequence once per batch.
+    final class BatchEventProcessor implements Runnable {
+        final String name;
+        final Sequence sequence = new Sequence();
+        private final SequenceBarrier barrier;
+        private final EventHandler<? super E> handler;
+        private volatile boolean running = true;
+
+        BatchEventProcessor(String name, SequenceBarrier barrier, EventHandler<? super E> handler) {
+            this.name = name;
+            this.barrier = barrier;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            try {
+                while (running) {
+                    long available = barrier.waitFor(next);
+                    for (long s = next; s <= available; s++) {
+                        try {
+                            handler.onEvent(get(s), s, s == available);
+                        } catch (Throwable e) {
+                            exceptionHandler.handleEventException(e, s, get(s)); // skip it, keep going
+                        }
+                    }
+                    if (available >= next) {
+                        sequence.set(available);
+                        waitStrategy.signalAll(); // dependents / a producer may be waiting on us
+                        next = available + 1;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // halted
+            } catch (Throwable fatal) {
+                // the exception handler gave up: stop everything rather than leave the producer
+                // waiting on a sequence that will never move again
+                halt(new IllegalStateException(name + " stopped", fatal));
+            }
+        }
+    }
+
+    // A set of observers that run in parallel; then() adds observers that run after all of them.
+    final class Stage {
+        private final Sequence[] sequences;
+
+        Stage(Sequence[] sequences) {
+            this.sequences = sequences;
+        }
+
+        @SafeVarargs
+        @SuppressWarnings("varargs")
+        final Stage then(EventHandler<? super E>... handlers) {
+            return addStage(sequences, handlers);
+        }
+    }
+
+    // ---------------------------------------------------------------- bus
+
+    private final Object[] entries;
+    private final int mask;
+    private final int indexShift;
+    private final ProducerType producerType;
+    private final WaitStrategy waitStrategy;
+    private final Sequence cursor = new Sequence(); // SINGLE: highest published, MULTI: highest claimed
+    private final int[] available;                  // MULTI only: round number published per slot
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final List<BatchEventProcessor> processors = new ArrayList<>();
+    private final List<SequenceBarrier> barriers = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile Sequence[] gating = new Sequence[0]; // end-of-chain observers
+    private final Sequence gatingCache = new Sequence();  // MULTI: last known min(gating)
+    private long nextValue = -1;                          // SINGLE: owned by the producer thread
+    private long cachedGating = -1;                       // SINGLE: owned by the producer thread
+    private boolean started;
+    private volatile ExceptionHandler<? super E> exceptionHandler = (ex, sequence, event) -> {
+        Thread t = Thread.currentThread(); // default: report like an uncaught exception, keep going
+        t.getUncaughtExceptionHandler().uncaughtException(t, ex);
+    };
+    private volatile Throwable failure; // set once by halt()
+
+    EventBus(int size, Supplier<? extends E> factory, ProducerType producerType, WaitStrategy waitStrategy) {
+        if (size < 2 || Integer.bitCount(size) != 1) throw new IllegalArgumentException("size must be a power of two: " + size);
+        entries = new Object[size];
+        for (int i = 0; i < size; i++) entries[i] = Objects.requireNonNull(factory.get());
+        mask = size - 1;
+        indexShift = Integer.numberOfTrailingZeros(size);
+        this.producerType = producerType;
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+        available = producerType == ProducerType.MULTI ? new int[size] : null;
+        if (available != null) Arrays.fill(available, -1);
+    }
+
+    // Observers that only depend on the producers; each gets its own thread.
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    final Stage subscribe(EventHandler<? super E>... handlers) {
+        return addStage(new Sequence[0], handlers);
+    }
+
+    // Many cheap observers on ONE thread (called in list order for every event).
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <E> EventHandler<E> group(List<? extends EventHandler<? super E>> observers) {
+        EventHandler<? super E>[] hs = observers.toArray(new EventHandler[0]);
+        return (event, sequence, endOfBatch) -> {
+            for (EventHandler<? super E> h : hs) h.onEvent(event, sequence, endOfBatch);
+        };
+    }
+
+    private synchronized Stage addStage(Sequence[] dependsOn, EventHandler<? super E>[] handlers) {
+        if (started) throw new IllegalStateException("Subscribe before start()");
+        SequenceBarrier barrier = new SequenceBarrier(dependsOn);
+        barriers.add(barrier);
+        Sequence[] own = new Sequence[handlers.length];
+        for (int i = 0; i < handlers.length; i++) {
+            BatchEventProcessor p = new BatchEventProcessor("observer-" + processors.size(), barrier, handlers[i]);
+            processors.add(p);
+            own[i] = p.sequence;
+        }
+        // The producer only has to wait for the LAST observers of each chain.
+        List<Sequence> g = new ArrayList<>(Arrays.asList(gating));
+        g.removeAll(Arrays.asList(dependsOn));
+        g.addAll(Arrays.asList(own));
+        gating = g.toArray(new Sequence[0]);
+        return new Stage(own);
+    }
+
+    synchronized void setExceptionHandler(ExceptionHandler<? super E> handler) {
+        if (started) throw new IllegalStateException("Set the exception handler before start()");
+        exceptionHandler = Objects.requireNonNull(handler);
+    }
+
+    synchronized void start() {
+        if (started) throw new IllegalStateException("Already started");
+        started = true;
+        for (BatchEventProcessor p : processors) {
+            Thread t = new Thread(p, p.name);
+            t.setDaemon(true);
+            threads.add(t);
+            t.start();
+        }
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    long next() {
+        return next(1);
+    }
+
+    // Claims n slots and returns the highest claimed sequence; fill them with get(), then publish().
+    long next(int n) {
+        if (n < 1 || n > entries.length) throw new IllegalArgumentException("n out of range: " + n);
+        if (producerType == ProducerType.SINGLE) {
+            long next = nextValue + n;
+            long wrapPoint = next - entries.length;
+            if (wrapPoint > cachedGating) {
+                cachedGating = awaitGating(wrapPoint);
+            }
+            nextValue = next;
+            return next;
+        }
+        while (true) {
+            long current = cursor.get();
+            long next = current + n;
+            long wrapPoint = next - entries.length;
+            if (wrapPoint > gatingCache.get()) {
+                gatingCache.set(awaitGating(wrapPoint));
+                continue;
+            }
+            if (cursor.compareAndSet(current, next)) return next;
+        }
+    }
+
+    // Slowest end-of-chain observer must have passed wrapPoint before its slot is reused.
+    private long awaitGating(long wrapPoint) {
+        for (int attempt = 0; ; attempt++) {
+            long min = Sequence.min(gating, cursor.get());
+            if (wrapPoint <= min) return min;
+            if (failure != null) throw new IllegalStateException("Event bus halted", failure);
+            if (attempt < 100) Thread.onSpinWait();
+            else if (attempt < 200) Thread.yield();
+            else LockSupport.parkNanos(1_000);
+        }
+    }
+
+    void publish(long sequence) {
+        publish(sequence, sequence);
+    }
+
+    void publish(long lo, long hi) {
+        if (producerType == ProducerType.SINGLE) {
+            cursor.set(hi);
+        } else {
+            for (long s = lo; s <= hi; s++) AVAILABLE.setRelease(available, (int) s & mask, (int) (s >>> indexShift));
+        }
+        waitStrategy.signalAll();
+    }
+
+    <A> void publishEvent(BiConsumer<? super E, ? super A> translator, A arg) {
+        long s = next();
+        try {
+            translator.accept(get(s), arg);
+        } finally {
+            publish(s); // a claimed slot must always be published, or the observers stall
+        }
+    }
+
+    private long highestPublished(long lo, long hi) {
+        if (producerType == ProducerType.SINGLE) return hi;
+        for (long s = lo; s <= hi; s++) {
+            if ((int) AVAILABLE.getAcquire(available, (int) s & mask) != (int) (s >>> indexShift)) return s - 1;
+        }
+        return hi;
+    }
+
+    // An observer died: stop every observer and wake whoever waits on them.
+    private void halt(Throwable cause) {
+        if (failure == null) failure = cause;
+        for (BatchEventProcessor p : processors) p.running = false;
+        for (SequenceBarrier b : barriers) b.alert();
+        waitStrategy.signalAll();
+    }
+
+    // Lets the observers finish every published event, then stops their threads.
+    @Override
+    public synchronized void close() {
+        long last = cursor.get();
+        for (int i = 0; i < threads.size(); i++) {
+            for (int attempt = 0; processors.get(i).sequence.get() < last && threads.get(i).isAlive(); attempt++) {
+                if (attempt < 100) Thread.onSpinWait();
+                else LockSupport.parkNanos(100_000);
+            }
+        }
+        for (BatchEventProcessor p : processors) p.running = false;
+        for (SequenceBarrier b : barriers) b.alert();
+        waitStrategy.signalAll();
+        boolean interrupted = false;
+        for (Thread t : threads) {
+            t.interrupt(); // wakes parking / blocking strategies
+            while (t.isAlive()) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    // ---------------------------------------------------------------- demo
+
+    static final class Tick {
+        int symbol;
+        double price;
+        long volume;
+    }
+
+    static final class Risk implements EventHandler<Tick> {
+        final double[] lastPrice = new double[256];
+        long lastSeen = -1; // read by the dashboard; visible through the sequence barrier
+
+        @Override
+        public void onEvent(Tick t, long sequence, boolean endOfBatch) {
+            lastPrice[t.symbol] = t.price;
+            lastSeen = sequence;
+        }
+    }
+
+    static final class Checksum implements EventHandler<Tick> {
+        long sum, events;
+
+        @Override
+        public void onEvent(Tick t, long sequence, boolean endOfBatch) {
+            sum += t.volume;
+            events++;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int events = 20_000_000;
+
+        // 1. Ordering: dashboard runs after BOTH risk and journal
+        EventBus<Tick> bus = new EventBus<>(1 << 14, Tick::new, ProducerType.SINGLE, WaitStrategy.yielding());
+        Risk risk = new Risk();
+        Checksum journal = new Checksum(), dashboard = new Checksum();
+        long[] violations = {0};
+        bus.subscribe(risk, journal).then((t, seq, end) -> {
+            if (risk.lastSeen < seq) violations[0]++;
+            dashboard.onEvent(t, seq, end);
+        });
+        bus.start();
+        long expected = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            long s = bus.next();
+            Tick t = bus.get(s);
+            t.symbol = i & 255;
+            t.price = 100 + (i & 1023) * 0.01;
+            t.volume = i % 1000;
+            expected += t.volume;
+            bus.publish(s);
+        }
+        bus.close();
+        System.out.println("risk -> dashboard ordering violations: " + violations[0]
+                + ", journal/dashboard sums ok: " + (journal.sum == expected && dashboard.sum == expected));
+
+        // 2. Fan-out to 24 observers (2 threads x 12 observers), producer claims batches of 64
+        for (int round = 0; round < 2; round++) {
+            List<Checksum> observers = new ArrayList<>();
+            EventBus<Tick> fan = new EventBus<>(1 << 16, Tick::new, ProducerType.SINGLE, WaitStrategy.yielding());
+            for (int g = 0; g < 2; g++) {
+                List<Checksum> group = new ArrayList<>();
+                for (int i = 0; i < 12; i++) group.add(new Checksum());
+                observers.addAll(group);
+                fan.subscribe(EventBus.group(group));
+            }
+            fan.start();
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i += 64) {
+                long hi = fan.next(64), lo = hi - 63;
+                for (long s = lo; s <= hi; s++) {
+                    Tick t = fan.get(s);
+                    t.symbol = (int) s & 255;
+                    t.price = 100.0;
+                    t.volume = s & 7;
+                }
+                fan.publish(lo, hi);
+            }
+            fan.close();
+            double secs = (System.nanoTime() - start) / 1e9;
+            boolean ok = observers.stream().allMatch(c -> c.events == events);
+            if (round == 1) {
+                System.out.printf("event bus: %.1f M events/s to %d observers (%.0f M deliveries/s), all delivered: %b%n",
+                        events / secs / 1e6, observers.size(), events * 24L / secs / 1e6, ok);
+            }
+        }
+
+        // 3. Classic async Observer: one queue per observer thread, one new event per publish
+        int classicEvents = 1_000_000;
+        List<BlockingQueue<Tick>> queues = new ArrayList<>();
+        List<Thread> consumers = new ArrayList<>();
+        for (int g = 0; g < 2; g++) {
+            BlockingQueue<Tick> q = new ArrayBlockingQueue<>(1 << 16);
+            queues.add(q);
+            Thread c = new Thread(() -> {
+                Checksum[] group = new Checksum[12];
+                for (int i = 0; i < group.length; i++) group[i] = new Checksum();
+                try {
+                    for (int n = 0; n < classicEvents; n++) {
+                        Tick t = q.take();
+                        for (Checksum obs : group) obs.onEvent(t, n, false);
+                    }
+                } catch (InterruptedException e) {
+                    // stop
+                }
+            });
+            consumers.add(c);
+            c.start();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < classicEvents; i++) {
+            Tick t = new Tick();
+            t.symbol = i & 255;
+            t.price = 100.0;
+            t.volume = i & 7;
+            for (BlockingQueue<Tick> q : queues) q.put(t);
+        }
+        for (Thread c : consumers) c.join();
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("queue per observer thread: %.1f M events/s%n", classicEvents / secs / 1e6);
+
+        // 4. Two producers (MULTI): every event arrives exactly once
+        EventBus<Tick> multi = new EventBus<>(1 << 12, Tick::new, ProducerType.MULTI, WaitStrategy.yielding());
+        Checksum all = new Checksum();
+        multi.subscribe(all);
+        multi.start();
+        Thread[] producers = new Thread[2];
+        for (int p = 0; p < producers.length; p++) {
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < 500_000; i++) {
+                    multi.publishEvent((t, v) -> t.volume = v, 1L);
+                }
+            });
+            producers[p].start();
+        }
+        for (Thread p : producers) p.join();
+        multi.close();
+        System.out.println("multi-producer: " + all.events + " events, volume sum " + all.sum);  // 1000000, 1000000
+
+        // 5. Failing observer: each failure goes to the ExceptionHandler; when the handler gives up,
+        //    the bus halts and the producer gets an exception instead of waiting forever
+        EventBus<Tick> faulty = new EventBus<>(8, Tick::new, ProducerType.SINGLE, WaitStrategy.yielding());
+        long[] handled = {0};
+        faulty.setExceptionHandler((ex, seq, t) -> {
+            if (++handled[0] == 3) throw new IllegalStateException("giving up after " + ex);
+        });
+        faulty.subscribe((t, seq, end) -> {
+            throw new AssertionError("bad event " + seq);
+        });
+        faulty.start();
+        try {
+            for (int i = 0; i < 100; i++) faulty.publishEvent((t, v) -> t.volume = v, 1L);
+        } catch (IllegalStateException e) {
+            System.out.println("producer: " + e.getMessage() + " (" + e.getCause().getMessage() + ") after "
+                    + handled[0] + " handled failures"); // Event bus halted (observer-0 stopped) after 3 ...
+        }
+        faulty.close();
+    }
+}
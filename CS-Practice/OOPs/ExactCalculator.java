@@ -0,0 +1,181 @@
+// ➕ Exact arithmetic (fixing the two silent bugs in Calculator from Polymorphism.java)
+
+// Calculator.add(int, int)       → Integer.MAX_VALUE + 1 = -2147483648   (silent overflow ❌)
+// Calculator.add(double, double) → 0.1 + 0.2 = 0.30000000000000004       (binary rounding ❌)
+
+// ✅ ExactCalculator
+//  int + int          → computed in long, can never overflow.
+//  long + long        → add(a, b, sum): the result stays a primitive long inside a reusable
+//                       ExactSum and moves to BigDecimal only if it overflows → no allocation
+//                       in the common case. add(a, b) = Math.addExact, for callers that need a long.
+//  double + double    → decimal sum of the printed values (0.1 + 0.2 = 0.3): both values are
+//                       scaled to the same power of ten, added as longs, scaled back → no allocation.
+//                       BigDecimal only for values with more than 15 significant digits.
+
+// ✅ ExactSum (accumulator for hot loops)
+//  Keeps the running total in a primitive long.
+//  Overflow check = sign trick from Math.addExact: ((a ^ r) & (b ^ r)) < 0.
+//  Only on overflow the long part is spilled into a BigDecimal → common case allocates nothing.
+//  Amounts with decimals are added as scaled longs (e.g. paise/cents with scale 2).
+//  add(BigDecimal) stays on the long path too when the value fits as a scaled long.
+
+import java.math.BigDecimal;
+
+final class ExactSum {
+    private final int scale;
+    private long small;
+    private BigDecimal big; // null until the sum no longer fits the long part
+
+    ExactSum(int scale) {
+        this.scale = scale;
+    }
+
+    ExactSum() {
+        this(0);
+    }
+
+    // Adds an unscaled value, e.g. 1999 with scale 2 means 19.99
+    ExactSum add(long unscaled) {
+        long r = small + unscaled;
+        if (((small ^ r) & (unscaled ^ r)) < 0) {
+            spill();
+            r = unscaled;
+        }
+        small = r;
+        return this;
+    }
+
+    ExactSum add(BigDecimal value) {
+        BigDecimal unscaled = value.movePointRight(scale);
+        if (fitsLong(unscaled)) {
+            return add(unscaled.longValue());
+        }
+        big = big == null ? unscaled : big.add(unscaled); // too big, or more decimals than scale
+        return this;
+    }
+
+    private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private static boolean fitsLong(BigDecimal v) {
+        return (v.scale() <= 0 || v.stripTrailingZeros().scale() <= 0)
+                && v.compareTo(LONG_MIN) >= 0 && v.compareTo(LONG_MAX) <= 0;
+    }
+
+    private void spill() {
+        BigDecimal s = BigDecimal.valueOf(small);
+        big = big == null ? s : big.add(s);
+        small = 0;
+    }
+
+    // True once part of the sum lives in the BigDecimal (long overflow, or more decimals than scale).
+    boolean overflowed() {
+        return big != null;
+    }
+
+    // Fast read, only valid while !overflowed()
+    long unscaledLong() {
+        if (big != null) {
+            throw new ArithmeticException("Sum no longer fits in a long: " + value());
+        }
+        return small;
+    }
+
+    BigDecimal value() {
+        BigDecimal v = BigDecimal.valueOf(small);
+        if (big != null) {
+            v = v.add(big);
+        }
+        return v.movePointLeft(scale);
+    }
+
+    void reset() {
+        small = 0;
+        big = null;
+    }
+
+    @Override
+    public String toString() {
+        return value().toPlainString();
+    }
+}
+
+class ExactCalculator {
+    long add(int a, int b) {
+        return (long) a + b;
+    }
+
+    long add(int a, int b, int c) {
+        return (long) a + b + c;
+    }
+
+    // Overflow-safe: a + b stays a primitive long in sum (cleared first) and spills to BigDecimal
+    // only when it does not fit. Reuse one ExactSum per thread → nothing allocated in the common case.
+    ExactSum add(long a, long b, ExactSum sum) {
+        sum.reset();
+        return sum.add(a).add(b);
+    }
+
+    // Same contract as Math.addExact: exact long result, ArithmeticException if it does not fit.
+    long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    // 10^0 .. 10^9, all exact doubles
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+    // Below 10^15 at most one decimal with s fraction digits rounds to a given double, and the
+    // sum of two such longs is exact in a double (< 2^53).
+    private static final double MAX_SCALED = 1e15;
+
+    // Decimal sum of the values as written (0.1 + 0.2 = 0.3), rounded once to the nearest double.
+    double add(double a, double b) {
+        if (!Double.isFinite(a) || !Double.isFinite(b)) return a + b;
+        for (double p : POW10) {
+            double sa = a * p, sb = b * p;
+            if (Math.abs(sa) >= MAX_SCALED || Math.abs(sb) >= MAX_SCALED) break;
+            long la = Math.round(sa), lb = Math.round(sb);
+            if (la / p == a && lb / p == b) {
+                return (la + lb) / p; // la/p and lb/p are the decimals that print as a and b
+            }
+        }
+        return BigDecimal.valueOf(a).add(BigDecimal.valueOf(b)).doubleValue(); // > 15 digits
+    }
+
+    public static void main(String[] args) {
+        ExactCalculator c = new ExactCalculator();
+        System.out.println(c.add(Integer.MAX_VALUE, 1));         // 2147483648
+        ExactSum sum = new ExactSum();
+        System.out.println(c.add(1L << 40, 1L, sum) + " overflowed=" + sum.overflowed());       // 1099511627777 overflowed=false
+        System.out.println(c.add(Long.MAX_VALUE, 1L, sum) + " overflowed=" + sum.overflowed()); // 9223372036854775808 overflowed=true
+        System.out.println(c.add(0.1, 0.2));                     // 0.3
+
+        ExactSum rupees = new ExactSum(2);
+        rupees.add(1999).add(1);                                 // 19.99 + 0.01
+        System.out.println(rupees + " overflowed=" + rupees.overflowed()); // 20.00 overflowed=false
+        rupees.add(new BigDecimal("0.50"));                      // fits as 50 paise → stays a long
+        System.out.println(rupees + " overflowed=" + rupees.overflowed()); // 20.50 overflowed=false
+        rupees.add(Long.MAX_VALUE);
+        System.out.println(rupees + " overflowed=" + rupees.overflowed());
+
+        // Mini benchmark: raw long vs ExactSum vs BigDecimal
+        long[] data = new long[1 << 16];
+        for (int i = 0; i < data.length; i++) data[i] = (i * 2654435761L) & 0xFFFFF;
+        int rounds = 2_000;
+        for (int warm = 0; warm < 3; warm++) {
+            long t0 = System.nanoTime();
+            long raw = 0;
+            for (int r = 0; r < rounds; r++) for (long v : data) raw += v;
+            long t1 = System.nanoTime();
+            ExactSum exact = new ExactSum();
+            for (int r = 0; r < rounds; r++) for (long v : data) exact.add(v);
+            long t2 = System.nanoTime();
+            BigDecimal bd = BigDecimal.ZERO;
+            for (int r = 0; r < rounds / 20; r++) for (long v : data) bd = bd.add(BigDecimal.valueOf(v));
+            long t3 = System.nanoTime();
+            double ops = (double) rounds * data.length;
+            System.out.printf("raw %.0f M/s | ExactSum %.0f M/s | BigDecimal %.0f M/s (check %b)%n",
+                    ops / (t1 - t0) * 1e3, ops / (t2 - t1) * 1e3, ops / 20 / (t3 - t2) * 1e3,
+                    raw == exact.unscaledLong());
+        }
+    }
+}
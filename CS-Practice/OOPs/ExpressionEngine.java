@@ -0,0 +1,397 @@
+// 🧮 Expression Engine (Interpreter pattern from DP.java, but compiled)
+
+// Calculator in Polymorphism.java only knows fixed add(...) overloads.
+// Pricing formulas like "price * qty * (1 - discount) + fee" need a small language → Interpreter pattern.
+
+// ❌ Naive interpreter: re-parse / walk the string on every evaluation.
+// ✅ Here: parse ONCE → compile into a tree of small specialized lambdas → evaluate many times.
+
+// Compile steps:
+// 1. Parser builds the tree (recursive descent, normal precedence: unary -, ^, * / %, + -).
+// 2. Variables are resolved to slots → evaluation reads double[] (no map lookup).
+// 3. Constant sub-trees are folded ("2 * 3 + x" → "6 + x").
+// 4. Common shapes get their own lambda (var op const, var op var) → fewer virtual calls.
+
+// Compiled formulas are cached by expression text in a bounded LRU map
+// (LinkedHashMap with access-order flag, see CollectionsInJava.java).
+
+// Grammar:
+// expr    = term (('+' | '-') term)*
+// term    = power (('*' | '/' | '%') power)*
+// power   = unary ('^' power)?
+// unary   = '-' unary | primary
+// primary = number | name | name '(' expr (',' expr)* ')' | '(' expr ')'
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@FunctionalInterface
+interface Expr {
+    double eval(double[] vars);
+}
+
+final class Formula {
+    private final String source;
+    private final String[] variables;
+    private final Expr root;
+
+    Formula(String source, String[] variables, Expr root) {
+        this.source = source;
+        this.variables = variables;
+        this.root = root;
+    }
+
+    // Values must be given in the order of variables().
+    double evaluate(double... values) {
+        if (values.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " values for "
+                    + Arrays.toString(variables) + " but got " + values.length);
+        }
+        return root.eval(values);
+    }
+
+    double evaluate(Map<String, Double> values) {
+        double[] v = new double[variables.length];
+        for (int i = 0; i < v.length; i++) {
+            Double d = values.get(variables[i]);
+            if (d == null) {
+                throw new IllegalArgumentException("No value for variable '" + variables[i] + "'");
+            }
+            v[i] = d;
+        }
+        return root.eval(v);
+    }
+
+    List<String> variables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    @Override
+    public String toString() {
+        return "Formula{" + source + ", vars=" + Arrays.toString(variables) + "}";
+    }
+}
+
+class ExpressionEngine {
+    private final Map<String, Formula> cache;
+
+    ExpressionEngine(int maxCached) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Formula> eldest) {
+                return size() > maxCached;
+            }
+        };
+    }
+
+    ExpressionEngine() {
+        this(1024);
+    }
+
+    Formula compile(String expression) {
+        synchronized (cache) {
+            Formula f = cache.get(expression);
+            if (f != null) {
+                return f;
+            }
+        }
+        Formula f = new Parser(expression).parse();
+        synchronized (cache) {
+            cache.putIfAbsent(expression, f);
+        }
+        return f;
+    }
+
+    int cachedCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    // ---------------------------------------------------------------- parser
+
+    private static final class Parser {
+        private final String src;
+        private final List<String> vars = new ArrayList<>();
+        private int pos;
+
+        Parser(String src) {
+            this.src = src;
+        }
+
+        Formula parse() {
+            Node n = expr();
+            skipSpaces();
+            if (pos < src.length()) {
+                throw error("Unexpected '" + src.charAt(pos) + "'");
+            }
+            return new Formula(src, vars.toArray(new String[0]), n.compile());
+        }
+
+        private Node expr() {
+            Node left = term();
+            while (true) {
+                if (eat('+')) left = Node.binary('+', left, term());
+                else if (eat('-')) left = Node.binary('-', left, term());
+                else return left;
+            }
+        }
+
+        private Node term() {
+            Node left = power();
+            while (true) {
+                if (eat('*')) left = Node.binary('*', left, power());
+                else if (eat('/')) left = Node.binary('/', left, power());
+                else if (eat('%')) left = Node.binary('%', left, power());
+                else return left;
+            }
+        }
+
+        private Node power() {
+            Node base = unary();
+            return eat('^') ? Node.binary('^', base, power()) : base;
+        }
+
+        private Node unary() {
+            return eat('-') ? Node.negate(unary()) : primary();
+        }
+
+        private Node primary() {
+            skipSpaces();
+            if (eat('(')) {
+                Node n = expr();
+                expect(')');
+                return n;
+            }
+            int start = pos;
+            if (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) {
+                while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) pos++;
+                try {
+                    return Node.constant(Double.parseDouble(src.substring(start, pos)));
+                } catch (NumberFormatException e) {
+                    throw error("Bad number '" + src.substring(start, pos) + "'");
+                }
+            }
+            if (pos < src.length() && Character.isJavaIdentifierStart(src.charAt(pos))) {
+                while (pos < src.length() && Character.isJavaIdentifierPart(src.charAt(pos))) pos++;
+                String name = src.substring(start, pos);
+                if (eat('(')) {
+                    List<Node> args = new ArrayList<>();
+                    do {
+                        args.add(expr());
+                    } while (eat(','));
+                    expect(')');
+                    return Node.function(name, args, this);
+                }
+                int slot = vars.indexOf(name);
+                if (slot < 0) {
+                    slot = vars.size();
+                    vars.add(name);
+                }
+                return Node.variable(slot);
+            }
+            throw error(pos < src.length() ? "Unexpected '" + src.charAt(pos) + "'" : "Unexpected end");
+        }
+
+        private boolean eat(char c) {
+            skipSpaces();
+            if (pos < src.length() && src.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!eat(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private void skipSpaces() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+        }
+
+        IllegalArgumentException error(String msg) {
+            return new IllegalArgumentException(msg + " at position " + pos + " in \"" + src + "\"");
+        }
+    }
+
+    // ---------------------------------------------------------------- tree + compiler
+
+    private abstract static class Node {
+        abstract Expr compile();
+
+        boolean isConstant() { return false; }
+        double value() { throw new IllegalStateException(); }
+        int slot() { return -1; }
+
+        static Node constant(double v) {
+            return new Node() {
+                Expr compile() { return vars -> v; }
+                boolean isConstant() { return true; }
+                double value() { return v; }
+            };
+        }
+
+        static Node variable(int slot) {
+            return new Node() {
+                Expr compile() { return vars -> vars[slot]; }
+                int slot() { return slot; }
+            };
+        }
+
+        static Node negate(Node inner) {
+            if (inner.isConstant()) {
+                return constant(-inner.value());
+            }
+            return new Node() {
+                Expr compile() {
+                    Expr e = inner.compile();
+                    return vars -> -e.eval(vars);
+                }
+            };
+        }
+
+        static Node binary(char op, Node l, Node r) {
+            if (l.isConstant() && r.isConstant()) {
+                return constant(apply(op, l.value(), r.value()));
+            }
+            return new Node() {
+                Expr compile() { return compileBinary(op, l, r); }
+            };
+        }
+
+        static Node function(String name, List<Node> args, Parser p) {
+            Node[] a = args.toArray(new Node[0]);
+            int arity;
+            switch (name) {
+                case "abs": case "sqrt": case "round": case "floor": case "ceil": arity = 1; break;
+                case "min": case "max": case "pow": arity = 2; break;
+                default: throw p.error("Unknown function '" + name + "'");
+            }
+            if (a.length != arity) {
+                throw p.error(name + " takes " + arity + " argument(s)");
+            }
+            if (arity == 2) {
+                char op = name.equals("min") ? 'm' : name.equals("max") ? 'M' : '^';
+                return binary(op, a[0], a[1]);
+            }
+            Node arg = a[0];
+            if (arg.isConstant()) {
+                return constant(unary(name, arg.value()));
+            }
+            return new Node() {
+                Expr compile() {
+                    Expr e = arg.compile();
+                    switch (name) {
+                        case "abs": return vars -> Math.abs(e.eval(vars));
+                        case "sqrt": return vars -> Math.sqrt(e.eval(vars));
+                        case "round": return vars -> Math.rint(e.eval(vars));
+                        case "floor": return vars -> Math.floor(e.eval(vars));
+                        default: return vars -> Math.ceil(e.eval(vars));
+                    }
+                }
+            };
+        }
+
+        static double unary(String name, double v) {
+            switch (name) {
+                case "abs": return Math.abs(v);
+                case "sqrt": return Math.sqrt(v);
+                case "round": return Math.rint(v);
+                case "floor": return Math.floor(v);
+                default: return Math.ceil(v);
+            }
+        }
+
+        static double apply(char op, double a, double b) {
+            switch (op) {
+                case '+': return a + b;
+                case '-': return a - b;
+                case '*': return a * b;
+                case '/': return a / b;
+                case '%': return a % b;
+                case 'm': return Math.min(a, b);
+                case 'M': return Math.max(a, b);
+                default: return Math.pow(a, b);
+            }
+        }
+
+        // One lambda per (operator, operand shape) so the hot shapes skip a level of calls.
+        static Expr compileBinary(char op, Node l, Node r) {
+            int ls = l.slot(), rs = r.slot();
+            if (ls >= 0 && r.isConstant()) {
+                double c = r.value();
+                switch (op) {
+                    case '+': return v -> v[ls] + c;
+                    case '-': return v -> v[ls] - c;
+                    case '*': return v -> v[ls] * c;
+                    case '/': return v -> v[ls] / c;
+                    default: break;
+                }
+            }
+            if (l.isConstant() && rs >= 0) {
+                double c = l.value();
+                switch (op) {
+                    case '+': return v -> c + v[rs];
+                    case '-': return v -> c - v[rs];
+                    case '*': return v -> c * v[rs];
+                    case '/': return v -> c / v[rs];
+                    default: break;
+                }
+            }
+            if (ls >= 0 && rs >= 0) {
+                switch (op) {
+                    case '+': return v -> v[ls] + v[rs];
+                    case '-': return v -> v[ls] - v[rs];
+                    case '*': return v -> v[ls] * v[rs];
+                    case '/': return v -> v[ls] / v[rs];
+                    default: break;
+                }
+            }
+            Expr a = l.compile(), b = r.compile();
+            switch (op) {
+                case '+': return v -> a.eval(v) + b.eval(v);
+                case '-': return v -> a.eval(v) - b.eval(v);
+                case '*': return v -> a.eval(v) * b.eval(v);
+                case '/': return v -> a.eval(v) / b.eval(v);
+                case '%': return v -> a.eval(v) % b.eval(v);
+                case 'm': return v -> Math.min(a.eval(v), b.eval(v));
+                case 'M': return v -> Math.max(a.eval(v), b.eval(v));
+                default: return v -> Math.pow(a.eval(v), b.eval(v));
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        ExpressionEngine engine = new ExpressionEngine(256);
+
+        Formula price = engine.compile("price * qty * (1 - discount) + fee");
+        System.out.println(price);                                  // vars=[price, qty, discount, fee]
+        System.out.println(price.evaluate(250.0, 4, 0.1, 2.5));     // 902.5
+        System.out.println(engine.compile("2 * 3 + max(x, 10)").evaluate(4)); // 16.0
+        System.out.println(engine.compile("price * qty * (1 - discount) + fee") == price); // true (cached)
+
+        try {
+            engine.compile("price * (qty + ");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+
+        double[] v = {250.0, 4, 0.1, 2.5};
+        double sink = 0;
+        int n = 50_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            v[1] = i & 7;
+            sink += price.evaluate(v);
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%.1f M evals/s (sink=%.1f)%n", n / secs / 1e6, sink);
+    }
+}
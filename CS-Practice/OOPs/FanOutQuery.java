@@ -0,0 +1,401 @@
+// 🌿 Fan-out queries across several Database backends (structured concurrency)
+
+// SoildPrinciples.java → MySQLDatabase and MongoDatabase both implement Database.
+// A profile page needs the user row (MySQL) AND the user's orders (Mongo):
+//   User u = mysql...query(); List<Order> o = mongo...query();
+//  ❌ sequential → latency = mysql + mongo.
+//  ❌ executor.submit() by hand → if mongo fails, the mysql call keeps running (wasted work),
+//     if the caller returns early, tasks outlive it (leaked threads), no common deadline.
+
+// ✅ FanOutQuery = a scope, like StructuredTaskScope.ShutdownOnFailure:
+//    try (FanOutQuery scope = new FanOutQuery(100)) {      // overall deadline 100 ms
+//        Subtask<User> user = scope.fork("mysql", () -> ...);
+//        Subtask<List<Object[]>> orders = scope.fork("mongo", 50, () -> ...);   // own deadline
+//        scope.join().throwIfFailed();
+//        merge(user.get(), orders.get());
+//    }                                                     // close() waits for every task
+//  All forks run in parallel → latency = max(backends), not the sum.
+//  First failure (or a missed deadline) → every sibling is cancelled (interrupted) right away.
+//  No subtask outlives the try block.
+//
+//  Java 21 has this built in (StructuredTaskScope + virtual threads). On 17 the scope is
+//  implemented here; tasks run on virtual threads if the JDK has them (looked up by reflection),
+//  otherwise on a cached pool of daemon platform threads.
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+final class FanOutQuery implements AutoCloseable {
+    static final ExecutorService EXECUTOR = newExecutor();
+
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "fan-out");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    static boolean usesVirtualThreads() {
+        return !(EXECUTOR instanceof ThreadPoolExecutor);
+    }
+
+    static final class DeadlineExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        DeadlineExceededException(String name, long timeoutMillis) {
+            super(name + " missed its " + timeoutMillis + " ms deadline");
+        }
+    }
+
+    enum State { RUNNING, SUCCESS, FAILED, CANCELLED }
+
+    static final class Subtask<T> {
+        final String name;
+        private final long timeoutMillis;
+        private final long deadlineNanos;
+        private Future<?> future;
+        private State state = State.RUNNING; // guarded by this
+        private T result;
+        private Throwable failure;
+
+        Subtask(String name, long timeoutMillis, long deadlineNanos) {
+            this.name = name;
+            this.timeoutMillis = timeoutMillis;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        // Only valid after join() when the subtask succeeded.
+        synchronized T get() {
+            if (state != State.SUCCESS) throw new IllegalStateException(name + " is " + state);
+            return result;
+        }
+
+        synchronized Throwable exception() {
+            return failure;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Thread owner = Thread.currentThread();
+    private final long timeoutMillis;
+    private final long deadlineNanos;
+    private final List<Subtask<?>> subtasks = new ArrayList<>();
+    private Subtask<?> firstFailure;
+    private int unfinishedThreads; // tasks whose thread has not returned yet (cancelled ones too)
+    private boolean shutdown;
+
+    FanOutQuery(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    <T> Subtask<T> fork(String name, Supplier<? extends T> task) {
+        return fork(name, timeoutMillis, task);
+    }
+
+    // Starts task now; it must finish within timeoutMillis (and within the scope deadline).
+    <T> Subtask<T> fork(String name, long timeoutMillis, Supplier<? extends T> task) {
+        checkOwner();
+        long deadline = Math.min(deadlineNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        Subtask<T> sub = new Subtask<>(name, Math.min(timeoutMillis, this.timeoutMillis), deadline);
+        lock.lock();
+        try {
+            if (shutdown) {
+                sub.state = State.CANCELLED;
+                return sub;
+            }
+            subtasks.add(sub);
+            unfinishedThreads++;
+            sub.future = EXECUTOR.submit(() -> {
+                try {
+                    T value = task.get();
+                    finish(sub, value, null);
+                } catch (Throwable t) {
+                    finish(sub, null, t);
+                } finally {
+                    threadDone();
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        return sub;
+    }
+
+    // Waits until every subtask succeeded, one failed, or a deadline passed.
+    FanOutQuery join() throws InterruptedException {
+        checkOwner();
+        lock.lock();
+        try {
+            while (!shutdown) {
+                Subtask<?> next = null;
+                for (Subtask<?> s : subtasks) {
+                    if (s.state() == State.RUNNING && (next == null || s.deadlineNanos < next.deadlineNanos)) next = s;
+                }
+                if (next == null) break; // all succeeded
+                long wait = next.deadlineNanos - System.nanoTime();
+                if (wait <= 0) {
+                    fail(next, new DeadlineExceededException(next.name, next.timeoutMillis));
+                    next.future.cancel(true); // shutdown() only cancels the ones still RUNNING
+                } else {
+                    changed.awaitNanos(wait);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    // Rethrows the first failure; call after join().
+    void throwIfFailed() {
+        lock.lock();
+        try {
+            if (firstFailure != null) {
+                Throwable cause = firstFailure.exception();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new IllegalStateException(firstFailure.name + " failed", cause);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Cancels whatever still runs and waits until no subtask thread is left.
+    @Override
+    public void close() {
+        checkOwner();
+        lock.lock();
+        try {
+            shutdown();
+            boolean interrupted = false;
+            while (unfinishedThreads > 0) {
+                try {
+                    changed.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> void finish(Subtask<T> sub, T value, Throwable t) {
+        lock.lock();
+        try {
+            synchronized (sub) {
+                if (sub.state != State.RUNNING) return; // already timed out or cancelled
+                if (t == null) {
+                    sub.result = value;
+                    sub.state = State.SUCCESS;
+                }
+            }
+            if (t != null) fail(sub, t);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fail(Subtask<?> sub, Throwable t) { // lock held
+        synchronized (sub) {
+            sub.failure = t;
+            sub.state = State.FAILED;
+        }
+        if (firstFailure == null) firstFailure = sub;
+        shutdown();
+    }
+
+    private void shutdown() { // lock held
+        if (shutdown) return;
+        shutdown = true;
+        for (Subtask<?> s : subtasks) {
+            synchronized (s) {
+                if (s.state != State.RUNNING) continue;
+                s.state = State.CANCELLED;
+            }
+            s.future.cancel(true); // interrupts the running backend call
+        }
+        changed.signalAll();
+    }
+
+    private void threadDone() {
+        lock.lock();
+        try {
+            unfinishedThreads--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkOwner() {
+        if (Thread.currentThread() != owner) throw new IllegalStateException("Scope used outside its owner thread");
+    }
+
+    // ---------------------------------------------------------------- demo
+
+    static final class Profile {
+        final User user;
+        final List<Object[]> orders;
+
+        Profile(User user, List<Object[]> orders) {
+            this.user = user;
+            this.orders = orders;
+        }
+
+        @Override
+        public String toString() {
+            return user + " with " + orders.size() + " orders";
+        }
+    }
+
+    static final String ORDERS_BY_USER = "SELECT id, total FROM orders WHERE userId = ?";
+
+    static Profile sequential(UserService users, Database orders, long id) {
+        User u = users.getUser(id);
+        try (DbConnection c = orders.connect()) {
+            return new Profile(u, c.prepare(ORDERS_BY_USER).query(id));
+        }
+    }
+
+    static Profile fanOut(UserService users, Database orders, long id, long timeoutMillis, long ordersTimeoutMillis)
+            throws InterruptedException {
+        try (FanOutQuery scope = new FanOutQuery(timeoutMillis)) {
+            Subtask<User> user = scope.fork("mysql.users", () -> users.getUser(id));
+            Subtask<List<Object[]>> list = scope.fork("mongo.orders", ordersTimeoutMillis, () -> {
+                try (DbConnection c = orders.connect()) {
+                    return c.prepare(ORDERS_BY_USER).query(id);
+                }
+            });
+            scope.join().throwIfFailed();
+            return new Profile(user.get(), list.get());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("virtual threads: " + usesVirtualThreads());
+        LatencyDatabase mysql = new LatencyDatabase(EmbeddedDatabase.withUsers(1_000), 30);
+        EmbeddedDatabase mongoData = new EmbeddedDatabase(0, 0);
+        mongoData.createTable("orders", "id", "userId", "total");
+        for (long i = 0; i < 5_000; i++) mongoData.insert("orders", i, i % 1_000, 10 + i % 90);
+        LatencyDatabase mongo = new LatencyDatabase(mongoData, 40);
+        UserService users = new UserService(mysql);
+
+        for (int round = 0; round < 2; round++) {
+            long t0 = System.nanoTime();
+            Profile a = sequential(users, mongo, 7);
+            long t1 = System.nanoTime();
+            Profile b = fanOut(users, mongo, 7, 500, 500);
+            long t2 = System.nanoTime();
+            if (round == 1) {
+                System.out.printf("sequential %d ms: %s%n", (t1 - t0) / 1_000_000, a);     // ~70 ms
+                System.out.printf("fan-out    %d ms: %s%n", (t2 - t1) / 1_000_000, b);     // ~40 ms
+            }
+        }
+
+        // Mongo fails fast → the MySQL call is cancelled instead of running to the end
+        mysql.latencyMillis = 300;
+        mongo.failNext = true;
+        long t0 = System.nanoTime();
+        try {
+            fanOut(users, mongo, 7, 1_000, 1_000);
+        } catch (IllegalStateException e) {
+            System.out.printf("failure after %d ms: %s (mysql cancelled: %d)%n",
+                    (System.nanoTime() - t0) / 1_000_000, e.getMessage(), mysql.cancelled);
+        }
+
+        // Mongo too slow for its own 50 ms deadline → fails at ~50 ms, siblings cancelled
+        mysql.latencyMillis = 30;
+        mongo.latencyMillis = 300;
+        t0 = System.nanoTime();
+        try {
+            fanOut(users, mongo, 7, 1_000, 50);
+        } catch (DeadlineExceededException e) {
+            System.out.printf("deadline after %d ms: %s%n", (System.nanoTime() - t0) / 1_000_000, e.getMessage());
+        }
+    }
+}
+
+// Adds a per-query delay (network + server time) to any Database; the delay stops on interrupt.
+final class LatencyDatabase implements Database {
+    private final Database target;
+    volatile long latencyMillis;
+    volatile boolean failNext;
+    volatile int cancelled;
+
+    LatencyDatabase(Database target, long latencyMillis) {
+        this.target = target;
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public DbConnection connect() {
+        DbConnection c = target.connect();
+        return new DbConnection() {
+            @Override
+            public DbStatement prepare(String sql) {
+                DbStatement st = c.prepare(sql);
+                return new DbStatement() {
+                    @Override
+                    public List<Object[]> query(Object... params) {
+                        roundTrip();
+                        return st.query(params);
+                    }
+
+                    @Override
+                    public int update(Object... params) {
+                        roundTrip();
+                        return st.update(params);
+                    }
+                };
+            }
+
+            @Override
+            public boolean isValid() {
+                return c.isValid();
+            }
+
+            @Override
+            public void close() {
+                c.close();
+            }
+        };
+    }
+
+    private void roundTrip() {
+        if (failNext) {
+            failNext = false;
+            throw new IllegalStateException("connection reset by peer");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        for (long left; (left = deadline - System.nanoTime()) > 0; ) {
+            LockSupport.parkNanos(left);
+            if (Thread.interrupted()) {
+                cancelled++;
+                throw new IllegalStateException("query cancelled");
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+// 🪶 Flyweight / Interning factory (pattern 11 in DP.java)
+
+// new Patterns<>(12) or new Box<>(100) always creates a fresh wrapper,
+// even when the same immutable value shows up millions of times.
+
+// 👉 Flyweight = share ONE canonical wrapper per distinct value.
+// 👉 Interner = the factory that keeps the table value → canonical wrapper.
+
+// Two tables (base class + stats in Interner.java):
+// 1. WeakInterner    → entries disappear once nobody uses the wrapper (WeakInterner.java: ConcurrentHashMap
+//                      of WeakReferences, cleared ones purged via a ReferenceQueue). Lock-free hits.
+//                      Good when the set of distinct values changes over time.
+// 2. BoundedInterner → ConcurrentHashMap, lock-free reads, stops admitting new values after maxEntries.
+//                      No eviction: once full it stays full, and values seen later are never shared.
+//                      Good for a small, hot set of values (status codes, currencies...) that shows up first.
+
+// 💡 Opt-in: constructors still work. Only callers that use the factory get shared instances.
+// ⚠️ Only intern IMMUTABLE wrappers (final fields) — everybody holding the instance would see a change.
+// ⚠️ null is not interned (ConcurrentHashMap keys): Patterns.of(null) / SharedBox.of(null) throw NPE.
+
+// Stats: hits = wrappers NOT allocated → savedBytes = hits * wrapper size.
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+class BoundedInterner<V, W> extends Interner<V, W> {
+    private final ConcurrentHashMap<V, W> table = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    BoundedInterner(Function<? super V, ? extends W> factory, int maxEntries) {
+        this(factory, maxEntries, DEFAULT_WRAPPER_BYTES);
+    }
+
+    BoundedInterner(Function<? super V, ? extends W> factory, int maxEntries, int wrapperBytes) {
+        super(factory, wrapperBytes);
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    W intern(V value) {
+        W w = table.get(value);
+        if (w != null) {
+            hit();
+            return w;
+        }
+        // Full → plain allocation from now on: entries are never evicted, so a value that was not
+        // admitted before the table filled up is never shared. The size check is not atomic with the
+        // insert below, so concurrent misses can overshoot maxEntries by up to the number of threads.
+        if (table.size() >= maxEntries) {
+            return create(value);
+        }
+        W fresh = create(value);
+        W prev = table.putIfAbsent(value, fresh);
+        return prev != null ? prev : fresh;
+    }
+
+    @Override
+    int size() {
+        return table.size();
+    }
+}
+
+// Immutable version of the Box<T> from Polymorphism.java, safe to share.
+final class SharedBox<T> {
+    private static final Interner<Object, SharedBox<?>> INTERNER = new WeakInterner<>(SharedBox::new);
+
+    private final T value;
+
+    private SharedBox(T value) {
+        this.value = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> SharedBox<T> of(T value) {
+        Objects.requireNonNull(value, "SharedBox.of(null): null values are not interned");
+        return (SharedBox<T>) INTERNER.intern(value);
+    }
+
+    static Interner<Object, SharedBox<?>> interner() {
+        return INTERNER;
+    }
+
+    T get() {
+        return value;
+    }
+
+    void show() {
+        System.out.println(value);
+    }
+}
+
+public class Flyweights {
+    public static void main(String[] args) throws InterruptedException {
+        Patterns<Integer> a = Patterns.of(12);
+        Patterns<Integer> b = Patterns.of(12);
+        System.out.println(a == b);                         // true (same flyweight)
+        System.out.println(new Patterns<>(12) == a);        // false (constructor is unchanged)
+
+        SharedBox<String> s1 = SharedBox.of("INR");
+        SharedBox<String> s2 = SharedBox.of("INR");
+        s1.show();
+        System.out.println(s1 == s2);                        // true
+
+        // Repetitive dataset: 5,000,000 rows, only 200 distinct currency/status values
+        BoundedInterner<Integer, Patterns<Integer>> codes = new BoundedInterner<>(Patterns::new, 1_000);
+        Object[] rows = new Object[5_000_000];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = codes.intern(i % 200);
+        }
+        System.out.println(codes.report());
+        System.out.println(Patterns.interner().report());
+
+        // WeakInterner: wrappers nobody holds are collected and their entries purged
+        WeakInterner<Integer, Patterns<Integer>> weak = new WeakInterner<>(Patterns::new);
+        for (int i = 0; i < 100_000; i++) weak.intern(i);
+        for (int i = 0; i < 20 && weak.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10); // cleared references are enqueued by a background thread
+        }
+        System.out.println("weak table after GC: " + weak.size() + " of 100000 entries left");
+    }
+}
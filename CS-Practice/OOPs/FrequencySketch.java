@@ -0,0 +1,68 @@
+// 📊 FrequencySketch: 4-bit count-min sketch = approximate "how often was this key used"
+// Used by TinyLfuCache (admission) and NearCache. A few bytes per cached entry instead of a
+// counter object per key; counters saturate at 15 and are halved periodically (aging).
+
+final class FrequencySketch {
+    // 16 x 4-bit counters per long; the 4 counters of a key share one 64-byte block (8 longs)
+    // → one cache miss per lookup instead of four.
+    private final long[] table;
+    private final int blockMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long maximumSize) {
+        int size = Integer.highestOneBit((int) Math.max(64, Math.min(maximumSize, 1 << 28)) - 1) << 1;
+        table = new long[size];
+        blockMask = (size >>> 3) - 1;
+        sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+    }
+
+    int frequency(Object key) {
+        int h = spread(key.hashCode());
+        int block = blockOf(h);
+        int freq = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int b = h >>> (i << 3);
+            int offset = (b >>> 1 & 15) << 2;
+            freq = Math.min(freq, (int) ((table[block + (i << 1) + (b & 1)] >>> offset) & 0xF));
+        }
+        return freq;
+    }
+
+    void increment(Object key) {
+        int h = spread(key.hashCode());
+        int block = blockOf(h);
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int b = h >>> (i << 3);
+            int idx = block + (i << 1) + (b & 1);
+            int offset = (b >>> 1 & 15) << 2;
+            if (((table[idx] >>> offset) & 0xF) != 0xF) {
+                table[idx] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    // Halve every counter → ages out old popularity
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+        }
+        additions >>>= 1;
+    }
+
+    private int blockOf(int h) {
+        long x = (h * 0x9E3779B97F4A7C15L) >>> 32;
+        return ((int) x & blockMask) << 3;
+    }
+
+    static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,291 @@
+// 🔄 Hot-reloadable configuration snapshots (instead of a static {} block)
+
+// StaticFinal.java → class Config { static String dbUrl; static { dbUrl = "jdbc:mysql://..."; } }
+//  ❌ loaded once when the class initializes → changing the URL means restarting the app.
+//  ❌ the static block runs whenever the class is first touched, even if the value is never used.
+//  ❌ individual static fields → a reader may see the new dbUrl with the old dbUser.
+
+// ✅ ConfigSnapshot → immutable: all values of one version of the file together.
+// ✅ HotConfig
+//  Lazy: HotConfig.get() reads the file on first use (double-checked locking on a volatile
+//    field). A failed load (file not there yet) is not remembered → the next get() retries.
+//  Readers: current() = ONE volatile read → always a complete, consistent snapshot.
+//  Writer: a WatchService thread sees the file change → waits until the file has been quiet
+//    for a moment (editors and Files.writeString fire events halfway through a write)
+//    → parses a NEW snapshot → swaps the volatile reference.
+//    A broken file (empty, or missing a required key) is rejected, the old snapshot stays.
+//  Listeners are told about each new snapshot (e.g. to rebuild a connection pool).
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+final class ConfigSnapshot {
+    final long version;
+    final long loadedAtMillis;
+    private final Map<String, String> values;
+
+    ConfigSnapshot(long version, Map<String, String> values) {
+        this.version = version;
+        this.loadedAtMillis = System.currentTimeMillis();
+        this.values = Collections.unmodifiableMap(new TreeMap<>(values));
+    }
+
+    String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    String require(String key) {
+        String v = values.get(key);
+        if (v == null) throw new IllegalStateException("Missing config key: " + key);
+        return v;
+    }
+
+    int getInt(String key, int defaultValue) {
+        String v = values.get(key);
+        return v == null ? defaultValue : Integer.parseInt(v.trim());
+    }
+
+    boolean getBoolean(String key, boolean defaultValue) {
+        String v = values.get(key);
+        return v == null ? defaultValue : Boolean.parseBoolean(v.trim());
+    }
+
+    Map<String, String> asMap() {
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "v" + version + " " + values;
+    }
+}
+
+final class HotConfig implements AutoCloseable {
+    static final String PATH_PROPERTY = "app.config";
+    static final String REQUIRED_PROPERTY = "app.config.required"; // comma-separated keys
+    static final long QUIET_MILLIS = 100; // no new events for this long → the write is finished
+
+    // Set the first time get() succeeds, not when HotConfig itself is loaded.
+    private static volatile HotConfig instance;
+
+    private final Path file;
+    private final Set<String> requiredKeys;
+    private final List<Consumer<ConfigSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private volatile ConfigSnapshot current;
+    private long version; // guarded by this (reload is synchronized)
+    private WatchService watcher;
+
+    HotConfig(Path file, String... requiredKeys) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.requiredKeys = Collections.unmodifiableSet(new TreeSet<>(List.of(requiredKeys)));
+        this.current = parse(1);
+        this.version = 1;
+    }
+
+    // Process-wide config from -Dapp.config (default app.properties), loaded on first use.
+    // Throws UncheckedIOException while the file cannot be loaded; a later call tries again.
+    static HotConfig get() {
+        HotConfig config = instance;
+        if (config == null) {
+            synchronized (HotConfig.class) {
+                config = instance;
+                if (config == null) {
+                    instance = config = startDefault();
+                }
+            }
+        }
+        return config;
+    }
+
+    private static HotConfig startDefault() {
+        String required = System.getProperty(REQUIRED_PROPERTY, "").trim();
+        try {
+            HotConfig config = new HotConfig(Path.of(System.getProperty(PATH_PROPERTY, "app.properties")),
+                    required.isEmpty() ? new String[0] : required.split("\\s*,\\s*"));
+            config.watch();
+            return config;
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot load config", e);
+        }
+    }
+
+    // One volatile read; never blocks.
+    ConfigSnapshot current() {
+        return current;
+    }
+
+    void onChange(Consumer<ConfigSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    // Re-reads the file; returns true if a new snapshot was published.
+    synchronized boolean reload() {
+        ConfigSnapshot next;
+        try {
+            next = parse(version + 1);
+            if (next.asMap().equals(current.asMap())) {
+                return false; // duplicate event, nothing changed
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("config reload rejected, keeping v" + current.version + ": " + e);
+            return false;
+        }
+        version = next.version;
+        current = next;
+        for (Consumer<ConfigSnapshot> l : listeners) {
+            try {
+                l.accept(next);
+            } catch (RuntimeException e) {
+                System.err.println("config listener failed: " + e);
+            }
+        }
+        return true;
+    }
+
+    // Starts a daemon thread that reloads when the file is created, modified or replaced.
+    // Events are coalesced: reload() runs once the file has been quiet for QUIET_MILLIS.
+    synchronized void watch() throws IOException {
+        if (watcher != null) return;
+        WatchService ws = FileSystems.getDefault().newWatchService();
+        file.getParent().register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = ws;
+        Thread t = new Thread(() -> {
+            try {
+                while (true) {
+                    if (!isOurs(ws.take())) continue;
+                    WatchKey more;
+                    while ((more = ws.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                        isOurs(more); // still being written → keep waiting
+                    }
+                    reload();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // closed
+            }
+        }, "config-watcher");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private boolean isOurs(WatchKey key) {
+        boolean ours = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (file.getFileName().equals(event.context())) ours = true;
+        }
+        key.reset();
+        return ours;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    private ConfigSnapshot parse(long nextVersion) throws IOException {
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(file)) {
+            props.load(r);
+        }
+        Map<String, String> values = new TreeMap<>();
+        for (String name : props.stringPropertyNames()) values.put(name, props.getProperty(name));
+        if (values.isEmpty()) throw new IllegalArgumentException("empty config file " + file);
+        for (String key : requiredKeys) {
+            if (!values.containsKey(key)) throw new IllegalArgumentException("missing required key " + key);
+        }
+        return new ConfigSnapshot(nextVersion, values);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("config");
+        Path file = dir.resolve("app.properties");
+        System.setProperty(PATH_PROPERTY, file.toString());
+        System.setProperty(REQUIRED_PROPERTY, "db.url, db.pool.size");
+
+        System.out.println("before first use: nothing loaded yet");
+        try {
+            HotConfig.get();
+        } catch (UncheckedIOException e) {
+            System.out.println("no file yet: " + e.getCause().getClass().getSimpleName()); // not cached
+        }
+        Files.writeString(file, "db.url=jdbc:mysql://localhost:3306/mydb\ndb.pool.size=10\n");
+        HotConfig config = HotConfig.get();                        // lazy load happens here
+        System.out.println(config.current());                      // v1 {db.pool.size=10, db.url=...3306/mydb}
+        config.onChange(s -> System.out.println("changed -> " + s));
+
+        // Readers hammer current() while the file is replaced
+        LongAdder reads = new LongAdder();
+        Thread[] readers = new Thread[2];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    ConfigSnapshot s = config.current();
+                    // url and pool size always come from the same version
+                    if (s.getInt("db.pool.size", 0) == 10 != s.require("db.url").endsWith("mydb")) {
+                        throw new AssertionError("mixed snapshot " + s);
+                    }
+                    reads.increment();
+                }
+            });
+            readers[i].start();
+        }
+
+        // Write a new version atomically (write temp file, then move over the old one)
+        Path tmp = dir.resolve("app.properties.tmp");
+        Files.writeString(tmp, "db.url=jdbc:mysql://replica:3306/otherdb\ndb.pool.size=20\n");
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        waitForVersion(config, 2);
+
+        // Non-atomic write in two chunks (like an editor save): events arrive while the file is
+        // half written, but only the finished file is loaded → v3 has both keys, no partial version
+        try (Writer w = Files.newBufferedWriter(file)) {
+            w.write("db.url=jdbc:mysql://replica:3306/thirddb\n");
+            w.flush();
+            Thread.sleep(30);
+            w.write("db.pool.size=30\n");
+        }
+        waitForVersion(config, 3);
+
+        Files.writeString(file, "db.url=jdbc:mysql://replica:3306/fourthdb\n"); // no pool size → rejected
+        Thread.sleep(500);
+        System.out.println("after broken write: " + config.current());
+
+        for (Thread r : readers) r.interrupt();
+        for (Thread r : readers) r.join();
+        System.out.printf("%,d consistent reads during reloads%n", reads.sum());
+        config.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    private static void waitForVersion(HotConfig config, long version) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000; // some platforms poll every ~10 s
+        while (config.current().version < version && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
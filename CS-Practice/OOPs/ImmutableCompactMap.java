@@ -0,0 +1,322 @@
+// 🗂️ Immutable compact hash map for read-mostly reference data
+
+// CollectionsInJava.java: HashMap → O(1) get, the default choice for key-value lookups.
+// But every entry is a separate Node object (hash, key, value, next ≈ 32 B) + a table slot:
+//   get() = table slot → Node → key → (value) → 3-4 cache misses, ~40 B per entry.
+// Config / currency / merchant reference data is built once and read billions of times.
+
+// ✅ ImmutableCompactMap
+//  One flat Object[] with keys and values side by side: [k0, v0, k1, v1, ...]
+//    → the value sits in the same cache line as its key, no Node objects at all.
+//  Open addressing (linear probing), table at most half full → usually the first slot hits.
+//    The spread hash of each slot is kept in a parallel int[] (like HashMap's Node.hash):
+//    a probe compares hashes first, so key.equals() only runs on the key that really matches.
+//    get() = slot + its hash + 1 miss for key.equals() → on par with HashMap at ~60% of its memory.
+//
+// ✅ Perfect-hash mode (CHD, "compress, hash and displace"):
+//  Keys are grouped into small buckets; each bucket stores one displacement d
+//  so that hash(key, d) puts every key of the whole map in its own slot.
+//    get() = displacement (small int[], 1 int per 4 keys) → exactly one slot → exactly one key.equals().
+//    Table is ~91% full → about 1/3 of the open-addressing table.
+//  Keys whose hashCode() values are equal cannot be separated → falls back to open addressing.
+
+// Immutable: built once via copyOf / perfectCopyOf; null keys and values are rejected (like Map.of).
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+final class ImmutableCompactMap<K, V> extends AbstractMap<K, V> {
+    private static final int BUCKET_SIZE = 4;          // average keys per CHD bucket
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+
+    private final Object[] table;       // [key, value] pairs, null key = empty slot
+    private final int[] hashes;         // open addressing: spread hash per slot (null in perfect mode)
+    private final int[] displacements;  // null → open addressing
+    private final int slots;
+    private final int size;
+    private Set<Entry<K, V>> entrySet;
+
+    private ImmutableCompactMap(Object[] table, int[] hashes, int[] displacements, int size) {
+        this.table = table;
+        this.hashes = hashes;
+        this.displacements = displacements;
+        this.slots = table.length >> 1;
+        this.size = size;
+    }
+
+    // Open addressing, load factor ≤ 0.5.
+    static <K, V> ImmutableCompactMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        int slots = Integer.highestOneBit(Math.max(2, map.size() * 2 - 1)) << 1;
+        Object[] table = new Object[slots * 2];
+        int[] hashes = new int[slots];
+        int mask = slots - 1;
+        for (Map.Entry<? extends K, ? extends V> e : map.entrySet()) {
+            Object key = Objects.requireNonNull(e.getKey(), "key");
+            int hash = spread(key.hashCode());
+            int slot = hash & mask;
+            while (table[slot << 1] != null) slot = (slot + 1) & mask;
+            table[slot << 1] = key;
+            table[(slot << 1) + 1] = Objects.requireNonNull(e.getValue(), "value");
+            hashes[slot] = hash;
+        }
+        return new ImmutableCompactMap<>(table, hashes, null, map.size());
+    }
+
+    // Perfect hashing; falls back to copyOf() if two keys share a hashCode().
+    static <K, V> ImmutableCompactMap<K, V> perfectCopyOf(Map<? extends K, ? extends V> map) {
+        int n = map.size();
+        Object[] keys = new Object[n], values = new Object[n];
+        int[] hashes = new int[n];
+        int i = 0;
+        for (Map.Entry<? extends K, ? extends V> e : map.entrySet()) {
+            keys[i] = Objects.requireNonNull(e.getKey(), "key");
+            values[i] = Objects.requireNonNull(e.getValue(), "value");
+            hashes[i++] = spread(keys[i - 1].hashCode());
+        }
+        int[] sorted = hashes.clone();
+        Arrays.sort(sorted);
+        for (int j = 1; j < n; j++) {
+            if (sorted[j] == sorted[j - 1]) return copyOf(map);
+        }
+
+        int slots = Math.max(1, n + n / 10);
+        while (true) {
+            ImmutableCompactMap<K, V> m = tryPerfect(keys, values, hashes, slots);
+            if (m != null) return m;
+            slots += Math.max(1, slots / 10);
+        }
+    }
+
+    private static <K, V> ImmutableCompactMap<K, V> tryPerfect(Object[] keys, Object[] values, int[] hashes, int slots) {
+        int n = keys.length;
+        int bucketCount = Math.max(1, (n + BUCKET_SIZE - 1) / BUCKET_SIZE);
+        // Group keys by bucket (counting sort): members of bucket b = members[start[b] .. start[b + 1])
+        int[] start = new int[bucketCount + 1];
+        for (int i = 0; i < n; i++) start[bucketOf(hashes[i], bucketCount) + 1]++;
+        int maxBucket = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            maxBucket = Math.max(maxBucket, start[b + 1]);
+            start[b + 1] += start[b];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(start, bucketCount);
+        for (int i = 0; i < n; i++) members[fill[bucketOf(hashes[i], bucketCount)]++] = i;
+
+        // Largest buckets first: they are the hardest to place while the table is still empty.
+        int[] bySize = new int[maxBucket + 2];
+        for (int b = 0; b < bucketCount; b++) bySize[maxBucket - (start[b + 1] - start[b]) + 1]++;
+        for (int k = 1; k < bySize.length; k++) bySize[k] += bySize[k - 1];
+        int[] order = new int[bucketCount];
+        for (int b = 0; b < bucketCount; b++) order[bySize[maxBucket - (start[b + 1] - start[b])]++] = b;
+
+        int[] displacements = new int[bucketCount];
+        boolean[] taken = new boolean[slots];
+        int[] placed = new int[maxBucket];
+        for (int b : order) {
+            int from = start[b], to = start[b + 1];
+            if (from == to) break;
+            int d = 0;
+            search:
+            for (; d < MAX_DISPLACEMENT; d++) {
+                int count = 0;
+                for (int m = from; m < to; m++) {
+                    int slot = slotOf(hashes[members[m]], d, slots);
+                    if (taken[slot]) {
+                        for (int k = 0; k < count; k++) taken[placed[k]] = false;
+                        continue search;
+                    }
+                    taken[slot] = true;
+                    placed[count++] = slot;
+                }
+                break;
+            }
+            if (d == MAX_DISPLACEMENT) return null;
+            displacements[b] = d;
+        }
+
+        Object[] table = new Object[slots * 2];
+        for (int i = 0; i < n; i++) {
+            int slot = slotOf(hashes[i], displacements[bucketOf(hashes[i], bucketCount)], slots);
+            table[slot << 1] = keys[i];
+            table[(slot << 1) + 1] = values[i];
+        }
+        return new ImmutableCompactMap<>(table, null, displacements, n);
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int bucketOf(int hash, int buckets) {
+        return (int) (((hash * 0x85EBCA6BL) & 0xFFFFFFFFL) * buckets >>> 32);
+    }
+
+    private static int slotOf(int hash, int d, int slots) {
+        int h = hash ^ (d * 0x27D4EB2F);
+        h *= 0xC2B2AE35;
+        h ^= h >>> 15;
+        return (int) ((h & 0xFFFFFFFFL) * slots >>> 32);
+    }
+
+    private int indexOf(Object key) {
+        if (key == null) return -1;
+        int hash = spread(key.hashCode());
+        if (displacements != null) {
+            int slot = slotOf(hash, displacements[bucketOf(hash, displacements.length)], slots) << 1;
+            Object k = table[slot];
+            return k != null && (k == key || k.equals(key)) ? slot : -1;
+        }
+        int mask = slots - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            Object k = table[slot << 1];
+            if (k == null) return -1;
+            if (hashes[slot] == hash && (k == key || k.equals(key))) return slot << 1;
+        }
+    }
+
+    boolean isPerfect() {
+        return displacements != null;
+    }
+
+    // Table + hash or displacement array, assuming 4-byte (compressed) references.
+    long footprintBytes() {
+        return 16 + table.length * 4L + (hashes == null ? 0 : 16 + hashes.length * 4L)
+                + (displacements == null ? 0 : 16 + displacements.length * 4L);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) table[i + 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int i = indexOf(key);
+        return i < 0 ? defaultValue : (V) table[i + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != null) action.accept((K) table[i], (V) table[i + 1]);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> es = entrySet;
+        if (es == null) {
+            entrySet = es = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new Iterator<>() {
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < table.length && table[from] == null) from += 2;
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < table.length;
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Entry<K, V> next() {
+                            if (next >= table.length) throw new NoSuchElementException();
+                            Entry<K, V> e = new SimpleImmutableEntry<>((K) table[next], (V) table[next + 1]);
+                            next = advance(next + 2);
+                            return e;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return es;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Map<String, Integer> source = new HashMap<>();
+        for (int i = 0; i < n; i++) source.put("MERCHANT-" + i, i);
+
+        long s = System.nanoTime();
+        ImmutableCompactMap<String, Integer> open = copyOf(source);
+        long openBuild = System.nanoTime() - s;
+        s = System.nanoTime();
+        ImmutableCompactMap<String, Integer> perfect = perfectCopyOf(source);
+        long perfectBuild = System.nanoTime() - s;
+
+        long hashMapBytes = 16 + Integer.highestOneBit(n * 4 / 3) * 2 * 4L + n * 32L; // table + Nodes
+        System.out.printf("HashMap ~%,d KB, open addressing %,d KB, perfect %,d KB (perfect=%b)%n",
+                hashMapBytes >> 10, open.footprintBytes() >> 10, perfect.footprintBytes() >> 10, perfect.isPerfect());
+        System.out.printf("build: open %d ms, perfect %d ms%n", openBuild / 1_000_000, perfectBuild / 1_000_000);
+
+        // Correctness
+        boolean ok = open.equals(source) && perfect.equals(source) && source.equals(perfect)
+                && perfect.get("MERCHANT-x") == null && open.get("MERCHANT-x") == null;
+        System.out.println("matches HashMap: " + ok);
+
+        // Random lookups (keys are distinct String objects → key.equals() really compares)
+        Random rnd = new Random(9);
+        String[] probes = new String[1 << 20];
+        for (int i = 0; i < probes.length; i++) probes[i] = new String("MERCHANT-" + rnd.nextInt(n));
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("get: HashMap %.1f ns, open %.1f ns, perfect %.1f ns%n",
+                    time(source, probes), time(open, probes), time(perfect, probes));
+        }
+
+        // Colliding hashCode() → cannot be perfect, falls back to open addressing
+        Map<List<Integer>, String> clash = new HashMap<>();
+        clash.put(List.of(0, 31), "a");
+        clash.put(List.of(1, 0), "b");   // same hashCode as [0, 31]
+        ImmutableCompactMap<List<Integer>, String> fallback = perfectCopyOf(clash);
+        System.out.println(fallback + " perfect=" + fallback.isPerfect()); // perfect=false
+
+        Set<Integer> small = new HashSet<>(perfectCopyOf(Map.of(1, "x", 2, "y", 3, "z")).keySet());
+        System.out.println(small); // [1, 2, 3]
+    }
+
+    private static double time(Map<String, Integer> map, String[] probes) {
+        long sum = 0, s = System.nanoTime();
+        for (int r = 0; r < 5; r++) {
+            for (String p : probes) sum += map.get(p);
+        }
+        double ns = (System.nanoTime() - s) / (5.0 * probes.length);
+        if (sum == 42) System.out.print(""); // keep the loop alive
+        return ns;
+    }
+}
@@ -0,0 +1,48 @@
+// 🪶 Interner = flyweight factory: value → one canonical wrapper (see Flyweights.java)
+// Subclasses decide how the table is kept (WeakInterner, BoundedInterner); this class counts
+// hits / misses and estimates the bytes saved by the wrappers that were NOT allocated.
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+abstract class Interner<V, W> {
+    // 12-byte header + one compressed reference, rounded to 8 (64-bit JVM, compressed oops)
+    static final int DEFAULT_WRAPPER_BYTES = 16;
+
+    private final Function<? super V, ? extends W> factory;
+    private final int wrapperBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    Interner(Function<? super V, ? extends W> factory, int wrapperBytes) {
+        this.factory = factory;
+        this.wrapperBytes = wrapperBytes;
+    }
+
+    abstract W intern(V value);
+
+    abstract int size();
+
+    W create(V value) {
+        misses.increment();
+        return factory.apply(value);
+    }
+
+    void hit() {
+        hits.increment();
+    }
+
+    long hits() { return hits.sum(); }
+
+    long misses() { return misses.sum(); }
+
+    long savedBytes() {
+        return hits.sum() * wrapperBytes;
+    }
+
+    String report() {
+        long h = hits.sum(), m = misses.sum();
+        return String.format("%s{size=%d, hits=%d, misses=%d, shared=%.1f%%, saved~%,d bytes}",
+                getClass().getSimpleName(), size(), h, m, h + m == 0 ? 0.0 : 100.0 * h / (h + m), savedBytes());
+    }
+}
@@ -0,0 +1,252 @@
+// 📈 Metrics registry: striped counters + gauges (instead of static int count++)
+
+// StaticFinal.java → class Counter { static int count = 0; Counter() { count++; } }
+//  ❌ count++ = read + add + write → two threads can read the same value → lost updates.
+//  ❌ AtomicInteger fixes correctness, but every core CASes the SAME cache line
+//     → the line bounces between cores, constructors/hot methods slow down under load.
+
+// ✅ MetricsRegistry
+//  Counter → LongAdder: each contending thread adds into its own cell (separate cache lines),
+//    the cells are summed on read. Writes scale with cores, reads are rare (export / dashboard).
+//  Gauge   → up/down value (in-flight requests, open connections), also a LongAdder,
+//    or a callback gauge that reads a value on demand (queue size, cache size).
+//  Look the metric up ONCE (static final field), then increment() is just a LongAdder add.
+//
+// ✅ snapshot(): one map of name → value + timestamp; deltaSince(previous) gives per-interval
+//    counts/rates. exportEvery() pushes snapshots periodically from one shared daemon thread.
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+final class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    interface Metric {
+        long value();
+    }
+
+    // Monotonic count (objects created, requests served, ...).
+    static final class Counter implements Metric {
+        private final LongAdder adder = new LongAdder();
+
+        void increment() {
+            adder.increment();
+        }
+
+        void add(long delta) {
+            if (delta < 0) throw new IllegalArgumentException("Counters only go up: " + delta);
+            adder.add(delta);
+        }
+
+        @Override
+        public long value() {
+            return adder.sum();
+        }
+    }
+
+    // Current level that goes up and down (in-flight requests, open connections, ...).
+    static final class Gauge implements Metric {
+        private final LongAdder adder = new LongAdder();
+
+        void increment() {
+            adder.increment();
+        }
+
+        void decrement() {
+            adder.decrement();
+        }
+
+        void add(long delta) {
+            adder.add(delta);
+        }
+
+        @Override
+        public long value() {
+            return adder.sum();
+        }
+    }
+
+    // Immutable point-in-time view; names sorted for stable output.
+    static final class Snapshot {
+        final long timestampMillis;
+        final Map<String, Long> values;
+
+        Snapshot(long timestampMillis, Map<String, Long> values) {
+            this.timestampMillis = timestampMillis;
+            this.values = Collections.unmodifiableMap(values);
+        }
+
+        long get(String name) {
+            return values.getOrDefault(name, 0L);
+        }
+
+        // Counter increase since 'previous' (gauges keep their current value).
+        Map<String, Long> deltaSince(Snapshot previous, MetricsRegistry registry) {
+            Map<String, Long> delta = new LinkedHashMap<>();
+            values.forEach((name, v) -> delta.put(name,
+                    registry.metrics.get(name) instanceof Counter ? v - previous.get(name) : v));
+            return delta;
+        }
+
+        @Override
+        public String toString() {
+            return timestampMillis + " " + values;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    Counter counter(String name) {
+        return register(name, Counter.class, Counter::new);
+    }
+
+    Gauge gauge(String name) {
+        return register(name, Gauge.class, Gauge::new);
+    }
+
+    // Value read on every snapshot; the supplier must be cheap and thread-safe.
+    void gauge(String name, LongSupplier supplier) {
+        Objects.requireNonNull(supplier);
+        Metric m = metrics.putIfAbsent(name, supplier::getAsLong);
+        if (m != null) throw new IllegalArgumentException("Metric already registered: " + name);
+    }
+
+    private <M extends Metric> M register(String name, Class<M> type, Supplier<M> factory) {
+        Metric m = metrics.get(name);
+        if (m == null) {
+            m = metrics.computeIfAbsent(name, k -> factory.get());
+        }
+        if (!type.isInstance(m)) {
+            throw new IllegalArgumentException(name + " is already registered as " + m.getClass().getSimpleName());
+        }
+        return type.cast(m);
+    }
+
+    long value(String name) {
+        Metric m = metrics.get(name);
+        return m == null ? 0 : m.value();
+    }
+
+    Snapshot snapshot() {
+        Map<String, Long> values = new TreeMap<>();
+        metrics.forEach((name, m) -> values.put(name, m.value()));
+        return new Snapshot(System.currentTimeMillis(), values);
+    }
+
+    // One daemon thread shared by every exportEvery() call, created on first use (holder idiom).
+    private static final class Exporter {
+        static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "metrics-export");
+            t.setDaemon(true);
+            return t;
+        });
+
+        static {
+            SCHEDULER.setRemoveOnCancelPolicy(true); // a cancelled export leaves nothing behind
+        }
+    }
+
+    // Calls exporter with a fresh snapshot every period on the shared export thread; cancel the
+    // future to stop. Exporters should be quick: they all take turns on that one thread.
+    ScheduledFuture<?> exportEvery(long period, TimeUnit unit, Consumer<Snapshot> exporter) {
+        return Exporter.SCHEDULER.scheduleAtFixedRate(() -> {
+            try {
+                exporter.accept(snapshot());
+            } catch (RuntimeException e) {
+                System.err.println("metrics export failed: " + e);
+            }
+        }, period, period, unit);
+    }
+
+    // ---------------------------------------------------------------- demo
+
+    // Counter from StaticFinal.java, instrumented through the registry.
+    static final class Account {
+        private static final Counter CREATED = MetricsRegistry.global().counter("account.created");
+        static int unsafeCount; // the old static int count
+
+        Account() {
+            CREATED.increment();
+            unsafeCount++;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        MetricsRegistry metrics = MetricsRegistry.global();
+        Gauge inFlight = metrics.gauge("requests.in_flight");
+        Counter served = metrics.counter("requests.served");
+        MpmcRingQueue<Integer> queue = new MpmcRingQueue<>(1024);
+        metrics.gauge("queue.size", queue::size);
+
+        Snapshot[] last = {metrics.snapshot()};
+        ScheduledFuture<?> export = metrics.exportEvery(100, TimeUnit.MILLISECONDS, s -> {
+            System.out.println("export: " + s.deltaSince(last[0], metrics));
+            last[0] = s;
+        });
+
+        int threads = 4, perThread = 2_000_000;
+        Thread[] ts = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            ts[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    inFlight.increment();
+                    new Account();
+                    served.increment();
+                    inFlight.decrement();
+                }
+            });
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        Thread.sleep(150);
+        export.cancel(false);
+
+        Snapshot end = metrics.snapshot();
+        System.out.printf("%d ms, account.created=%d (static int count=%d), in_flight=%d%n", ms,
+                end.get("account.created"), Account.unsafeCount, end.get("requests.in_flight"));
+
+        // Single hot counter: AtomicInteger vs registry Counter
+        AtomicInteger atomic = new AtomicInteger();
+        Counter striped = metrics.counter("bench.striped");
+        System.out.printf("%d threads on %d cpus: AtomicInteger %d ms, Counter %d ms%n", threads,
+                Runtime.getRuntime().availableProcessors(),
+                time(threads, perThread, atomic::incrementAndGet), time(threads, perThread, striped::increment));
+
+        try {
+            metrics.gauge("account.created");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage()); // account.created is already registered as Counter
+        }
+    }
+
+    private static long time(int threads, int perThread, Runnable op) throws InterruptedException {
+        Thread[] ts = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            ts[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) op.run();
+            });
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,457 @@
+// 🔁 Lock-free MPMC ring buffer queue (instead of Queue<Integer> q = new LinkedList<>())
+
+// CollectionsInJava.java uses LinkedList as a FIFO queue:
+// ❌ every offer() allocates a Node → garbage per message.
+// ❌ not thread-safe; ConcurrentLinkedQueue is, but still one Node per element.
+// ❌ unbounded → a slow consumer just lets memory grow.
+
+// ✅ MpmcRingQueue (bounded, array-backed, many producers + many consumers)
+//  Slots live in a preallocated array (capacity = power of two → index = seq & mask).
+//  Every slot has a sequence number telling who may use it next (Dmitry Vyukov's MPMC queue):
+//    producer owns slot when seq == pos      → writes element, publishes seq = pos + 1
+//    consumer owns slot when seq == pos + 1  → takes element, frees it: seq = pos + capacity
+//  head / tail counters are claimed with CAS, no locks.
+//  head and tail sit on different cache lines (padding fields) → producers and consumers
+//  don't invalidate each other's cache line (false sharing).
+
+// ✅ Batching: offerAll() / drainTo() claim many slots with ONE CAS.
+// ✅ WaitStrategy (WaitStrategy.java) decides what put()/take() do while full/empty:
+//    busySpin (lowest latency, burns a core) → yielding → parking → blocking (lowest CPU).
+
+// Zero garbage per message: only the element itself, no wrapper nodes.
+
+// Iteration (contains, toArray, toString...) is weakly consistent, like ConcurrentLinkedQueue:
+// it walks head → tail once and skips slots that were consumed meanwhile.
+// remove(Object) swaps the element for a REMOVED marker; consumers skip marked slots.
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Padding keeps tail and head on separate 64-byte cache lines.
+abstract class MpmcPad0<E> extends AbstractQueue<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class MpmcTail<E> extends MpmcPad0<E> {
+    volatile long tail; // next position to produce
+}
+
+abstract class MpmcPad1<E> extends MpmcTail<E> {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class MpmcHead<E> extends MpmcPad1<E> {
+    volatile long head; // next position to consume
+}
+
+abstract class MpmcPad2<E> extends MpmcHead<E> {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
+
+class MpmcRingQueue<E> extends MpmcPad2<E> implements BlockingQueue<E> {
+    private static final VarHandle TAIL, HEAD;
+    private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final Object REMOVED = new Object(); // slot content after remove(Object)
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            TAIL = l.findVarHandle(MpmcTail.class, "tail", long.class);
+            HEAD = l.findVarHandle(MpmcHead.class, "head", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] buffer;
+    private final long[] sequence;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+
+    MpmcRingQueue(int capacity) {
+        this(capacity, WaitStrategy.parking(TimeUnit.MICROSECONDS.toNanos(50)));
+    }
+
+    MpmcRingQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be >= 2");
+        }
+        int cap = Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Object[cap];
+        sequence = new long[cap];
+        for (int i = 0; i < cap; i++) {
+            sequence[i] = i;
+        }
+        mask = cap - 1;
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    // ---------------------------------------------------------------- non-blocking
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        long pos = tail;
+        while (true) {
+            int idx = (int) pos & mask;
+            long dif = (long) SEQ.getAcquire(sequence, idx) - pos;
+            if (dif == 0) {
+                if (TAIL.weakCompareAndSet(this, pos, pos + 1)) {
+                    SLOT.set(buffer, idx, e);
+                    SEQ.setRelease(sequence, idx, pos + 1);
+                    waitStrategy.signalAll();
+                    return true;
+                }
+                pos = tail;
+            } else if (dif < 0) {
+                return false; // full
+            } else {
+                pos = tail;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long pos = head;
+        while (true) {
+            int idx = (int) pos & mask;
+            long dif = (long) SEQ.getAcquire(sequence, idx) - (pos + 1);
+            if (dif == 0) {
+                if (HEAD.weakCompareAndSet(this, pos, pos + 1)) {
+                    Object e = take(idx, pos);
+                    waitStrategy.signalAll();
+                    if (e != REMOVED) return (E) e;
+                }
+                pos = head;
+            } else if (dif < 0) {
+                return null; // empty
+            } else {
+                pos = head;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        while (true) {
+            long pos = head;
+            int idx = (int) pos & mask;
+            if ((long) SEQ.getAcquire(sequence, idx) != pos + 1) return null;
+            Object e = SLOT.getAcquire(buffer, idx);
+            if (e == REMOVED) {
+                if (HEAD.compareAndSet(this, pos, pos + 1)) take(idx, pos); // discard the marker
+            } else if (e != null) {
+                return (E) e;
+            } // null: a consumer just claimed it → look again
+        }
+    }
+
+    // Empties a claimed slot and hands it back to producers (next lap).
+    private Object take(int idx, long pos) {
+        Object e = SLOT.getAndSet(buffer, idx, null); // atomic vs remove(Object)'s CAS
+        SEQ.setRelease(sequence, idx, pos + mask + 1);
+        return e;
+    }
+
+    // Offers the items in order, claiming runs of free slots with one CAS; returns how many were accepted.
+    // A null item throws NullPointerException before its slot is claimed; the items before it stay queued.
+    int offerAll(List<? extends E> items) {
+        int done = 0;
+        while (done < items.size()) {
+            long pos = tail;
+            int free = 0;
+            int want = items.size() - done;
+            while (free < want && (long) SEQ.getAcquire(sequence, (int) (pos + free) & mask) == pos + free) {
+                free++;
+            }
+            if (free == 0) {
+                if ((long) SEQ.getAcquire(sequence, (int) pos & mask) < pos) break; // full
+                continue;
+            }
+            for (int i = 0; i < free; i++) {
+                // check before the CAS: a claimed slot that is never published wedges the queue
+                if (items.get(done + i) == null) {
+                    if (done > 0) waitStrategy.signalAll();
+                    throw new NullPointerException("item " + (done + i) + " is null");
+                }
+            }
+            if (!TAIL.compareAndSet(this, pos, pos + free)) {
+                continue;
+            }
+            for (int i = 0; i < free; i++) {
+                int idx = (int) (pos + i) & mask;
+                SLOT.set(buffer, idx, items.get(done + i));
+                SEQ.setRelease(sequence, idx, pos + i + 1);
+            }
+            done += free;
+        }
+        if (done > 0) waitStrategy.signalAll();
+        return done;
+    }
+
+    // Hands up to maxElements to the consumer, claiming them with one CAS.
+    // If accept() throws, the rest of the claimed run is dropped (BlockingQueue.drainTo allows
+    // that) but its slots are still freed, otherwise producers would see a full queue forever.
+    @SuppressWarnings("unchecked")
+    int drainTo(Consumer<? super E> consumer, int maxElements) {
+        while (true) {
+            long pos = head;
+            int ready = 0;
+            while (ready < maxElements && (long) SEQ.getAcquire(sequence, (int) (pos + ready) & mask) == pos + ready + 1) {
+                ready++;
+            }
+            if (ready == 0) {
+                return 0;
+            }
+            if (!HEAD.compareAndSet(this, pos, pos + ready)) {
+                continue;
+            }
+            int i = 0, delivered = 0;
+            try {
+                while (i < ready) {
+                    Object e = take((int) (pos + i) & mask, pos + i);
+                    i++;
+                    if (e != REMOVED) {
+                        delivered++;
+                        consumer.accept((E) e);
+                    }
+                }
+            } finally {
+                for (; i < ready; i++) take((int) (pos + i) & mask, pos + i);
+                waitStrategy.signalAll();
+            }
+            if (delivered > 0) return delivered; // else the whole run was removed markers → retry
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) throw new IllegalArgumentException();
+        int total = 0, n;
+        while (total < maxElements && (n = drainTo(c::add, Math.min(maxElements - total, capacity()))) > 0) {
+            total += n;
+        }
+        return total;
+    }
+
+    // ---------------------------------------------------------------- blocking (via WaitStrategy)
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        for (int attempt = 0; !offer(e); attempt++) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            waitStrategy.idle(attempt);
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e;
+        for (int attempt = 0; (e = poll()) == null; attempt++) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            waitStrategy.idle(attempt);
+        }
+        return e;
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int attempt = 0; !offer(e); attempt++) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (System.nanoTime() - deadline >= 0) return false;
+            waitStrategy.idle(attempt);
+        }
+        return true;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E e;
+        for (int attempt = 0; (e = poll()) == null; attempt++) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (System.nanoTime() - deadline >= 0) return null;
+            waitStrategy.idle(attempt);
+        }
+        return e;
+    }
+
+    // ---------------------------------------------------------------- size
+
+    @Override
+    public int size() {
+        while (true) {
+            long h = head, t = tail;
+            if (h == head) {
+                return (int) Math.max(0, Math.min(t - h, capacity()));
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null && size() == 0;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity() - size();
+    }
+
+    // Weakly consistent: sees each element that stays in the queue from creation to the end of
+    // the walk, may or may not see the others, never throws ConcurrentModificationException.
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    // Element at position pos, or null when that slot was consumed, removed or not yet published.
+    private Object itemAt(long pos) {
+        int idx = (int) pos & mask;
+        if ((long) SEQ.getAcquire(sequence, idx) != pos + 1) return null;
+        Object e = SLOT.getAcquire(buffer, idx);
+        return e == REMOVED || (long) SEQ.getAcquire(sequence, idx) != pos + 1 ? null : e;
+    }
+
+    // Marks the element at pos as removed; false if a consumer got there first.
+    private boolean removeAt(long pos, Object e) {
+        int idx = (int) pos & mask;
+        return (long) SEQ.getAcquire(sequence, idx) == pos + 1 && SLOT.compareAndSet(buffer, idx, e, REMOVED);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) return false;
+        for (long pos = head, end = tail; pos < end; pos++) {
+            Object e = itemAt(pos);
+            if (e != null && o.equals(e) && removeAt(pos, e)) return true;
+        }
+        return false;
+    }
+
+    private final class Itr implements Iterator<E> {
+        private long pos = Math.max(head, tail - capacity());
+        private final long end = tail;
+        private Object next;
+        private long lastPos = -1;
+        private Object last;
+
+        Itr() {
+            advance();
+        }
+
+        private void advance() {
+            pos = Math.max(pos, head); // skip what consumers already passed
+            for (next = null; next == null && pos < end; pos++) next = itemAt(pos);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (next == null) throw new NoSuchElementException();
+            last = next;
+            lastPos = pos - 1;
+            advance();
+            return (E) last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) throw new IllegalStateException();
+            removeAt(lastPos, last); // already consumed → nothing to do
+            last = null;
+        }
+    }
+
+
+    public static void main(String[] args) throws InterruptedException {
+        MpmcRingQueue<Integer> q = new MpmcRingQueue<>(4);
+        q.offer(1);
+        q.offer(2);
+        q.offer(3);
+        System.out.println(q.poll() + " " + q);                 // 1 (FIFO) [2, 3]
+        System.out.println(q.offerAll(List.of(4, 5, 6)) + " " + q.offer(7)); // 2 false (bounded)
+        System.out.println(q.contains(4) + " " + q.remove(Integer.valueOf(3)) + " " + q); // true true [2, 4, 5]
+        q.drainTo(v -> System.out.print(v + " "), 10);           // 2 4 5
+        System.out.println();
+
+        // Throughput: P producers → C consumers, preallocated messages (no per-message garbage)
+        int producers = 2, consumers = 2, perProducer = 5_000_000;
+        Integer[] messages = new Integer[1024];
+        for (int i = 0; i < messages.length; i++) messages[i] = i;
+        for (WaitStrategy ws : new WaitStrategy[] {WaitStrategy.yielding(), WaitStrategy.blocking()}) {
+            MpmcRingQueue<Integer> ring = new MpmcRingQueue<>(1 << 14, ws);
+            long[] sums = new long[consumers];
+            int perConsumer = producers * perProducer / consumers;
+            Thread[] threads = new Thread[producers + consumers];
+            for (int p = 0; p < producers; p++) {
+                threads[p] = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < perProducer; i++) ring.put(messages[i & 1023]);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            for (int c = 0; c < consumers; c++) {
+                int id = c;
+                threads[producers + c] = new Thread(() -> {
+                    long sum = 0;
+                    int got = 0;
+                    int attempt = 0;
+                    while (got < perConsumer) {
+                        int n = ring.drainTo(v -> { }, Math.min(256, perConsumer - got));
+                        if (n == 0) {
+                            try {
+                                ws.idle(attempt++);
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                        } else {
+                            attempt = 0;
+                            got += n;
+                            sum += n;
+                        }
+                    }
+                    sums[id] = sum;
+                });
+            }
+            long start = System.nanoTime();
+            for (Thread t : threads) t.start();
+            for (Thread t : threads) t.join();
+            double secs = (System.nanoTime() - start) / 1e9;
+            long total = 0;
+            for (long s : sums) total += s;
+            System.out.printf("%dP/%dC: %.1f M msgs/s (%d delivered)%n",
+                    producers, consumers, total / secs / 1e6, total);
+        }
+    }
+}
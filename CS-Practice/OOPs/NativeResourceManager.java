@@ -0,0 +1,445 @@
+// 🧯 Native resource manager: explicit close + Cleaner safety net + leak detection
+
+// ObjectClasses.java → "Avoid finalize(): use close() / try-with-resources, or Cleaner".
+//  ❌ finalize()/GC-driven release: native memory is freed only when the GC happens to run.
+//     The heap can be nearly empty (no GC) while GBs of native memory are still held
+//     → ByteBuffer.allocateDirect() even calls System.gc() and sleeps when it runs out.
+//  ❌ nobody notices a forgotten close() until the process is OOM-killed.
+
+// ✅ NativeResourceManager
+//  Budget: every native allocation reserves bytes from a fixed budget FIRST (CAS on a counter).
+//    Over budget → fail fast, or wait (with timeout) for another owner to close() → native memory
+//    is bounded by the budget, not by GC timing.
+//  close() releases immediately and returns the bytes to the budget.
+//  Cleaner = safety net only: if a resource becomes unreachable without close(), the Cleaner frees
+//    it and counts it as a LEAK for its type, with the stack trace of where it was allocated.
+//  Metrics per type (buffer / file / any tag): open count, outstanding bytes, closed, leaked,
+//    and how long resources lived before being reclaimed (explicit close vs Cleaner).
+//
+//  NativeBuffer → off-heap memory (a direct ByteBuffer freed on close(), like OffHeapVector).
+//  NativeFile   → FileChannel; counts as a handle (0 bytes) against maxOpenFiles.
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class NativeResourceManager {
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final Set<String> INTERNAL_FRAMES = Set.of("<init>", "newBuffer", "allocate", "open");
+    private static final long MB = 1 << 20;
+
+    // Counters for one resource type.
+    static final class TypeStats {
+        final AtomicLong open = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final LongAdder closed = new LongAdder();
+        final LongAdder leaked = new LongAdder();
+        final LongAdder closedLifetimeNanos = new LongAdder();
+        final LongAdder leakedLifetimeNanos = new LongAdder();
+        final AtomicLong maxLeakedLifetimeNanos = new AtomicLong();
+
+        @Override
+        public String toString() {
+            long c = closed.sum(), l = leaked.sum();
+            return String.format(Locale.ROOT, "open=%d bytes=%d closed=%d (avg %.2f ms) leaked=%d (avg %.1f ms, max %.1f ms)",
+                    open.get(), bytes.get(), c, c == 0 ? 0.0 : closedLifetimeNanos.sum() / 1e6 / c, l,
+                    l == 0 ? 0.0 : leakedLifetimeNanos.sum() / 1e6 / l, maxLeakedLifetimeNanos.get() / 1e6);
+        }
+    }
+
+    // Everything needed to release a resource; must not reference the resource itself,
+    // or the resource never becomes unreachable and the Cleaner never runs.
+    private static final class Release implements Runnable {
+        final NativeResourceManager manager;
+        final TypeStats stats;
+        final String type;
+        final long bytes;
+        final long allocatedAtNanos = System.nanoTime();
+        final Throwable site;       // where it was allocated, for leak reports (null if not tracked)
+        final Runnable free;        // frees the native part (memory, file handle)
+        volatile boolean explicit;  // set by close() before clean()
+
+        Release(NativeResourceManager manager, TypeStats stats, String type, long bytes, Throwable site, Runnable free) {
+            this.manager = manager;
+            this.stats = stats;
+            this.type = type;
+            this.bytes = bytes;
+            this.site = site;
+            this.free = free;
+        }
+
+        @Override
+        public void run() { // runs at most once: from close() or from the Cleaner thread
+            try {
+                free.run();
+            } finally {
+                long lifetime = System.nanoTime() - allocatedAtNanos;
+                if (explicit) {
+                    stats.closed.increment();
+                    stats.closedLifetimeNanos.add(lifetime);
+                } else {
+                    stats.leaked.increment();
+                    stats.leakedLifetimeNanos.add(lifetime);
+                    stats.maxLeakedLifetimeNanos.accumulateAndGet(lifetime, Math::max);
+                    manager.reportLeak(this, lifetime);
+                }
+                stats.open.decrementAndGet();
+                stats.bytes.addAndGet(-bytes);
+                manager.unreserve(bytes);
+            }
+        }
+    }
+
+    abstract static class NativeResource implements AutoCloseable {
+        private final Release release;
+        private final Cleaner.Cleanable cleanable;
+        private volatile boolean closed;
+
+        NativeResource(NativeResourceManager manager, String type, long bytes, Runnable free) {
+            TypeStats stats = manager.stats(type);
+            this.release = new Release(manager, stats, type, bytes,
+                    manager.trackSites ? new Throwable("allocated here") : null, free);
+            stats.open.incrementAndGet();
+            stats.bytes.addAndGet(bytes);
+            this.cleanable = CLEANER.register(this, release);
+        }
+
+        final void checkOpen() {
+            if (closed) throw new IllegalStateException(release.type + " is closed");
+        }
+
+        String type() {
+            return release.type;
+        }
+
+        // Not thread-safe against concurrent use: close only after every user is done.
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release.explicit = true;
+                cleanable.clean();
+            }
+        }
+    }
+
+    static final class NativeBuffer extends NativeResource {
+        private final ByteBuffer buffer;
+        private final long size;
+
+        private NativeBuffer(NativeResourceManager manager, String type, ByteBuffer buffer) {
+            super(manager, type, buffer.capacity(), () -> OffHeapVector.free(buffer));
+            this.buffer = buffer;
+            this.size = buffer.capacity();
+        }
+
+        long size() {
+            return size;
+        }
+
+        // Every accessor keeps `this` reachable until the access is done: otherwise the JIT may
+        // treat the NativeBuffer as dead once `buffer` is loaded, and the Cleaner could free the
+        // memory while it is still being read or written.
+        long getLong(long offset) {
+            try {
+                return buffer.getLong(index(offset, 8));
+            } finally {
+                Reference.reachabilityFence(this);
+            }
+        }
+
+        void putLong(long offset, long value) {
+            try {
+                buffer.putLong(index(offset, 8), value);
+            } finally {
+                Reference.reachabilityFence(this);
+            }
+        }
+
+        byte get(long offset) {
+            try {
+                return buffer.get(index(offset, 1));
+            } finally {
+                Reference.reachabilityFence(this);
+            }
+        }
+
+        void put(long offset, byte value) {
+            try {
+                buffer.put(index(offset, 1), value);
+            } finally {
+                Reference.reachabilityFence(this);
+            }
+        }
+
+        void fill(byte value) {
+            try {
+                checkOpen();
+                long pattern = (value & 0xFFL) * 0x0101010101010101L;
+                int i = 0;
+                for (; i <= size - 8; i += 8) buffer.putLong(i, pattern);
+                for (; i < size; i++) buffer.put(i, value);
+            } finally {
+                Reference.reachabilityFence(this);
+            }
+        }
+
+        private int index(long offset, int width) {
+            checkOpen();
+            if (offset < 0 || offset > size - width) {
+                throw new IndexOutOfBoundsException("Offset " + offset + " out of bounds for size " + size);
+            }
+            return (int) offset;
+        }
+    }
+
+    static final class NativeFile extends NativeResource {
+        private final FileChannel channel;
+
+        private NativeFile(NativeResourceManager manager, FileChannel channel) {
+            super(manager, "file", 0, () -> {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    manager.openFiles.decrementAndGet();
+                }
+            });
+            this.channel = channel;
+        }
+
+        FileChannel channel() {
+            checkOpen();
+            return channel;
+        }
+    }
+
+    private final long maxBytes;
+    private final int maxOpenFiles;
+    private final boolean trackSites;
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicInteger openFiles = new AtomicInteger(); // reserved file handles
+    private final ConcurrentHashMap<String, TypeStats> types = new ConcurrentHashMap<>();
+    private final ReentrantLock budgetLock = new ReentrantLock();
+    private final Condition released = budgetLock.newCondition();
+    private final AtomicLong waiters = new AtomicLong();
+
+    // trackSites = record a stack trace per allocation for leak reports (costs ~1-2 us each).
+    NativeResourceManager(long maxBytes, int maxOpenFiles, boolean trackSites) {
+        this.maxBytes = maxBytes;
+        this.maxOpenFiles = maxOpenFiles;
+        this.trackSites = trackSites;
+    }
+
+    NativeBuffer allocate(String type, long bytes) {
+        if (bytes <= 0 || bytes > Integer.MAX_VALUE) throw new IllegalArgumentException("bytes out of range: " + bytes);
+        if (!tryReserve(bytes)) {
+            throw new IllegalStateException("Native budget exhausted: " + bytes + " bytes requested, "
+                    + reserved.get() + " of " + maxBytes + " in use");
+        }
+        return newBuffer(type, bytes);
+    }
+
+    // Waits up to timeout for other owners to close() and free enough budget.
+    NativeBuffer allocate(String type, long bytes, long timeout, TimeUnit unit) throws InterruptedException {
+        if (bytes <= 0 || bytes > Math.min(maxBytes, Integer.MAX_VALUE)) throw new IllegalArgumentException("bytes out of range: " + bytes);
+        if (!tryReserve(bytes)) {
+            long nanos = unit.toNanos(timeout);
+            waiters.incrementAndGet();
+            budgetLock.lock();
+            try {
+                while (!tryReserve(bytes)) {
+                    if (nanos <= 0) {
+                        throw new IllegalStateException("Timed out waiting for " + bytes + " bytes of native budget");
+                    }
+                    nanos = released.awaitNanos(nanos);
+                }
+            } finally {
+                budgetLock.unlock();
+                waiters.decrementAndGet();
+            }
+        }
+        return newBuffer(type, bytes);
+    }
+
+    NativeFile open(Path path, OpenOption... options) throws IOException {
+        if (!tryReserveFile()) {
+            throw new IllegalStateException("Too many open files: " + maxOpenFiles);
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, options);
+        } catch (IOException | RuntimeException e) {
+            openFiles.decrementAndGet();
+            throw e;
+        }
+        return new NativeFile(this, channel);
+    }
+
+    private NativeBuffer newBuffer(String type, long bytes) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.allocateDirect((int) bytes);
+        } catch (OutOfMemoryError e) {
+            unreserve(bytes);
+            throw e;
+        }
+        return new NativeBuffer(this, type, buffer);
+    }
+
+    private boolean tryReserve(long bytes) {
+        for (long r = reserved.get(); r + bytes <= maxBytes; r = reserved.get()) {
+            if (reserved.compareAndSet(r, r + bytes)) return true;
+        }
+        return false;
+    }
+
+    // Same CAS as tryReserve, for the handle count: concurrent open() calls never exceed maxOpenFiles.
+    private boolean tryReserveFile() {
+        for (int n = openFiles.get(); n < maxOpenFiles; n = openFiles.get()) {
+            if (openFiles.compareAndSet(n, n + 1)) return true;
+        }
+        return false;
+    }
+
+    private void unreserve(long bytes) {
+        if (bytes == 0) return;
+        reserved.addAndGet(-bytes);
+        if (waiters.get() > 0) {
+            budgetLock.lock();
+            try {
+                released.signalAll();
+            } finally {
+                budgetLock.unlock();
+            }
+        }
+    }
+
+    private TypeStats stats(String type) {
+        TypeStats s = types.get(type);
+        return s != null ? s : types.computeIfAbsent(type, k -> new TypeStats());
+    }
+
+    private void reportLeak(Release r, long lifetimeNanos) {
+        System.err.printf("LEAK: %s (%d bytes) was not closed, reclaimed by Cleaner after %.1f ms%n",
+                r.type, r.bytes, lifetimeNanos / 1e6);
+        if (r.site != null) {
+            int shown = 0;
+            for (StackTraceElement e : r.site.getStackTrace()) {
+                boolean internal = e.getClassName().startsWith(NativeResourceManager.class.getName())
+                        && INTERNAL_FRAMES.contains(e.getMethodName());
+                if (!internal && shown++ < 3) System.err.println("    at " + e);
+            }
+        }
+    }
+
+    long outstandingBytes() {
+        return reserved.get();
+    }
+
+    long leaked(String type) {
+        TypeStats s = types.get(type);
+        return s == null ? 0 : s.leaked.sum();
+    }
+
+    Map<String, TypeStats> stats() {
+        return new TreeMap<>(types);
+    }
+
+    void registerMetrics(MetricsRegistry registry, String prefix) {
+        registry.gauge(prefix + ".outstanding_bytes", reserved::get);
+        registry.gauge(prefix + ".leaked", () -> types.values().stream().mapToLong(s -> s.leaked.sum()).sum());
+        registry.gauge(prefix + ".open", () -> types.values().stream().mapToLong(s -> s.open.get()).sum());
+    }
+
+    // ---------------------------------------------------------------- demo
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        NativeResourceManager natives = new NativeResourceManager(64 * MB, 16, true);
+        natives.registerMetrics(MetricsRegistry.global(), "native");
+
+        // 1. try-with-resources: freed at the end of the block, not "some time after a GC"
+        try (NativeBuffer index = natives.allocate("index", 16 * MB)) {
+            for (long i = 0; i < index.size(); i += 8) index.putLong(i, i);
+            System.out.println("inside block: " + natives.outstandingBytes() / MB + " MB, last=" + index.getLong(index.size() - 8));
+        }
+        System.out.println("after block: " + natives.outstandingBytes() + " bytes");
+
+        // 2. Budget: fail fast, or wait for someone to close()
+        List<NativeBuffer> held = new ArrayList<>();
+        for (int i = 0; i < 4; i++) held.add(natives.allocate("cache", 16 * MB));
+        try {
+            natives.allocate("cache", 16 * MB);
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+        Thread closer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            held.remove(0).close();
+        });
+        closer.start();
+        long t0 = System.nanoTime();
+        try (NativeBuffer waited = natives.allocate("cache", 16 * MB, 1, TimeUnit.SECONDS)) {
+            System.out.printf("waited %d ms for budget, got %d MB%n", (System.nanoTime() - t0) / 1_000_000, waited.size() / MB);
+        }
+        closer.join();
+        for (NativeBuffer b : held) b.close();
+
+        // 3. Leaks: buffer and file dropped without close() → Cleaner frees them and reports where
+        Path tmp = Files.createTempFile("native", ".bin");
+        leak(natives, tmp);
+        for (int i = 0; i < 50 && natives.leaked("scratch") + natives.leaked("file") < 2; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        try (NativeFile f = natives.open(tmp, StandardOpenOption.READ)) {
+            System.out.println("file size " + f.channel().size());
+        }
+        System.out.println("after leaks: " + natives.outstandingBytes() + " bytes outstanding");
+        natives.stats().forEach((type, s) -> System.out.println("  " + type + ": " + s));
+        Files.delete(tmp);
+
+        // 4. Direct ByteBuffers: released only when the GC gets to them
+        BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(p -> p.getName().equals("direct")).findFirst().orElseThrow();
+        long before = direct.getMemoryUsed();
+        for (int i = 0; i < 8; i++) ByteBuffer.allocateDirect((int) (8 * MB)).put(0, (byte) 1);
+        System.out.println("dropped direct buffers still hold " + (direct.getMemoryUsed() - before) / MB + " MB until a GC");
+        System.out.println("metrics: " + MetricsRegistry.global().snapshot().values);
+    }
+
+    private static void leak(NativeResourceManager natives, Path file) throws IOException {
+        NativeBuffer scratch = natives.allocate("scratch", 4 * MB);
+        scratch.fill((byte) 7);
+        NativeFile out = natives.open(file, StandardOpenOption.WRITE);
+        out.channel().write(ByteBuffer.wrap(new byte[] {scratch.get(0)}));
+        // forgot scratch.close() and out.close()
+    }
+}
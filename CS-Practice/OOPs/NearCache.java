@@ -0,0 +1,295 @@
+// 🧲 Read-through near cache in front of UserService.getUser()
+
+// ConnectionPool.java → UserService.getUser(id) borrows a connection and runs a query on EVERY call.
+//  ❌ the same hot users are read from the database over and over.
+//  ❌ a popular user's entry expiring (or a cold start) → 1000 concurrent requests miss together
+//     → 1000 identical queries hit the database at once (thundering herd).
+//  ❌ naive cache-aside (get → miss → load → put) can put an OLD value back after a write:
+//     load reads v1 ... write commits v2 + invalidates ... load puts v1 → stale until TTL.
+
+// ✅ NearCache (read-through: callers only call get(key), the cache calls the loader)
+//  Bounded: entries live in a TinyLfuCache → hot users stay, scans / one-off ids don't push them out.
+//  TTL: every entry carries its expiry; "user not found" is cached too, with a shorter TTL.
+//  Coalescing: the first miss puts a CompletableFuture into an in-flight map and loads;
+//    every other miss for that key waits on the same future → ONE database query per key.
+//  Invalidation: invalidate(key) is called after a write. It bumps a generation counter
+//    (striped by key hash) → a load that started before the write sees the change and does
+//    not cache its result. invalidateAll() bumps a global epoch → every entry is stale at once.
+
+// ✅ CachedUserService extends UserService → getUser() goes through the cache,
+//    rename() writes to the database and then invalidates the user.
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+final class NearCache<K, V> {
+    private static final int GENERATION_STRIPES = 1024; // power of two
+
+    private static final class Entry<V> {
+        final V value; // null = "not found" (negative entry)
+        final long expiresAtNanos;
+        final long epoch;
+
+        Entry(V value, long expiresAtNanos, long epoch) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+            this.epoch = epoch;
+        }
+    }
+
+    private final TinyLfuCache<K, Entry<V>> cache;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong epoch = new AtomicLong(); // bumped by invalidateAll()
+    private final Function<? super K, ? extends V> loader;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final long loadTimeoutNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder staleDiscarded = new LongAdder();
+
+    NearCache(long maximumSize, long ttlMillis, Function<? super K, ? extends V> loader) {
+        this(maximumSize, ttlMillis, Math.max(1, ttlMillis / 10), 5_000, loader);
+    }
+
+    NearCache(long maximumSize, long ttlMillis, long negativeTtlMillis, long loadTimeoutMillis,
+              Function<? super K, ? extends V> loader) {
+        if (ttlMillis <= 0 || negativeTtlMillis < 0 || loadTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("ttl=" + ttlMillis + ", negativeTtl=" + negativeTtlMillis
+                    + ", loadTimeout=" + loadTimeoutMillis);
+        }
+        this.cache = new TinyLfuCache<>(maximumSize);
+        this.loader = Objects.requireNonNull(loader);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+        this.loadTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(loadTimeoutMillis);
+    }
+
+    // Cached value, or the loaded one; null if the loader returned null (not found).
+    V get(K key) {
+        Entry<V> e = cache.getIfPresent(key);
+        if (e != null) {
+            if (isFresh(e)) {
+                hits.increment();
+                return e.value;
+            }
+            expired.increment();
+            cache.invalidate(key);
+        }
+        misses.increment();
+        return load(key);
+    }
+
+    // Call AFTER the write is committed, so a reload can only see the new value.
+    void invalidate(K key) {
+        generations.incrementAndGet(stripe(key)); // in-flight loads for this key won't cache
+        cache.invalidate(key);
+        inFlight.remove(key);                    // later readers start a fresh load
+    }
+
+    void invalidateAll() {
+        epoch.incrementAndGet(); // atomic: concurrent invalidateAll() calls each move it on
+        inFlight.clear();
+    }
+
+    private boolean isFresh(Entry<V> e) {
+        return e.epoch == epoch.get() && System.nanoTime() - e.expiresAtNanos < 0;
+    }
+
+    private V load(K key) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        int stripe = stripe(key);
+        long gen = generations.get(stripe);
+        long ep = epoch.get();
+        try {
+            Entry<V> e = cache.getIfPresent(key); // a load may have finished since our miss
+            if (e != null && isFresh(e)) {
+                mine.complete(e.value);
+                return e.value;
+            }
+            loads.increment();
+            V value = loader.apply(key);
+            if (generations.get(stripe) == gen && epoch.get() == ep) {
+                long ttl = value == null ? negativeTtlNanos : ttlNanos;
+                cache.put(key, new Entry<>(value, System.nanoTime() + ttl, ep));
+                if (generations.get(stripe) != gen || epoch.get() != ep) {
+                    cache.invalidate(key); // a write slipped in between the check and the put
+                }
+            } else {
+                staleDiscarded.increment();
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex); // waiters see the failure; nothing is cached
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private V await(CompletableFuture<V> f) {
+        try {
+            return f.get(loadTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Load failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for a concurrent load", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a concurrent load", e);
+        }
+    }
+
+    private static int stripe(Object key) {
+        return FrequencySketch.spread(key.hashCode()) & (GENERATION_STRIPES - 1);
+    }
+
+    long loadCount() {
+        return loads.sum();
+    }
+
+    String stats() {
+        long h = hits.sum(), m = misses.sum();
+        return String.format(Locale.ROOT, "hits=%d misses=%d (hit rate %.4f) loads=%d coalesced=%d expired=%d "
+                        + "staleDiscarded=%d size=%d", h, m, h + m == 0 ? 0.0 : (double) h / (h + m), loads.sum(),
+                coalesced.sum(), expired.sum(), staleDiscarded.sum(), cache.estimatedSize());
+    }
+
+    // ---------------------------------------------------------------- demo
+
+    public static void main(String[] args) throws InterruptedException {
+        EmbeddedDatabase db = EmbeddedDatabase.withUsers(10_000);
+        try (ConnectionPool pool = new ConnectionPool(db, 4)) {
+            UserService plain = new UserService(pool);
+            CachedUserService cached = new CachedUserService(pool, 10_000, 60_000);
+
+            // Hot reads: 1000 popular users (the embedded database has no network round trip;
+            // against a real server the uncached path adds ~0.1-1 ms per query)
+            for (int round = 0; round < 3; round++) {
+                long uncachedNs = time(plain, 200_000), cachedNs = time(cached, 5_000_000);
+                if (round == 2) {
+                    System.out.printf("getUser: database via pool %.0f ns/op, near cache %.0f ns/op%n",
+                            uncachedNs / 200_000.0, cachedNs / 5_000_000.0);
+                }
+            }
+            System.out.println(cached.cache.stats());
+
+            // Thundering herd: 64 threads miss on the same cold user while the query takes 20 ms
+            NearCache<Long, User> slow = new NearCache<>(1_000, 60_000, id -> {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                return plain.getUser(id);
+            });
+            int herd = 64;
+            CountDownLatch go = new CountDownLatch(1), done = new CountDownLatch(herd);
+            for (int i = 0; i < herd; i++) {
+                new Thread(() -> {
+                    try {
+                        go.await();
+                        if (slow.get(7L).id != 7) throw new AssertionError("wrong user");
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            go.countDown();
+            done.await();
+            System.out.println(herd + " concurrent misses -> " + slow.loadCount() + " database load(s)");
+
+            // Write → invalidate → next read sees the new value
+            System.out.println(cached.getUser(42));
+            cached.rename(42, "alice");
+            System.out.println(cached.getUser(42));                    // name=alice
+
+            // A load that started before a write must not cache the old value
+            Thread reader = new Thread(() -> slow.get(42L));           // reads "alice", takes 20 ms
+            reader.start();
+            Thread.sleep(5);
+            plain.rename(42, "bob");
+            slow.invalidate(42L);
+            reader.join();
+            System.out.println("after racing write: " + slow.get(42L).name + " | " + slow.stats());
+
+            // Not found is cached briefly; TTL expiry reloads
+            NearCache<Long, User> shortLived = new NearCache<>(1_000, 50, plain::getUser);
+            shortLived.get(-1L);
+            shortLived.get(-1L);
+            shortLived.get(1L);
+            Thread.sleep(60);
+            shortLived.get(1L);
+            System.out.println("ttl: " + shortLived.stats());
+        }
+    }
+
+    private static long time(UserService service, int ops) {
+        long start = System.nanoTime();
+        long x = 1;
+        for (int i = 0; i < ops; i++) {
+            x = x * 6364136223846793005L + 1442695040888963407L;
+            long id = (x >>> 33) % 1_000;
+            if (service.getUser(id).id != id) throw new AssertionError("wrong user");
+        }
+        return System.nanoTime() - start;
+    }
+}
+
+// UserService with getUser() served from a NearCache; writes invalidate the user they touched.
+final class CachedUserService extends UserService {
+    final NearCache<Long, User> cache;
+
+    CachedUserService(Database db, long maximumSize, long ttlMillis) {
+        super(db);
+        this.cache = new NearCache<>(maximumSize, ttlMillis, this::loadUser);
+    }
+
+    private User loadUser(Long id) {
+        return super.getUser(id);
+    }
+
+    @Override
+    User getUser(long id) {
+        return cache.get(id);
+    }
+
+    @Override
+    boolean rename(long id, String name) {
+        boolean changed = super.rename(id, name);
+        cache.invalidate(id);
+        return changed;
+    }
+
+    // Several users changed at once (bulk import, migration): drop everything.
+    int renameAll(List<Long> ids, String name) {
+        int changed = 0;
+        for (long id : ids) {
+            if (super.rename(id, name)) changed++;
+        }
+        cache.invalidateAll();
+        return changed;
+    }
+}
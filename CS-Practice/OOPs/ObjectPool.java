@@ -0,0 +1,266 @@
+// ♻️ Object pool + copy-on-write values (instead of deep clone() per request)
+
+// ObjectClasses.java → Person.clone(): super.clone() + new Address(city) for the deep copy.
+//  Request path: Person p = (Person) template.clone(); → 2 objects per request, every time.
+//  ❌ millions of short-lived Person/Address objects/s → high allocation rate → frequent young GCs.
+//  ❌ the Address copy is only needed because Address is MUTABLE (two Persons must not share it).
+
+// ✅ Copy-on-write Address: Address is immutable → clones can SHARE it safely.
+//    Changing the city creates a new Address only for the Person that changed (moveTo()).
+//    → clone() is one shallow copy, the deep copy disappears.
+
+// ✅ ObjectPool<T>: reuse Person objects instead of allocating them.
+//  acquire(): 1. this thread's local cache (plain array, no atomics)
+//             2. shared free list (MpmcRingQueue → lock-free, bounded, no node per element),
+//                moving a batch into the local cache with one CAS
+//             3. factory.get() when both are empty
+//  release(): reset hook clears the object (no stale data, no references kept alive)
+//             → local cache; when it is full, half of it spills into the shared list
+//             → objects released on another thread end up back in circulation.
+//  Shared list full → the object is simply dropped (GC takes it), so the pool stays bounded.
+//  ⚠ A released object must not be used again by its previous owner (same rule as close()).
+//  ⚠ acquire + release cost more than a TLAB bump allocation; the win is no garbage → no young
+//    GCs / pauses on the hot path. Prefer the copy-on-write clone when that is already enough.
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+final class ObjectPool<T> {
+    // Per-thread stack; also the drainTo() target when refilling from the shared list.
+    private static final class LocalCache implements Consumer<Object> {
+        final Object[] items;
+        int size;
+
+        LocalCache(int capacity) {
+            items = new Object[capacity];
+        }
+
+        @Override
+        public void accept(Object o) {
+            items[size++] = o;
+        }
+    }
+
+    private final Supplier<? extends T> factory;
+    private final Consumer<? super T> reset;
+    private final MpmcRingQueue<T> shared;
+    private final int localCapacity;
+    private final ThreadLocal<LocalCache> local;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    ObjectPool(Supplier<? extends T> factory, Consumer<? super T> reset) {
+        this(factory, reset, 64, 4096);
+    }
+
+    ObjectPool(Supplier<? extends T> factory, Consumer<? super T> reset, int localCapacity, int sharedCapacity) {
+        if (localCapacity < 2) throw new IllegalArgumentException("localCapacity must be >= 2");
+        this.factory = Objects.requireNonNull(factory);
+        this.reset = Objects.requireNonNull(reset);
+        this.localCapacity = localCapacity;
+        this.shared = new MpmcRingQueue<>(sharedCapacity);
+        this.local = ThreadLocal.withInitial(() -> new LocalCache(localCapacity));
+    }
+
+    @SuppressWarnings("unchecked")
+    T acquire() {
+        LocalCache cache = local.get();
+        if (cache.size == 0 && shared.drainTo(cache, localCapacity / 2) == 0) {
+            created.increment();
+            return factory.get();
+        }
+        T item = (T) cache.items[--cache.size];
+        cache.items[cache.size] = null;
+        return item;
+    }
+
+    @SuppressWarnings("unchecked")
+    void release(T item) {
+        reset.accept(item);
+        LocalCache cache = local.get();
+        if (cache.size == localCapacity) {
+            for (int keep = localCapacity / 2; cache.size > keep; ) {
+                T spill = (T) cache.items[--cache.size];
+                cache.items[cache.size] = null;
+                if (!shared.offer(spill)) dropped.increment();
+            }
+        }
+        cache.items[cache.size++] = item;
+    }
+
+    long createdCount() {
+        return created.sum();
+    }
+
+    long droppedCount() {
+        return dropped.sum();
+    }
+
+    int sharedSize() {
+        return shared.size();
+    }
+
+    // ---------------------------------------------------------------- demo
+
+    public static void main(String[] args) throws InterruptedException {
+        Person template = new Person("Alice", 30, new Address("New York"));
+
+        // Copy-on-write: clones share the Address until one of them moves
+        Person a = template.clone(), b = template.clone();
+        System.out.println("share address: " + (a.address() == b.address()));             // true
+        b.moveTo("Boston");
+        System.out.println(a + " / " + b + " / template " + template.address().city());   // New York stays
+
+        ObjectPool<Person> pool = new ObjectPool<>(Person::new, Person::clear);
+        int requests = 20_000_000, inFlight = 1024;
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            measure(print, "deep clone (notes)", requests, inFlight, sink -> {
+                for (int i = 0; i < requests; i++) sink[i & (inFlight - 1)] = template.deepClone();
+            });
+            measure(print, "copy-on-write clone", requests, inFlight, sink -> {
+                for (int i = 0; i < requests; i++) sink[i & (inFlight - 1)] = template.clone();
+            });
+            measure(print, "pooled", requests, inFlight, sink -> {
+                for (int i = 0; i < requests; i++) {
+                    int slot = i & (inFlight - 1);
+                    if (sink[slot] != null) pool.release(sink[slot]);              // request finished
+                    sink[slot] = pool.acquire().copyFrom(template);
+                }
+                for (int i = 0; i < inFlight; i++) {
+                    if (sink[i] != null) pool.release(sink[i]);
+                }
+            });
+        }
+        System.out.println("pool: created " + pool.createdCount() + " objects for " + 2L * requests + " requests");
+
+        // Acquired on one thread, released on another → recycled through the shared list
+        Person[] handoff = new Person[2_000];
+        long before = pool.createdCount();
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < handoff.length; i++) handoff[i] = pool.acquire().copyFrom(template);
+            Thread releaser = new Thread(() -> {
+                for (Person p : handoff) pool.release(p);
+            });
+            releaser.start();
+            releaser.join();
+        }
+        System.out.printf("cross-thread: %d acquires, %d new objects, %d dropped (shared list holds %d)%n",
+                100 * handoff.length, pool.createdCount() - before, pool.droppedCount(), pool.sharedSize());
+    }
+
+    interface Workload {
+        void run(Person[] sink);
+    }
+
+    private static void measure(boolean print, String name, int requests, int inFlight, Workload work) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long gcs = gcCount();
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        work.run(new Person[inFlight]);
+        long ns = System.nanoTime() - start;
+        bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+        if (print) {
+            System.out.printf("%-20s %5.1f ns/request, %5.1f bytes/request, %d young GCs%n",
+                    name, (double) ns / requests, (double) bytes / requests, gcCount() - gcs);
+        }
+    }
+
+    private static long gcCount() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) n += gc.getCollectionCount();
+        return n;
+    }
+}
+
+// Immutable → safe to share between any number of Person copies.
+final class Address {
+    private final String city;
+
+    Address(String city) {
+        this.city = city;
+    }
+
+    String city() {
+        return city;
+    }
+
+    @Override
+    public String toString() {
+        return city;
+    }
+}
+
+final class Person implements Cloneable {
+    private String name;
+    private int age;
+    private Address address;
+
+    Person() {}
+
+    Person(String name, int age, Address address) {
+        this.name = name;
+        this.age = age;
+        this.address = address;
+    }
+
+    String name() {
+        return name;
+    }
+
+    int age() {
+        return age;
+    }
+
+    Address address() {
+        return address;
+    }
+
+    // Copy-on-write: only this Person gets the new Address.
+    void moveTo(String city) {
+        address = new Address(city);
+    }
+
+    // Shallow copy is enough: the only nested object is immutable.
+    @Override
+    public Person clone() {
+        try {
+            return (Person) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // we implement Cloneable
+        }
+    }
+
+    // The ObjectClasses.java version, kept for comparison.
+    Person deepClone() {
+        Person cloned = clone();
+        cloned.address = new Address(address.city());
+        return cloned;
+    }
+
+    // Fills a pooled instance from a template (no allocation).
+    Person copyFrom(Person template) {
+        name = template.name;
+        age = template.age;
+        address = template.address;
+        return this;
+    }
+
+    // Reset hook for ObjectPool: drop references so a pooled Person keeps nothing alive.
+    void clear() {
+        name = null;
+        age = 0;
+        address = null;
+    }
+
+    @Override
+    public String toString() {
+        return "Person{name='" + name + "', age=" + age + ", city=" + address + "}";
+    }
+}
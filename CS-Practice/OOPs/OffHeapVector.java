@@ -0,0 +1,363 @@
+// 📦 Off-heap growable vectors (ArrayList alternative for huge primitive data)
+
+// CollectionsInJava.java: ArrayList → ✅ fast random access, good for read-heavy work.
+// But ArrayList<Long> with 500,000,000 transaction ids =
+//   500M references (2-4 GB) + 500M Long objects (8 GB) → GC has to scan all of it.
+
+// ✅ OffHeapLongVector / OffHeapDoubleVector
+//  Values live in native memory (outside the Java heap) → GC never sees them.
+//  Memory is allocated in fixed segments (8 MB each):
+//    index → segment = index >>> 20, slot = index & (2^20 - 1)
+//    growing just adds a segment → no huge copy like ArrayList's grow().
+//  Bulk copy in/out of long[] / double[] uses one bulk get/put (memcpy) per segment.
+//  binarySearch() on sorted data (e.g. sorted transaction ids).
+
+// 🧹 Release:
+//  close() frees the memory right away (use try-with-resources).
+//  If someone forgets, a Cleaner frees it after the vector becomes unreachable (safety net only).
+//  Every accessor keeps the vector reachable until it is done (Reference.reachabilityFence),
+//  otherwise the Cleaner could free a segment in the middle of a get/set.
+
+// Segments are direct ByteBuffers (LongBuffer / DoubleBuffer views in native byte order).
+// Freeing one early uses sun.misc.Unsafe.invokeCleaner, looked up reflectively: naming Unsafe
+// in the source gives javac warnings that cannot be suppressed. Without it the GC frees them.
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+abstract class OffHeapVector implements AutoCloseable {
+    static final int SEGMENT_SHIFT = 20;                 // 1M elements per segment
+    static final long SEGMENT_ELEMENTS = 1L << SEGMENT_SHIFT;
+    static final long SEGMENT_MASK = SEGMENT_ELEMENTS - 1;
+    static final long SEGMENT_BYTES = SEGMENT_ELEMENTS * 8;
+
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner(); // null → GC frees
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    // Owns the native segments; must not reference the vector, or the Cleaner never runs.
+    private static final class Segments implements Runnable {
+        ByteBuffer[] buffers = new ByteBuffer[4];
+        int count;
+
+        @Override
+        public void run() {
+            for (int i = 0; i < count; i++) {
+                free(buffers[i]);
+                buffers[i] = null;
+            }
+            count = 0;
+        }
+    }
+
+    private final Segments segments = new Segments();
+    private final Cleaner.Cleanable cleanable = CLEANER.register(this, segments);
+    private boolean closed;
+    long size;
+
+    long size() {
+        return size;
+    }
+
+    long nativeBytes() {
+        return segments.count * SEGMENT_BYTES;
+    }
+
+    // Called for every new segment: the subclass keeps a typed view of it.
+    abstract void addView(ByteBuffer segment);
+
+    static int segment(long index) {
+        return (int) (index >>> SEGMENT_SHIFT);
+    }
+
+    static int slot(long index) {
+        return (int) (index & SEGMENT_MASK);
+    }
+
+    final void checkIndex(long index) {
+        if (closed) throw new IllegalStateException("Vector is closed");
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    // Makes room for one more element and returns its index.
+    final long appendIndex() {
+        if (closed) throw new IllegalStateException("Vector is closed");
+        if (size == (long) segments.count << SEGMENT_SHIFT) {
+            addSegment();
+        }
+        return size++;
+    }
+
+    final void ensureCapacity(long elements) {
+        if (closed) throw new IllegalStateException("Vector is closed");
+        while ((long) segments.count << SEGMENT_SHIFT < elements) {
+            addSegment();
+        }
+    }
+
+    private void addSegment() {
+        if (segments.count == segments.buffers.length) {
+            segments.buffers = Arrays.copyOf(segments.buffers, segments.count * 2);
+        }
+        ByteBuffer segment = ByteBuffer.allocateDirect((int) SEGMENT_BYTES).order(ByteOrder.nativeOrder());
+        segments.buffers[segments.count++] = segment;
+        addView(segment);
+    }
+
+    // Elements from index up to the end of its segment, at most left.
+    static int chunk(long index, long left) {
+        return (int) Math.min(left, SEGMENT_ELEMENTS - (index & SEGMENT_MASK));
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            size = 0;
+            cleanable.clean();
+        }
+    }
+
+    // Frees a direct buffer now; the buffer (and every view of it) must not be used afterwards.
+    static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) return;
+        try {
+            INVOKE_CLEANER.invokeExact(buffer);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+            Field f = unsafe.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafe, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(f.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
+
+final class OffHeapLongVector extends OffHeapVector {
+    private LongBuffer[] views = new LongBuffer[4];
+
+    @Override
+    void addView(ByteBuffer segment) {
+        int n = (int) (nativeBytes() / SEGMENT_BYTES) - 1;
+        if (n == views.length) views = Arrays.copyOf(views, n * 2);
+        views[n] = segment.asLongBuffer();
+    }
+
+    long get(long index) {
+        try {
+            checkIndex(index);
+            return views[segment(index)].get(slot(index));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    void set(long index, long value) {
+        try {
+            checkIndex(index);
+            views[segment(index)].put(slot(index), value);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    void add(long value) {
+        try {
+            long index = appendIndex();
+            views[segment(index)].put(slot(index), value);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    void addAll(long[] src, int off, int len) {
+        Objects.checkFromIndexSize(off, len, src.length);
+        ensureCapacity(size + len);
+        try {
+            for (int done = 0, c; done < len; done += c) {
+                long index = size + done;
+                c = chunk(index, len - done);
+                views[segment(index)].put(slot(index), src, off + done, c);
+            }
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+        size += len;
+    }
+
+    void copyTo(long from, long[] dst, int off, int len) {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        Objects.checkFromIndexSize(from, len, size);
+        try {
+            for (int done = 0, c; done < len; done += c) {
+                long index = from + done;
+                c = chunk(index, len - done);
+                views[segment(index)].get(slot(index), dst, off + done, c);
+            }
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    // Same contract as Arrays.binarySearch: index if found, else -(insertionPoint) - 1.
+    // The vector must be sorted ascending.
+    long binarySearch(long key) {
+        try {
+            long lo = 0, hi = size - 1;
+            while (lo <= hi) {
+                long mid = (lo + hi) >>> 1;
+                long v = views[segment(mid)].get(slot(mid));
+                if (v < key) lo = mid + 1;
+                else if (v > key) hi = mid - 1;
+                else return mid;
+            }
+            return -(lo + 1);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+}
+
+final class OffHeapDoubleVector extends OffHeapVector {
+    private DoubleBuffer[] views = new DoubleBuffer[4];
+
+    @Override
+    void addView(ByteBuffer segment) {
+        int n = (int) (nativeBytes() / SEGMENT_BYTES) - 1;
+        if (n == views.length) views = Arrays.copyOf(views, n * 2);
+        views[n] = segment.asDoubleBuffer();
+    }
+
+    double get(long index) {
+        try {
+            checkIndex(index);
+            return views[segment(index)].get(slot(index));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    void set(long index, double value) {
+        try {
+            checkIndex(index);
+            views[segment(index)].put(slot(index), value);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    void add(double value) {
+        try {
+            long index = appendIndex();
+            views[segment(index)].put(slot(index), value);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    void addAll(double[] src, int off, int len) {
+        Objects.checkFromIndexSize(off, len, src.length);
+        ensureCapacity(size + len);
+        try {
+            for (int done = 0, c; done < len; done += c) {
+                long index = size + done;
+                c = chunk(index, len - done);
+                views[segment(index)].put(slot(index), src, off + done, c);
+            }
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+        size += len;
+    }
+
+    void copyTo(long from, double[] dst, int off, int len) {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        Objects.checkFromIndexSize(from, len, size);
+        try {
+            for (int done = 0, c; done < len; done += c) {
+                long index = from + done;
+                c = chunk(index, len - done);
+                views[segment(index)].get(slot(index), dst, off + done, c);
+            }
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    // Uses Double.compare ordering, like Arrays.binarySearch(double[], double).
+    long binarySearch(double key) {
+        try {
+            long lo = 0, hi = size - 1;
+            while (lo <= hi) {
+                long mid = (lo + hi) >>> 1;
+                int c = Double.compare(views[segment(mid)].get(slot(mid)), key);
+                if (c < 0) lo = mid + 1;
+                else if (c > 0) hi = mid - 1;
+                else return mid;
+            }
+            return -(lo + 1);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+}
+
+class OffHeapVectorDemo {
+    public static void main(String[] args) {
+        long n = args.length > 0 ? Long.parseLong(args[0]) : 50_000_000L;
+
+        try (OffHeapLongVector ids = new OffHeapLongVector()) {
+            long start = System.nanoTime();
+            for (long i = 0; i < n; i++) {
+                ids.add(i * 3 + 7); // sorted transaction ids
+            }
+            System.out.printf("%,d ids, %,d MB off-heap, heap used %,d MB, %.2f s%n", ids.size(),
+                    ids.nativeBytes() >> 20, usedHeapMb(), (System.nanoTime() - start) / 1e9);
+            System.out.println(ids.binarySearch(3 * 12_345_678L + 7)); // 12345678
+            System.out.println(ids.binarySearch(8));                   // -2 (not present, would go at index 1)
+
+            long[] page = new long[5];
+            ids.copyTo(SEGMENT_EDGE - 2, page, 0, 5); // crosses a segment boundary
+            System.out.println(Arrays.toString(page));
+        }
+
+        try (OffHeapDoubleVector prices = new OffHeapDoubleVector()) {
+            prices.addAll(new double[] {10.5, 20.25, 99.99}, 0, 3);
+            prices.set(1, 21.0);
+            System.out.println(prices.get(1) + " " + prices.binarySearch(99.99)); // 21.0 2
+        }
+    }
+
+    private static final long SEGMENT_EDGE = OffHeapVector.SEGMENT_ELEMENTS;
+
+    private static long usedHeapMb() {
+        Runtime rt = Runtime.getRuntime();
+        return (rt.totalMemory() - rt.freeMemory()) >> 20;
+    }
+}
@@ -0,0 +1,168 @@
+// 🔺 Streaming Pattern Renderer (fast version of the pyramid loop in Patterns.java)
+
+// The loop in Patterns.main prints one char at a time with System.out.print → one call per '*'.
+// For big banners (n = 1,000,000 rows) that is billions of calls.
+
+// 👉 Idea: every row of a pyramid is just "some spaces" + "some stars".
+// 👉 Build ONE template once:   [ maxPad spaces ][ maxFill stars ]
+// 👉 Row with p spaces and f stars = template slice starting at (maxPad - p), length p + f.
+//    Adjacent rows only differ at their edges, so no row is ever built char by char.
+
+// Output path:
+// template slice → preallocated direct ByteBuffer → FileChannel.write (NIO) when the buffer is full.
+// Rows bigger than the buffer are written straight from the template (no copy at all).
+
+// 💡 Memory = template (maxPad + maxFill bytes) + one output buffer, no matter how many rows.
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+interface RowShape {
+    int MAX_TEMPLATE = Integer.MAX_VALUE - 8; // largest byte[] most JVMs allow
+
+    long rows();
+    int pad(long row);   // leading pad chars of row (1-based)
+    int fill(long row);  // fill chars of row (1-based)
+    int maxPad();
+    int maxFill();
+
+    // Centered pyramid: row i → (n - i) spaces + (2i - 1) stars
+    static RowShape pyramid(int n) {
+        checkRows(n, (MAX_TEMPLATE + 2) / 3); // template = (n - 1) + (2n - 1) bytes
+        return new RowShape() {
+            public long rows() { return n; }
+            public int pad(long row) { return (int) (n - row); }
+            public int fill(long row) { return (int) (2 * row - 1); }
+            public int maxPad() { return n - 1; }
+            public int maxFill() { return 2 * n - 1; }
+        };
+    }
+
+    // Right triangle: row i → i stars
+    static RowShape triangle(int n) {
+        checkRows(n, MAX_TEMPLATE);
+        return new RowShape() {
+            public long rows() { return n; }
+            public int pad(long row) { return 0; }
+            public int fill(long row) { return (int) row; }
+            public int maxPad() { return 0; }
+            public int maxFill() { return n; }
+        };
+    }
+
+    private static void checkRows(int n, int max) {
+        if (n < 1 || n > max) {
+            throw new IllegalArgumentException("rows must be in [1, " + max + "]: " + n);
+        }
+    }
+}
+
+class PatternRenderer {
+    static final int DEFAULT_BUFFER = 1 << 20; // 1 MB
+
+    private final byte pad;
+    private final byte fill;
+    private final ByteBuffer out;
+
+    PatternRenderer(char pad, char fill, int bufferSize) {
+        if (pad > 0x7F || fill > 0x7F) {
+            throw new IllegalArgumentException("Only ASCII pad/fill chars are supported");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be >= 1: " + bufferSize);
+        }
+        this.pad = (byte) pad;
+        this.fill = (byte) fill;
+        this.out = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    PatternRenderer() {
+        this(' ', '*', DEFAULT_BUFFER);
+    }
+
+    byte[] template(RowShape shape) {
+        int maxPad = shape.maxPad();
+        long size = (long) maxPad + shape.maxFill();
+        if (size > RowShape.MAX_TEMPLATE) {
+            throw new IllegalArgumentException("Template too large: " + size + " bytes");
+        }
+        byte[] t = new byte[(int) size];
+        for (int i = 0; i < maxPad; i++) t[i] = pad;
+        for (int i = maxPad; i < t.length; i++) t[i] = fill;
+        return t;
+    }
+
+    // Returns the number of bytes written.
+    long render(RowShape shape, WritableByteChannel channel) throws IOException {
+        byte[] template = template(shape);
+        int maxPad = shape.maxPad();
+        long written = 0;
+        out.clear();
+        for (long row = 1, rows = shape.rows(); row <= rows; row++) {
+            int p = shape.pad(row);
+            int len = p + shape.fill(row);
+            int from = maxPad - p;
+            if (len + 1 > out.remaining()) {
+                written += flush(channel);
+                if (len + 1 > out.capacity()) {
+                    written += writeFully(channel, ByteBuffer.wrap(template, from, len));
+                    out.put((byte) '\n');
+                    continue;
+                }
+            }
+            out.put(template, from, len).put((byte) '\n');
+        }
+        written += flush(channel);
+        return written;
+    }
+
+    long renderToFile(RowShape shape, Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return render(shape, ch);
+        }
+    }
+
+    private long flush(WritableByteChannel channel) throws IOException {
+        out.flip();
+        long n = writeFully(channel, out);
+        out.clear();
+        return n;
+    }
+
+    private static long writeFully(WritableByteChannel channel, ByteBuffer buf) throws IOException {
+        long n = 0;
+        while (buf.hasRemaining()) {
+            n += channel.write(buf);
+        }
+        return n;
+    }
+
+    public static void main(String[] args) throws IOException {
+        PatternRenderer r = new PatternRenderer();
+
+        // Centered pyramid (the commented loop in Patterns.java pads every row the same), no per-char prints
+        WritableByteChannel console = Channels.newChannel(System.out);
+        r.render(RowShape.pyramid(5), console);
+        r.render(RowShape.triangle(4), console);
+        System.out.flush();
+
+        // Large render only on request: java PatternRenderer <rows> <file>
+        if (args.length < 2) {
+            System.out.println("usage: PatternRenderer <rows> <file>  (streams a pyramid of <rows> rows to <file>)");
+            return;
+        }
+        int n = Integer.parseInt(args[0]);
+        Path file = Path.of(args[1]);
+        long start = System.nanoTime();
+        long bytes = r.renderToFile(RowShape.pyramid(n), file);
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d rows, %d bytes in %.3f s (%.1f MB/s) -> %s%n",
+                n, bytes, secs, bytes / secs / 1e6, file);
+    }
+}
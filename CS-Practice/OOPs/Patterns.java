@@ -1,10 +1,25 @@
+import java.util.Objects;
+
 class Patterns<T> {
-    T data;
+    // Opt-in flyweights (see Flyweights.java): Patterns.of(v) returns one shared instance per value.
+    private static final Interner<Object, Patterns<?>> INTERNER = new WeakInterner<>(Patterns::new);
+
+    final T data; // final: interned instances are shared, nobody may change them
 
     Patterns(T d) {
         data = d;
     }
 
+    @SuppressWarnings("unchecked")
+    static <T> Patterns<T> of(T d) {
+        Objects.requireNonNull(d, "Patterns.of(null): null values are not interned, use new Patterns<>(null)");
+        return (Patterns<T>) INTERNER.intern(d);
+    }
+
+    static Interner<Object, Patterns<?>> interner() {
+        return INTERNER;
+    }
+
     void show(){
         System.out.println("This is "+data);
     }
@@ -0,0 +1,615 @@
+// 🌳 Persistent hash map (HAMT) with structural sharing → O(1) snapshots
+
+// CollectionsInJava.java: HashMap → O(1) get/put, but it is mutable.
+// A consistent point-in-time snapshot of an account map = new HashMap<>(map) → O(n) copy every time.
+
+// ✅ PersistentHashMap (Hash Array Mapped Trie)
+//  The key's hash is cut into 5-bit pieces → each level is a node with up to 32 children.
+//  Each node stores a 32-bit bitmap + a compact array (no empty slots):
+//    slot index = Integer.bitCount(bitmap & (bit - 1))
+//  plus(k, v) / minus(k) copy only the path root → leaf (≤ 7 nodes) → O(log32 n).
+//  Everything else is shared with the old version → the old version stays valid and unchanged.
+//  Snapshot = keep the reference → O(1), no copying.
+
+// ✅ Transient builder for batch updates:
+//  Nodes created by one builder carry its "edit" token → the builder may change them in place.
+//  persistent() drops the token → from then on those nodes are immutable like all others.
+
+// Map view is read-only (put/remove from java.util.Map throw UnsupportedOperationException).
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+    private static final Object NOT_FOUND = new Object();
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+    private Set<Entry<K, V>> entrySet;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        return PersistentHashMap.<K, V>empty().plusAll(map);
+    }
+
+    PersistentHashMap<K, V> plus(K key, V value) {
+        Change change = new Change();
+        Node newRoot = root.update(null, key, value, hash(key), 0, change);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + change.sizeDelta);
+    }
+
+    PersistentHashMap<K, V> minus(Object key) {
+        Change change = new Change();
+        Node newRoot = root.remove(null, key, hash(key), 0, change);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + change.sizeDelta);
+    }
+
+    PersistentHashMap<K, V> plusAll(Map<? extends K, ? extends V> map) {
+        Builder<K, V> b = toBuilder();
+        map.forEach(b::put);
+        return b.persistent();
+    }
+
+    Builder<K, V> toBuilder() {
+        return new Builder<>(root, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root.find(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object v = root.find(key, hash(key), 0);
+        return v == NOT_FOUND ? null : (V) v;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        Object v = root.find(key, hash(key), 0);
+        return v == NOT_FOUND ? defaultValue : (V) v;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> es = entrySet;
+        if (es == null) {
+            entrySet = es = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new TrieIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Entry)) return false;
+                    Entry<?, ?> e = (Entry<?, ?>) o;
+                    Object v = root.find(e.getKey(), hash(e.getKey()), 0);
+                    return v != NOT_FOUND && Objects.equals(v, e.getValue());
+                }
+            };
+        }
+        return es;
+    }
+
+    static int hash(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // Mutable builder; not thread-safe. Unusable after persistent().
+    static final class Builder<K, V> {
+        private Object edit = new Object();
+        private Node root;
+        private int size;
+
+        private Builder(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        Builder<K, V> put(K key, V value) {
+            Change change = new Change();
+            root = root.update(edit(), key, value, hash(key), 0, change);
+            size += change.sizeDelta;
+            return this;
+        }
+
+        Builder<K, V> remove(Object key) {
+            Change change = new Change();
+            root = root.remove(edit(), key, hash(key), 0, change);
+            size += change.sizeDelta;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(Object key) {
+            edit();
+            Object v = root.find(key, hash(key), 0);
+            return v == NOT_FOUND ? null : (V) v;
+        }
+
+        int size() {
+            return size;
+        }
+
+        PersistentHashMap<K, V> persistent() {
+            edit();
+            edit = null;
+            return new PersistentHashMap<>(root, size);
+        }
+
+        private Object edit() {
+            if (edit == null) throw new IllegalStateException("Builder already made persistent");
+            return edit;
+        }
+    }
+
+    // ---------------------------------------------------------------- trie nodes
+
+    private static final class Change {
+        int sizeDelta;
+    }
+
+    private abstract static class Node {
+        abstract Object find(Object key, int hash, int shift);
+
+        abstract Node update(Object edit, Object key, Object value, int hash, int shift, Change change);
+
+        abstract Node remove(Object edit, Object key, int hash, int shift, Change change);
+
+        abstract int payloadArity();
+
+        abstract Object key(int i);
+
+        abstract Object value(int i);
+
+        abstract int nodeArity();
+
+        abstract Node node(int i);
+
+        // Only one entry and no children → the parent inlines it.
+        final boolean isSingleton() {
+            return payloadArity() == 1 && nodeArity() == 0;
+        }
+    }
+
+    // Data entries [k0, v0, k1, v1, ...] first, child nodes at the end in reverse bit order.
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, 0, new Object[0]);
+
+        final Object edit;
+        int dataMap;
+        int nodeMap;
+        Object[] array;
+
+        BitmapNode(Object edit, int dataMap, int nodeMap, Object[] array) {
+            this.edit = edit;
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.array = array;
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return array.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit) << 1;
+                return Objects.equals(key, array[i]) ? array[i + 1] : NOT_FOUND;
+            }
+            if ((nodeMap & bit) != 0) {
+                return ((Node) array[nodeIndex(bit)]).find(key, hash, shift + 5);
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node update(Object edit, Object key, Object value, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit) << 1;
+                Object existing = array[i];
+                if (Objects.equals(key, existing)) {
+                    return array[i + 1] == value ? this : withSlot(edit, i + 1, value);
+                }
+                Node child = merge(edit, existing, array[i + 1], hash(existing), key, value, hash, shift + 5);
+                change.sizeDelta = 1;
+                return dataToNode(edit, bit, child);
+            }
+            if ((nodeMap & bit) != 0) {
+                int i = nodeIndex(bit);
+                Node child = (Node) array[i];
+                Node updated = child.update(edit, key, value, hash, shift + 5, change);
+                return updated == child ? this : withSlot(edit, i, updated);
+            }
+            change.sizeDelta = 1;
+            return insertData(edit, bit, key, value);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit) << 1;
+                if (!Objects.equals(key, array[i])) {
+                    return this;
+                }
+                change.sizeDelta = -1;
+                return removeData(edit, bit);
+            }
+            if ((nodeMap & bit) != 0) {
+                int i = nodeIndex(bit);
+                Node child = (Node) array[i];
+                Node updated = child.remove(edit, key, hash, shift + 5, change);
+                if (updated == child) {
+                    return this;
+                }
+                if (updated.isSingleton()) {
+                    if (dataMap == 0 && Integer.bitCount(nodeMap) == 1) {
+                        // Only child collapsed to one entry → this node collapses too.
+                        return new BitmapNode(edit, bit, 0, new Object[] {updated.key(0), updated.value(0)});
+                    }
+                    return nodeToData(edit, bit, updated.key(0), updated.value(0));
+                }
+                return withSlot(edit, i, updated);
+            }
+            return this;
+        }
+
+        private static Node merge(Object edit, Object k1, Object v1, int h1, Object k2, Object v2, int h2, int shift) {
+            if (shift >= 32) {
+                return new CollisionNode(edit, h1, new Object[] {k1, v1, k2, v2});
+            }
+            int b1 = bit(h1, shift), b2 = bit(h2, shift);
+            if (b1 == b2) {
+                return new BitmapNode(edit, 0, b1, new Object[] {merge(edit, k1, v1, h1, k2, v2, h2, shift + 5)});
+            }
+            Object[] arr = Integer.compareUnsigned(b1, b2) < 0
+                    ? new Object[] {k1, v1, k2, v2}
+                    : new Object[] {k2, v2, k1, v1};
+            return new BitmapNode(edit, b1 | b2, 0, arr);
+        }
+
+        private boolean owned(Object edit) {
+            return edit != null && edit == this.edit;
+        }
+
+        private BitmapNode withSlot(Object edit, int i, Object value) {
+            if (owned(edit)) {
+                array[i] = value;
+                return this;
+            }
+            Object[] copy = array.clone();
+            copy[i] = value;
+            return new BitmapNode(edit, dataMap, nodeMap, copy);
+        }
+
+        private BitmapNode with(Object edit, int dataMap, int nodeMap, Object[] array) {
+            if (owned(edit)) {
+                this.dataMap = dataMap;
+                this.nodeMap = nodeMap;
+                this.array = array;
+                return this;
+            }
+            return new BitmapNode(edit, dataMap, nodeMap, array);
+        }
+
+        private BitmapNode insertData(Object edit, int bit, Object key, Object value) {
+            int i = dataIndex(bit) << 1;
+            Object[] arr = new Object[array.length + 2];
+            System.arraycopy(array, 0, arr, 0, i);
+            arr[i] = key;
+            arr[i + 1] = value;
+            System.arraycopy(array, i, arr, i + 2, array.length - i);
+            return with(edit, dataMap | bit, nodeMap, arr);
+        }
+
+        private BitmapNode removeData(Object edit, int bit) {
+            int i = dataIndex(bit) << 1;
+            Object[] arr = new Object[array.length - 2];
+            System.arraycopy(array, 0, arr, 0, i);
+            System.arraycopy(array, i + 2, arr, i, array.length - i - 2);
+            return with(edit, dataMap & ~bit, nodeMap, arr);
+        }
+
+        // Entry at 'bit' moves down into a new child node.
+        private BitmapNode dataToNode(Object edit, int bit, Node child) {
+            int from = dataIndex(bit) << 1;
+            int to = array.length - 2 - Integer.bitCount(nodeMap & (bit - 1)); // index after removing 2
+            Object[] arr = new Object[array.length - 1];
+            System.arraycopy(array, 0, arr, 0, from);
+            System.arraycopy(array, from + 2, arr, from, to - from);
+            arr[to] = child;
+            System.arraycopy(array, to + 2, arr, to + 1, array.length - to - 2);
+            return with(edit, dataMap & ~bit, nodeMap | bit, arr);
+        }
+
+        // Child at 'bit' collapsed to a single entry → pull it up inline.
+        private BitmapNode nodeToData(Object edit, int bit, Object key, Object value) {
+            int from = nodeIndex(bit);
+            int to = Integer.bitCount(dataMap & (bit - 1)) << 1;
+            Object[] arr = new Object[array.length + 1];
+            System.arraycopy(array, 0, arr, 0, to);
+            arr[to] = key;
+            arr[to + 1] = value;
+            System.arraycopy(array, to, arr, to + 2, from - to);
+            System.arraycopy(array, from + 1, arr, from + 2, array.length - from - 1);
+            return with(edit, dataMap | bit, nodeMap & ~bit, arr);
+        }
+
+        @Override
+        int payloadArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        Object key(int i) {
+            return array[i << 1];
+        }
+
+        @Override
+        Object value(int i) {
+            return array[(i << 1) + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Node node(int i) {
+            return (Node) array[array.length - 1 - i];
+        }
+    }
+
+    // Keys whose full 32-bit hashes are equal → plain list [k0, v0, k1, v1, ...].
+    private static final class CollisionNode extends Node {
+        final Object edit;
+        final int hash;
+        Object[] array;
+
+        CollisionNode(Object edit, int hash, Object[] array) {
+            this.edit = edit;
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (Objects.equals(key, array[i])) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int i = indexOf(key);
+            return i < 0 ? NOT_FOUND : array[i + 1];
+        }
+
+        @Override
+        Node update(Object edit, Object key, Object value, int hash, int shift, Change change) {
+            int i = indexOf(key);
+            Object[] arr;
+            if (i >= 0) {
+                if (array[i + 1] == value) return this;
+                arr = array.clone();
+                arr[i + 1] = value;
+            } else {
+                arr = Arrays.copyOf(array, array.length + 2);
+                arr[array.length] = key;
+                arr[array.length + 1] = value;
+                change.sizeDelta = 1;
+            }
+            if (edit != null && edit == this.edit) {
+                array = arr;
+                return this;
+            }
+            return new CollisionNode(edit, this.hash, arr);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change) {
+            int i = indexOf(key);
+            if (i < 0) return this;
+            change.sizeDelta = -1;
+            Object[] arr = new Object[array.length - 2];
+            System.arraycopy(array, 0, arr, 0, i);
+            System.arraycopy(array, i + 2, arr, i, array.length - i - 2);
+            if (edit != null && edit == this.edit) {
+                array = arr;
+                return this;
+            }
+            return new CollisionNode(edit, this.hash, arr);
+        }
+
+        @Override
+        int payloadArity() {
+            return array.length >> 1;
+        }
+
+        @Override
+        Object key(int i) {
+            return array[i << 1];
+        }
+
+        @Override
+        Object value(int i) {
+            return array[(i << 1) + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        Node node(int i) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    // Depth-first walk; the stack depth is bounded by the trie height (≤ 8 levels).
+    private static final class TrieIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final Node[] nodes = new Node[9];
+        private final int[] nextChild = new int[9];
+        private int depth;
+        private Node current;
+        private int payload, payloadIndex;
+
+        TrieIterator(Node root) {
+            nodes[0] = root;
+            enter(root);
+            advance();
+        }
+
+        private void enter(Node n) {
+            current = n;
+            payload = n.payloadArity();
+            payloadIndex = 0;
+        }
+
+        // Moves until 'current' has an unread entry, or the walk is done.
+        private void advance() {
+            while (payloadIndex == payload) {
+                Node top = nodes[depth];
+                if (nextChild[depth] < top.nodeArity()) {
+                    Node child = top.node(nextChild[depth]++);
+                    depth++;
+                    nodes[depth] = child;
+                    nextChild[depth] = 0;
+                    enter(child);
+                } else if (depth == 0) {
+                    current = null;
+                    return;
+                } else {
+                    nodes[depth--] = null;
+                    payload = payloadIndex = 0;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (current == null) throw new NoSuchElementException();
+            int i = payloadIndex++;
+            Entry<K, V> e = new SimpleImmutableEntry<>((K) current.key(i), (V) current.value(i));
+            advance();
+            return e;
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        PersistentHashMap<String, Long> v1 = PersistentHashMap.<String, Long>empty()
+                .plus("ACC-1", 100L).plus("ACC-2", 250L);
+        PersistentHashMap<String, Long> v2 = v1.plus("ACC-1", 90L).minus("ACC-2").plus("ACC-3", 5L);
+        System.out.println(v1 + " " + v2); // old version unchanged
+
+        // Build with a transient builder
+        long start = System.nanoTime();
+        Builder<Long, Long> b = PersistentHashMap.<Long, Long>empty().toBuilder();
+        for (long i = 0; i < n; i++) b.put(i, i * 10);
+        PersistentHashMap<Long, Long> accounts = b.persistent();
+        System.out.printf("built %,d entries with builder in %d ms%n", accounts.size(), (System.nanoTime() - start) / 1_000_000);
+
+        // Snapshot + updates: the snapshot keeps its values
+        start = System.nanoTime();
+        PersistentHashMap<Long, Long> snapshot = accounts;
+        long snapNanos = System.nanoTime() - start;
+        for (long i = 0; i < 1000; i++) accounts = accounts.plus(i, -1L);
+        System.out.println("snapshot " + snapshot.get(5L) + ", live " + accounts.get(5L)); // 50, -1
+
+        Map<Long, Long> hashMap = new HashMap<>(accounts);
+        start = System.nanoTime();
+        Map<Long, Long> copy = new HashMap<>(hashMap);
+        System.out.printf("snapshot: %d ns (persistent) vs %d ms (HashMap copy of %,d)%n",
+                snapNanos, (System.nanoTime() - start) / 1_000_000, copy.size());
+
+        // Cross-check against HashMap with random puts/removes, including hash collisions
+        Random rnd = new Random(11);
+        PersistentHashMap<Object, Integer> p = empty();
+        Map<Object, Integer> ref = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            Object key = rnd.nextBoolean() ? (Object) rnd.nextInt(5000) : new Collider(rnd.nextInt(50));
+            if (rnd.nextInt(3) == 0) {
+                p = p.minus(key);
+                ref.remove(key);
+            } else {
+                p = p.plus(key, i);
+                ref.put(key, i);
+            }
+        }
+        System.out.println("matches HashMap: " + (p.equals(ref) && ref.equals(p) && p.size() == ref.size()));
+    }
+
+    // Test key: only 4 distinct hash codes → forces collision nodes.
+    private static final class Collider {
+        final int id;
+
+        Collider(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Collider && ((Collider) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 4;
+        }
+    }
+}
@@ -0,0 +1,1127 @@
+// 🔢 Primitive-specialized collections (the cost of Type Erasure from Generics.java)
+
+// List<Integer> and List<String> erase to the same class → elements are always Objects.
+// So every int in a List<Integer> / Set<Integer> / Map<Integer,Integer> is a boxed Integer:
+
+//   ArrayList<Integer>          → 4-8 bytes ref + 16 bytes Integer          ≈ 20-24 bytes / element
+//   HashSet<Integer>            → HashMap.Node (32) + Integer (16) + slot   ≈ 50+ bytes / element
+//   HashMap<Integer,Integer>    → Node (32) + 2 Integers (32) + slot        ≈ 70+ bytes / entry
+
+// ✅ Specialized versions store the raw values in int[] / long[]:
+
+//   IntArrayList / LongArrayList        → 4 / 8 bytes per element
+//   IntHashSet / LongHashSet            → ~6 / ~12 bytes per element (open addressing, load 0.65)
+//   IntIntHashMap / LongLongHashMap     → ~12 / ~25 bytes per entry
+
+// They still implement List / Set / Map, so they can be passed to any code expecting the
+// standard interfaces (boxing happens only on those generic calls).
+// Hot loops use the primitive methods: getInt, addInt, containsInt, get(int), put(int, int)...
+
+// Hash tables: linear probing, key 0 stored in a separate flag (0 marks an empty slot),
+// removal by backward shift → no tombstones, lookups stay short after many removes.
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeMap;
+
+final class PrimitiveHash {
+    static final float LOAD_FACTOR = 0.65f;
+
+    private PrimitiveHash() {}
+
+    static int mix(int k) {
+        int h = k * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long k) {
+        long h = k * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    static int capacityFor(int expected) {
+        int cap = Integer.highestOneBit(Math.max(2, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+        if (cap <= 0) {
+            throw new IllegalArgumentException("Too many elements: " + expected);
+        }
+        return Math.max(cap, 8);
+    }
+
+    static int resizeAt(int capacity) {
+        return Math.min(capacity - 1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    // Can the key at slot i (home slot 'home') be moved back into 'gap'?
+    static boolean canShift(int gap, int i, int home) {
+        return gap <= i ? (home <= gap || home > i) : (home <= gap && home > i);
+    }
+}
+
+// ---------------------------------------------------------------- lists
+
+final class IntArrayList extends AbstractList<Integer> implements RandomAccess {
+    private int[] data;
+    private int size;
+
+    IntArrayList() {
+        this(10);
+    }
+
+    IntArrayList(int initialCapacity) {
+        data = new int[initialCapacity];
+    }
+
+    int getInt(int index) {
+        Objects.checkIndex(index, size);
+        return data[index];
+    }
+
+    int setInt(int index, int value) {
+        Objects.checkIndex(index, size);
+        int old = data[index];
+        data[index] = value;
+        return old;
+    }
+
+    void addInt(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, Math.max(8, size + (size >> 1)));
+        }
+        data[size++] = value;
+        modCount++;
+    }
+
+    void addInt(int index, int value) {
+        Objects.checkIndex(index, size + 1);
+        addInt(0);
+        System.arraycopy(data, index, data, index + 1, size - 1 - index);
+        data[index] = value;
+    }
+
+    int removeIntAt(int index) {
+        Objects.checkIndex(index, size);
+        int old = data[index];
+        System.arraycopy(data, index + 1, data, index, size - 1 - index);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    int indexOfInt(int value) {
+        for (int i = 0; i < size; i++) {
+            if (data[i] == value) return i;
+        }
+        return -1;
+    }
+
+    int[] toIntArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    @Override public Integer get(int index) { return getInt(index); }
+    @Override public Integer set(int index, Integer value) { return setInt(index, value); }
+    @Override public void add(int index, Integer value) { addInt(index, value); }
+    @Override public Integer remove(int index) { return removeIntAt(index); }
+    @Override public int size() { return size; }
+    @Override public void clear() { size = 0; modCount++; }
+
+    @Override
+    public boolean add(Integer value) {
+        addInt(value);
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof Integer ? indexOfInt((Integer) o) : -1;
+    }
+}
+
+final class LongArrayList extends AbstractList<Long> implements RandomAccess {
+    private long[] data;
+    private int size;
+
+    LongArrayList() {
+        this(10);
+    }
+
+    LongArrayList(int initialCapacity) {
+        data = new long[initialCapacity];
+    }
+
+    long getLong(int index) {
+        Objects.checkIndex(index, size);
+        return data[index];
+    }
+
+    long setLong(int index, long value) {
+        Objects.checkIndex(index, size);
+        long old = data[index];
+        data[index] = value;
+        return old;
+    }
+
+    void addLong(long value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, Math.max(8, size + (size >> 1)));
+        }
+        data[size++] = value;
+        modCount++;
+    }
+
+    void addLong(int index, long value) {
+        Objects.checkIndex(index, size + 1);
+        addLong(0);
+        System.arraycopy(data, index, data, index + 1, size - 1 - index);
+        data[index] = value;
+    }
+
+    long removeLongAt(int index) {
+        Objects.checkIndex(index, size);
+        long old = data[index];
+        System.arraycopy(data, index + 1, data, index, size - 1 - index);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    int indexOfLong(long value) {
+        for (int i = 0; i < size; i++) {
+            if (data[i] == value) return i;
+        }
+        return -1;
+    }
+
+    long[] toLongArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    @Override public Long get(int index) { return getLong(index); }
+    @Override public Long set(int index, Long value) { return setLong(index, value); }
+    @Override public void add(int index, Long value) { addLong(index, value); }
+    @Override public Long remove(int index) { return removeLongAt(index); }
+    @Override public int size() { return size; }
+    @Override public void clear() { size = 0; modCount++; }
+
+    @Override
+    public boolean add(Long value) {
+        addLong(value);
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof Long ? indexOfLong((Long) o) : -1;
+    }
+}
+
+// ---------------------------------------------------------------- sets
+
+final class IntHashSet extends AbstractSet<Integer> {
+    private int[] keys; // 0 = empty slot
+    private boolean hasZero;
+    private int size;   // keys in the table, not counting zero
+    private int mask;
+    private int resizeAt;
+    private int modCount;
+
+    IntHashSet() {
+        this(16);
+    }
+
+    IntHashSet(int expectedSize) {
+        allocate(PrimitiveHash.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHash.resizeAt(capacity);
+    }
+
+    boolean addInt(int key) {
+        if (key == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            modCount++;
+            return true;
+        }
+        int i = PrimitiveHash.mix(key) & mask;
+        for (int k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return false;
+        }
+        keys[i] = key;
+        modCount++;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    boolean containsInt(int key) {
+        if (key == 0) return hasZero;
+        int i = PrimitiveHash.mix(key) & mask;
+        for (int k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return true;
+        }
+        return false;
+    }
+
+    boolean removeInt(int key) {
+        if (key == 0) {
+            boolean had = hasZero;
+            hasZero = false;
+            modCount++;
+            return had;
+        }
+        int i = PrimitiveHash.mix(key) & mask;
+        for (int k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) {
+                removeSlot(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeSlot(int gap) {
+        keys[gap] = 0;
+        size--;
+        modCount++;
+        for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (PrimitiveHash.canShift(gap, i, PrimitiveHash.mix(keys[i]) & mask)) {
+                keys[gap] = keys[i];
+                keys[i] = 0;
+                gap = i;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] old = keys;
+        allocate(capacity);
+        for (int k : old) {
+            if (k != 0) {
+                int i = PrimitiveHash.mix(k) & mask;
+                while (keys[i] != 0) i = (i + 1) & mask;
+                keys[i] = k;
+            }
+        }
+    }
+
+    @Override public int size() { return size + (hasZero ? 1 : 0); }
+    @Override public boolean add(Integer k) { return addInt(k); }
+    @Override public boolean contains(Object o) { return o instanceof Integer && containsInt((Integer) o); }
+    @Override public boolean remove(Object o) { return o instanceof Integer && removeInt((Integer) o); }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+        hasZero = false;
+        modCount++;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            // Start right after an empty slot: no probe cluster crosses the start,
+            // so a backward shift during remove() never moves an already-visited key.
+            int slot = startSlot();
+            int remaining = keys.length;
+            boolean zeroPending = hasZero;
+            int last = -2; // -1 = the zero key
+            int expectedMod = modCount;
+
+            private int startSlot() {
+                int i = 0;
+                while (keys[i] != 0) i++;
+                return (i + 1) & mask;
+            }
+
+            public boolean hasNext() {
+                if (zeroPending) return true;
+                while (remaining > 0 && keys[slot] == 0) {
+                    slot = (slot + 1) & mask;
+                    remaining--;
+                }
+                return remaining > 0;
+            }
+
+            public int nextInt() {
+                if (expectedMod != modCount) throw new ConcurrentModificationException();
+                if (!hasNext()) throw new NoSuchElementException();
+                if (zeroPending) {
+                    zeroPending = false;
+                    last = -1;
+                    return 0;
+                }
+                last = slot;
+                int k = keys[slot];
+                slot = (slot + 1) & mask;
+                remaining--;
+                return k;
+            }
+
+            public void remove() {
+                if (last == -2) throw new IllegalStateException();
+                if (expectedMod != modCount) throw new ConcurrentModificationException();
+                if (last == -1) {
+                    hasZero = false;
+                    modCount++;
+                } else {
+                    removeSlot(last);
+                    if (keys[last] != 0) { // a later key was shifted into the visited slot
+                        slot = last;
+                        remaining++;
+                    }
+                }
+                expectedMod = modCount;
+                last = -2;
+            }
+        };
+    }
+}
+
+final class LongHashSet extends AbstractSet<Long> {
+    private long[] keys; // 0 = empty slot
+    private boolean hasZero;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    private int modCount;
+
+    LongHashSet() {
+        this(16);
+    }
+
+    LongHashSet(int expectedSize) {
+        allocate(PrimitiveHash.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHash.resizeAt(capacity);
+    }
+
+    boolean addLong(long key) {
+        if (key == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            modCount++;
+            return true;
+        }
+        int i = PrimitiveHash.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return false;
+        }
+        keys[i] = key;
+        modCount++;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    boolean containsLong(long key) {
+        if (key == 0) return hasZero;
+        int i = PrimitiveHash.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return true;
+        }
+        return false;
+    }
+
+    boolean removeLong(long key) {
+        if (key == 0) {
+            boolean had = hasZero;
+            hasZero = false;
+            modCount++;
+            return had;
+        }
+        int i = PrimitiveHash.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) {
+                removeSlot(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeSlot(int gap) {
+        keys[gap] = 0;
+        size--;
+        modCount++;
+        for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (PrimitiveHash.canShift(gap, i, PrimitiveHash.mix(keys[i]) & mask)) {
+                keys[gap] = keys[i];
+                keys[i] = 0;
+                gap = i;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        for (long k : old) {
+            if (k != 0) {
+                int i = PrimitiveHash.mix(k) & mask;
+                while (keys[i] != 0) i = (i + 1) & mask;
+                keys[i] = k;
+            }
+        }
+    }
+
+    @Override public int size() { return size + (hasZero ? 1 : 0); }
+    @Override public boolean add(Long k) { return addLong(k); }
+    @Override public boolean contains(Object o) { return o instanceof Long && containsLong((Long) o); }
+    @Override public boolean remove(Object o) { return o instanceof Long && removeLong((Long) o); }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+        hasZero = false;
+        modCount++;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            int slot = startSlot();
+            int remaining = keys.length;
+            boolean zeroPending = hasZero;
+            int last = -2;
+            int expectedMod = modCount;
+
+            private int startSlot() {
+                int i = 0;
+                while (keys[i] != 0) i++;
+                return (i + 1) & mask;
+            }
+
+            public boolean hasNext() {
+                if (zeroPending) return true;
+                while (remaining > 0 && keys[slot] == 0) {
+                    slot = (slot + 1) & mask;
+                    remaining--;
+                }
+                return remaining > 0;
+            }
+
+            public long nextLong() {
+                if (expectedMod != modCount) throw new ConcurrentModificationException();
+                if (!hasNext()) throw new NoSuchElementException();
+                if (zeroPending) {
+                    zeroPending = false;
+                    last = -1;
+                    return 0;
+                }
+                last = slot;
+                long k = keys[slot];
+                slot = (slot + 1) & mask;
+                remaining--;
+                return k;
+            }
+
+            public void remove() {
+                if (last == -2) throw new IllegalStateException();
+                if (expectedMod != modCount) throw new ConcurrentModificationException();
+                if (last == -1) {
+                    hasZero = false;
+                    modCount++;
+                } else {
+                    removeSlot(last);
+                    if (keys[last] != 0) {
+                        slot = last;
+                        remaining++;
+                    }
+                }
+                expectedMod = modCount;
+                last = -2;
+            }
+        };
+    }
+}
+
+// ---------------------------------------------------------------- maps
+
+final class IntIntHashMap extends AbstractMap<Integer, Integer> {
+    private final int missingValue;
+    private int[] keys; // 0 = empty slot
+    private int[] values;
+    private boolean hasZeroKey;
+    private int zeroValue;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    private int modCount;
+
+    IntIntHashMap() {
+        this(16, 0);
+    }
+
+    // missingValue is what get(int) returns for absent keys
+    IntIntHashMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(PrimitiveHash.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHash.resizeAt(capacity);
+    }
+
+    int missingValue() {
+        return missingValue;
+    }
+
+    int get(int key) {
+        if (key == 0) return hasZeroKey ? zeroValue : missingValue;
+        int i = PrimitiveHash.mix(key) & mask;
+        for (int k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return values[i];
+        }
+        return missingValue;
+    }
+
+    boolean containsKey(int key) {
+        if (key == 0) return hasZeroKey;
+        int i = PrimitiveHash.mix(key) & mask;
+        for (int k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return true;
+        }
+        return false;
+    }
+
+    // Returns the previous value, or missingValue if the key was absent.
+    int put(int key, int value) {
+        if (key == 0) {
+            int old = hasZeroKey ? zeroValue : missingValue;
+            if (!hasZeroKey) modCount++;
+            hasZeroKey = true;
+            zeroValue = value;
+            return old;
+        }
+        int i = PrimitiveHash.mix(key) & mask;
+        for (int k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) {
+                int old = values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        modCount++;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    // Adds delta to the value (absent counts as 0) and returns the new value.
+    int addTo(int key, int delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                zeroValue = 0;
+                modCount++;
+            }
+            return zeroValue += delta;
+        }
+        int i = PrimitiveHash.mix(key) & mask;
+        for (int k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return values[i] += delta;
+        }
+        keys[i] = key;
+        values[i] = delta;
+        modCount++;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    int remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) return missingValue;
+            hasZeroKey = false;
+            modCount++;
+            return zeroValue;
+        }
+        int i = PrimitiveHash.mix(key) & mask;
+        for (int k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) {
+                int old = values[i];
+                removeSlot(i);
+                return old;
+            }
+        }
+        return missingValue;
+    }
+
+    private void removeSlot(int gap) {
+        keys[gap] = 0;
+        size--;
+        modCount++;
+        for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (PrimitiveHash.canShift(gap, i, PrimitiveHash.mix(keys[i]) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                keys[i] = 0;
+                gap = i;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys, oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            int k = oldKeys[j];
+            if (k != 0) {
+                int i = PrimitiveHash.mix(k) & mask;
+                while (keys[i] != 0) i = (i + 1) & mask;
+                keys[i] = k;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @Override public int size() { return size + (hasZeroKey ? 1 : 0); }
+    @Override public boolean containsKey(Object k) { return k instanceof Integer && containsKey((int) (Integer) k); }
+
+    @Override
+    public Integer get(Object k) {
+        return k instanceof Integer && containsKey((int) (Integer) k) ? get((int) (Integer) k) : null;
+    }
+
+    @Override
+    public Integer put(Integer k, Integer v) {
+        boolean had = containsKey((int) k);
+        int old = put((int) k, (int) v);
+        return had ? old : null;
+    }
+
+    @Override
+    public Integer remove(Object k) {
+        if (!(k instanceof Integer) || !containsKey((int) (Integer) k)) return null;
+        return remove((int) (Integer) k);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+        hasZeroKey = false;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, Integer>> entrySet() {
+        return new AbstractSet<>() {
+            @Override public int size() { return IntIntHashMap.this.size(); }
+            @Override public void clear() { IntIntHashMap.this.clear(); }
+
+            @Override
+            public Iterator<Map.Entry<Integer, Integer>> iterator() {
+                return new Iterator<>() {
+                    int slot = startSlot();
+                    int remaining = keys.length;
+                    boolean zeroPending = hasZeroKey;
+                    int last = -2;
+                    int expectedMod = modCount;
+
+                    private int startSlot() {
+                        int i = 0;
+                        while (keys[i] != 0) i++;
+                        return (i + 1) & mask;
+                    }
+
+                    public boolean hasNext() {
+                        if (zeroPending) return true;
+                        while (remaining > 0 && keys[slot] == 0) {
+                            slot = (slot + 1) & mask;
+                            remaining--;
+                        }
+                        return remaining > 0;
+                    }
+
+                    public Map.Entry<Integer, Integer> next() {
+                        if (expectedMod != modCount) throw new ConcurrentModificationException();
+                        if (!hasNext()) throw new NoSuchElementException();
+                        if (zeroPending) {
+                            zeroPending = false;
+                            last = -1;
+                            return new SimpleEntry<>(0, zeroValue) {
+                                @Override
+                                public Integer setValue(Integer v) {
+                                    zeroValue = v;
+                                    return super.setValue(v);
+                                }
+                            };
+                        }
+                        last = slot;
+                        int s = slot;
+                        slot = (slot + 1) & mask;
+                        remaining--;
+                        return new SimpleEntry<>(keys[s], values[s]) {
+                            @Override
+                            public Integer setValue(Integer v) {
+                                values[s] = v;
+                                return super.setValue(v);
+                            }
+                        };
+                    }
+
+                    public void remove() {
+                        if (last == -2) throw new IllegalStateException();
+                        if (expectedMod != modCount) throw new ConcurrentModificationException();
+                        if (last == -1) {
+                            hasZeroKey = false;
+                            modCount++;
+                        } else {
+                            removeSlot(last);
+                            if (keys[last] != 0) {
+                                slot = last;
+                                remaining++;
+                            }
+                        }
+                        expectedMod = modCount;
+                        last = -2;
+                    }
+                };
+            }
+        };
+    }
+}
+
+final class LongLongHashMap extends AbstractMap<Long, Long> {
+    private final long missingValue;
+    private long[] keys; // 0 = empty slot
+    private long[] values;
+    private boolean hasZeroKey;
+    private long zeroValue;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    private int modCount;
+
+    LongLongHashMap() {
+        this(16, 0);
+    }
+
+    LongLongHashMap(int expectedSize, long missingValue) {
+        this.missingValue = missingValue;
+        allocate(PrimitiveHash.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHash.resizeAt(capacity);
+    }
+
+    long missingValue() {
+        return missingValue;
+    }
+
+    long get(long key) {
+        if (key == 0) return hasZeroKey ? zeroValue : missingValue;
+        int i = PrimitiveHash.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return values[i];
+        }
+        return missingValue;
+    }
+
+    boolean containsKey(long key) {
+        if (key == 0) return hasZeroKey;
+        int i = PrimitiveHash.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return true;
+        }
+        return false;
+    }
+
+    long put(long key, long value) {
+        if (key == 0) {
+            long old = hasZeroKey ? zeroValue : missingValue;
+            if (!hasZeroKey) modCount++;
+            hasZeroKey = true;
+            zeroValue = value;
+            return old;
+        }
+        int i = PrimitiveHash.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) {
+                long old = values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        modCount++;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    long addTo(long key, long delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                zeroValue = 0;
+                modCount++;
+            }
+            return zeroValue += delta;
+        }
+        int i = PrimitiveHash.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return values[i] += delta;
+        }
+        keys[i] = key;
+        values[i] = delta;
+        modCount++;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    long remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) return missingValue;
+            hasZeroKey = false;
+            modCount++;
+            return zeroValue;
+        }
+        int i = PrimitiveHash.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) {
+                long old = values[i];
+                removeSlot(i);
+                return old;
+            }
+        }
+        return missingValue;
+    }
+
+    private void removeSlot(int gap) {
+        keys[gap] = 0;
+        size--;
+        modCount++;
+        for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (PrimitiveHash.canShift(gap, i, PrimitiveHash.mix(keys[i]) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                keys[i] = 0;
+                gap = i;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys, oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k != 0) {
+                int i = PrimitiveHash.mix(k) & mask;
+                while (keys[i] != 0) i = (i + 1) & mask;
+                keys[i] = k;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @Override public int size() { return size + (hasZeroKey ? 1 : 0); }
+    @Override public boolean containsKey(Object k) { return k instanceof Long && containsKey((long) (Long) k); }
+
+    @Override
+    public Long get(Object k) {
+        return k instanceof Long && containsKey((long) (Long) k) ? get((long) (Long) k) : null;
+    }
+
+    @Override
+    public Long put(Long k, Long v) {
+        boolean had = containsKey((long) k);
+        long old = put((long) k, (long) v);
+        return had ? old : null;
+    }
+
+    @Override
+    public Long remove(Object k) {
+        if (!(k instanceof Long) || !containsKey((long) (Long) k)) return null;
+        return remove((long) (Long) k);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+        hasZeroKey = false;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<Long, Long>> entrySet() {
+        return new AbstractSet<>() {
+            @Override public int size() { return LongLongHashMap.this.size(); }
+            @Override public void clear() { LongLongHashMap.this.clear(); }
+
+            @Override
+            public Iterator<Map.Entry<Long, Long>> iterator() {
+                return new Iterator<>() {
+                    int slot = startSlot();
+                    int remaining = keys.length;
+                    boolean zeroPending = hasZeroKey;
+                    int last = -2;
+                    int expectedMod = modCount;
+
+                    private int startSlot() {
+                        int i = 0;
+                        while (keys[i] != 0) i++;
+                        return (i + 1) & mask;
+                    }
+
+                    public boolean hasNext() {
+                        if (zeroPending) return true;
+                        while (remaining > 0 && keys[slot] == 0) {
+                            slot = (slot + 1) & mask;
+                            remaining--;
+                        }
+                        return remaining > 0;
+                    }
+
+                    public Map.Entry<Long, Long> next() {
+                        if (expectedMod != modCount) throw new ConcurrentModificationException();
+                        if (!hasNext()) throw new NoSuchElementException();
+                        if (zeroPending) {
+                            zeroPending = false;
+                            last = -1;
+                            return new SimpleEntry<>(0L, zeroValue) {
+                                @Override
+                                public Long setValue(Long v) {
+                                    zeroValue = v;
+                                    return super.setValue(v);
+                                }
+                            };
+                        }
+                        last = slot;
+                        int s = slot;
+                        slot = (slot + 1) & mask;
+                        remaining--;
+                        return new SimpleEntry<>(keys[s], values[s]) {
+                            @Override
+                            public Long setValue(Long v) {
+                                values[s] = v;
+                                return super.setValue(v);
+                            }
+                        };
+                    }
+
+                    public void remove() {
+                        if (last == -2) throw new IllegalStateException();
+                        if (expectedMod != modCount) throw new ConcurrentModificationException();
+                        if (last == -1) {
+                            hasZeroKey = false;
+                            modCount++;
+                        } else {
+                            removeSlot(last);
+                            if (keys[last] != 0) {
+                                slot = last;
+                                remaining++;
+                            }
+                        }
+                        expectedMod = modCount;
+                        last = -2;
+                    }
+                };
+            }
+        };
+    }
+}
+
+public class PrimitiveCollections {
+    public static void main(String[] args) {
+        IntArrayList ids = new IntArrayList();
+        for (int i = 0; i < 5; i++) ids.addInt(i * 10);
+        List<Integer> asList = ids;                     // usable as a normal List
+        System.out.println(asList + " " + ids.getInt(2)); // [0, 10, 20, 30, 40] 20
+
+        IntHashSet seen = new IntHashSet();
+        seen.addInt(0);
+        seen.addInt(7);
+        seen.addInt(7);
+        System.out.println(seen + " contains 7? " + seen.containsInt(7)); // [0, 7] contains 7? true
+
+        LongLongHashMap balances = new LongLongHashMap();
+        balances.addTo(1001L, 500);
+        balances.addTo(1001L, 250);
+        balances.put(2002L, 90L);
+        System.out.println(balances.get(1001L) + " " + new TreeMap<>(balances)); // 750 {1001=750, 2002=90}
+
+        // Randomized cross-check against HashMap / HashSet (incl. removes through iterators)
+        Random rnd = new Random(42);
+        IntIntHashMap m = new IntIntHashMap();
+        Map<Integer, Integer> ref = new HashMap<>();
+        IntHashSet s = new IntHashSet();
+        Set<Integer> refSet = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            int k = rnd.nextInt(5_000) - 100;
+            switch (rnd.nextInt(3)) {
+                case 0: m.put(k, i); ref.put(k, i); s.addInt(k); refSet.add(k); break;
+                case 1: m.remove(k); ref.remove(k); s.removeInt(k); refSet.remove(k); break;
+                default: m.addTo(k, 1); ref.merge(k, 1, Integer::sum); break;
+            }
+        }
+        m.entrySet().removeIf(e -> e.getKey() % 3 == 0);
+        ref.entrySet().removeIf(e -> e.getKey() % 3 == 0);
+        s.removeIf(k -> k % 2 == 0);
+        refSet.removeIf(k -> k % 2 == 0);
+        System.out.println("map matches HashMap: " + m.equals(ref) + ", set matches HashSet: " + s.equals(refSet));
+
+        // Footprint: 1,000,000 ints
+        int n = 1_000_000;
+        Runtime rt = Runtime.getRuntime();
+        long before = used(rt);
+        Set<Integer> boxed = new HashSet<>();
+        for (int i = 0; i < n; i++) boxed.add(i * 7919);
+        long boxedBytes = used(rt) - before;
+        before = used(rt);
+        IntHashSet prim = new IntHashSet();
+        for (int i = 0; i < n; i++) prim.addInt(i * 7919);
+        long primBytes = used(rt) - before;
+        System.out.printf("HashSet<Integer> ~ %.1f B/elem, IntHashSet ~ %.1f B/elem (%d, %d)%n",
+                (double) boxedBytes / n, (double) primBytes / n, boxed.size(), prim.size());
+    }
+
+    private static long used(Runtime rt) {
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,851 @@
+// 🧮 Compressed bitmap set (Roaring-style) for dense integer membership
+
+// CollectionsInJava.java: HashSet → unique elements, O(1) contains.
+// But HashSet<Integer> with 100,000,000 account ids ≈ 100M × (node 32 B + Integer 16 B + table slot)
+//   → 5+ GB, and set algebra (active ∩ premium) walks every node.
+
+// ✅ RoaringBitmap
+//  int = high 16 bits (container key) + low 16 bits (value inside the container).
+//  Each container holds up to 65,536 values and picks the cheaper form:
+//    ArrayContainer  → sorted char[]  (≤ 4096 values, 2 bytes each)
+//    BitmapContainer → long[1024]     (> 4096 values, always 8 KB = 1 bit per possible value)
+//  → sparse ranges cost 2 B/value, dense ranges ≤ 1 bit/value.
+//  and / or / andNot work container by container:
+//    bitmap ∘ bitmap = 1024 word operations, array ∘ array = sorted merge.
+
+// ✅ Serialized form (serialize → ByteBuffer / file) can be memory-mapped and queried in place:
+//    RoaringBitmap.map(buffer) → read-only view, no deserialization.
+//    header : int magic, int containerCount
+//    per container: int key, int cardinality, int byteOffset
+//    payload: char[cardinality] (array) or long[1024] (bitmap), big-endian
+
+// Primitive API (addInt / containsInt / removeInt) avoids boxing; Set<Integer> is for interop.
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+final class RoaringBitmap extends AbstractSet<Integer> {
+    static final int MAX_ARRAY = 4096;
+    static final int BITMAP_WORDS = 1024;
+    private static final int MAGIC = 0x524F4152; // "ROAR"
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int count; // number of containers
+
+    static RoaringBitmap of(int... values) {
+        RoaringBitmap rb = new RoaringBitmap();
+        for (int v : values) rb.addInt(v);
+        return rb;
+    }
+
+    // ---------------------------------------------------------------- primitive API
+
+    boolean addInt(int x) {
+        char high = (char) (x >>> 16);
+        int i = indexOf(high);
+        if (i >= 0) {
+            Container c = containers[i];
+            int before = c.cardinality();
+            containers[i] = c.add((char) x);
+            return containers[i].cardinality() != before;
+        }
+        ArrayContainer c = new ArrayContainer(new char[4], 0);
+        c.add((char) x);
+        insertContainer(-i - 1, high, c);
+        return true;
+    }
+
+    boolean containsInt(int x) {
+        int i = indexOf((char) (x >>> 16));
+        return i >= 0 && containers[i].contains((char) x);
+    }
+
+    boolean removeInt(int x) {
+        int i = indexOf((char) (x >>> 16));
+        if (i < 0) return false;
+        Container c = containers[i];
+        int before = c.cardinality();
+        Container after = c.remove((char) x);
+        if (after.cardinality() == 0) {
+            removeContainer(i);
+        } else {
+            containers[i] = after;
+        }
+        return after.cardinality() != before;
+    }
+
+    long cardinality() {
+        long n = 0;
+        for (int i = 0; i < count; i++) n += containers[i].cardinality();
+        return n;
+    }
+
+    void forEachInt(IntConsumer action) {
+        for (int i = 0; i < count; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    // Bytes used by containers (keys and object headers ignored).
+    long sizeInBytes() {
+        long bytes = 0;
+        for (int i = 0; i < count; i++) bytes += containers[i].sizeInBytes();
+        return bytes;
+    }
+
+    // ---------------------------------------------------------------- set algebra
+
+    static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap r = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.count && j < b.count) {
+            char ka = a.keys[i], kb = b.keys[j];
+            if (ka < kb) i++;
+            else if (ka > kb) j++;
+            else {
+                r.appendIfNotEmpty(ka, a.containers[i++].and(b.containers[j++]));
+            }
+        }
+        return r;
+    }
+
+    static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap r = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.count || j < b.count) {
+            char ka = i < a.count ? a.keys[i] : Character.MAX_VALUE;
+            char kb = j < b.count ? b.keys[j] : Character.MAX_VALUE;
+            if (j >= b.count || (i < a.count && ka < kb)) r.append(ka, a.containers[i++].copy());
+            else if (i >= a.count || kb < ka) r.append(kb, b.containers[j++].copy());
+            else r.append(ka, a.containers[i++].or(b.containers[j++]));
+        }
+        return r;
+    }
+
+    static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap r = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < a.count; i++) {
+            char ka = a.keys[i];
+            while (j < b.count && b.keys[j] < ka) j++;
+            if (j < b.count && b.keys[j] == ka) {
+                r.appendIfNotEmpty(ka, a.containers[i].andNot(b.containers[j]));
+            } else {
+                r.append(ka, a.containers[i].copy());
+            }
+        }
+        return r;
+    }
+
+    // ---------------------------------------------------------------- serialization
+
+    int serializedSizeInBytes() {
+        int bytes = 8 + count * 12;
+        for (int i = 0; i < count; i++) bytes += containers[i].payloadBytes();
+        return bytes;
+    }
+
+    // Writes at the buffer's position and advances it.
+    void serialize(ByteBuffer out) {
+        int base = out.position();
+        out.putInt(MAGIC).putInt(count);
+        int offset = 8 + count * 12;
+        for (int i = 0; i < count; i++) {
+            out.putInt(keys[i]).putInt(containers[i].cardinality()).putInt(offset);
+            offset += containers[i].payloadBytes();
+        }
+        for (int i = 0; i < count; i++) {
+            containers[i].writePayload(out);
+        }
+        assert out.position() - base == offset;
+    }
+
+    static RoaringBitmap deserialize(ByteBuffer in) {
+        return map(in).toRoaringBitmap();
+    }
+
+    // Zero-copy read-only view; the buffer must stay valid while the view is used.
+    static Mapped map(ByteBuffer buffer) {
+        return new Mapped(buffer.slice());
+    }
+
+    // ---------------------------------------------------------------- Set<Integer>
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, cardinality());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && containsInt((Integer) o);
+    }
+
+    @Override
+    public boolean add(Integer x) {
+        return addInt(x);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && removeInt((Integer) o);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(containers, 0, count, null);
+        count = 0;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int ci = -1;
+            private Container current;
+            private int high;
+            private int next = -1;   // next low value in 'current', -1 = move to next container
+            private int lastReturned = -1;
+            private boolean hasLast;
+
+            {
+                nextContainer();
+            }
+
+            private void nextContainer() {
+                next = -1;
+                while (next < 0 && ++ci < count) {
+                    current = containers[ci];
+                    high = keys[ci] << 16;
+                    next = current.nextValue(0);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) throw new NoSuchElementException();
+                int value = high | next;
+                next = next == 0xFFFF ? -1 : current.nextValue(next + 1);
+                if (next < 0) nextContainer();
+                lastReturned = value;
+                hasLast = true;
+                return value;
+            }
+
+            @Override
+            public void remove() {
+                if (!hasLast) throw new IllegalStateException();
+                hasLast = false;
+                // Removal may convert the container or drop it; re-seek from the next value.
+                int resume = next >= 0 ? high | next : -1;
+                boolean more = next >= 0;
+                removeInt(lastReturned);
+                if (more) {
+                    ci = indexOf((char) (resume >>> 16));
+                    current = containers[ci];
+                    high = keys[ci] << 16;
+                    next = resume & 0xFFFF;
+                }
+            }
+        };
+    }
+
+    // ---------------------------------------------------------------- container index
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, count, key);
+    }
+
+    private void insertContainer(int at, char key, Container c) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            containers = Arrays.copyOf(containers, count * 2);
+        }
+        System.arraycopy(keys, at, keys, at + 1, count - at);
+        System.arraycopy(containers, at, containers, at + 1, count - at);
+        keys[at] = key;
+        containers[at] = c;
+        count++;
+    }
+
+    private void removeContainer(int at) {
+        System.arraycopy(keys, at + 1, keys, at, count - at - 1);
+        System.arraycopy(containers, at + 1, containers, at, count - at - 1);
+        containers[--count] = null;
+    }
+
+    private void append(char key, Container c) {
+        insertContainer(count, key, c);
+    }
+
+    private void appendIfNotEmpty(char key, Container c) {
+        if (c.cardinality() > 0) append(key, c);
+    }
+
+    // ---------------------------------------------------------------- containers
+
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char x);
+
+        abstract Container add(char x);
+
+        abstract Container remove(char x);
+
+        // Smallest value ≥ from, or -1.
+        abstract int nextValue(int from);
+
+        abstract void forEach(int high, IntConsumer action);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract int payloadBytes();
+
+        abstract void writePayload(ByteBuffer out);
+
+        abstract long sizeInBytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] content;
+        int card;
+
+        ArrayContainer(char[] content, int card) {
+            this.content = content;
+            this.card = card;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return Arrays.binarySearch(content, 0, card, x) >= 0;
+        }
+
+        @Override
+        Container add(char x) {
+            int i = Arrays.binarySearch(content, 0, card, x);
+            if (i >= 0) return this;
+            if (card == MAX_ARRAY) {
+                return toBitmap().add(x);
+            }
+            i = -i - 1;
+            if (card == content.length) {
+                content = Arrays.copyOf(content, Math.min(MAX_ARRAY, Math.max(4, card * 2)));
+            }
+            System.arraycopy(content, i, content, i + 1, card - i);
+            content[i] = x;
+            card++;
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            int i = Arrays.binarySearch(content, 0, card, x);
+            if (i >= 0) {
+                System.arraycopy(content, i + 1, content, i, card - i - 1);
+                card--;
+            }
+            return this;
+        }
+
+        @Override
+        int nextValue(int from) {
+            int i = Arrays.binarySearch(content, 0, card, (char) from);
+            if (i < 0) i = -i - 1;
+            return i < card ? content[i] : -1;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < card; i++) action.accept(high | content[i]);
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer(new long[BITMAP_WORDS], card);
+            for (int i = 0; i < card; i++) {
+                b.words[content[i] >>> 6] |= 1L << content[i];
+            }
+            return b;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[Math.min(card, other.cardinality())];
+            int n = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < card && j < o.card) {
+                    char a = content[i], b = o.content[j];
+                    if (a < b) i++;
+                    else if (a > b) j++;
+                    else {
+                        out[n++] = a;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                long[] w = ((BitmapContainer) other).words;
+                for (int i = 0; i < card; i++) {
+                    char v = content[i];
+                    if ((w[v >>> 6] & (1L << v)) != 0) out[n++] = v;
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer o = (ArrayContainer) other;
+            if (card + o.card > MAX_ARRAY) {
+                BitmapContainer b = toBitmap();
+                for (int j = 0; j < o.card; j++) b.words[o.content[j] >>> 6] |= 1L << o.content[j];
+                b.recount();
+                return b.card <= MAX_ARRAY ? b.toArray() : b;
+            }
+            char[] out = new char[card + o.card];
+            int i = 0, j = 0, n = 0;
+            while (i < card && j < o.card) {
+                char a = content[i], b = o.content[j];
+                if (a < b) out[n++] = content[i++];
+                else if (a > b) out[n++] = o.content[j++];
+                else {
+                    out[n++] = a;
+                    i++;
+                    j++;
+                }
+            }
+            while (i < card) out[n++] = content[i++];
+            while (j < o.card) out[n++] = o.content[j++];
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] out = new char[card];
+            int n = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                int j = 0;
+                for (int i = 0; i < card; i++) {
+                    char a = content[i];
+                    while (j < o.card && o.content[j] < a) j++;
+                    if (j == o.card || o.content[j] != a) out[n++] = a;
+                }
+            } else {
+                long[] w = ((BitmapContainer) other).words;
+                for (int i = 0; i < card; i++) {
+                    char v = content[i];
+                    if ((w[v >>> 6] & (1L << v)) == 0) out[n++] = v;
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(content, card), card);
+        }
+
+        @Override
+        int payloadBytes() {
+            return card * 2;
+        }
+
+        @Override
+        void writePayload(ByteBuffer out) {
+            for (int i = 0; i < card; i++) out.putChar(content[i]);
+        }
+
+        @Override
+        long sizeInBytes() {
+            return content.length * 2L;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words;
+        int card;
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        @Override
+        Container add(char x) {
+            long before = words[x >>> 6];
+            long after = before | (1L << x);
+            if (before != after) {
+                words[x >>> 6] = after;
+                card++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            long before = words[x >>> 6];
+            long after = before & ~(1L << x);
+            if (before != after) {
+                words[x >>> 6] = after;
+                if (--card <= MAX_ARRAY) {
+                    return toArray();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        int nextValue(int from) {
+            int w = from >>> 6;
+            if (w >= BITMAP_WORDS) return -1;
+            long word = words[w] & (-1L << from);
+            while (word == 0) {
+                if (++w == BITMAP_WORDS) return -1;
+                word = words[w];
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(high | (w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        void recount() {
+            int n = 0;
+            for (long w : words) n += Long.bitCount(w);
+            card = n;
+        }
+
+        ArrayContainer toArray() {
+            char[] out = new char[card];
+            int n = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    out[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] o = ((BitmapContainer) other).words;
+            long[] out = new long[BITMAP_WORDS];
+            int n = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                out[i] = words[i] & o[i];
+                n += Long.bitCount(out[i]);
+            }
+            BitmapContainer r = new BitmapContainer(out, n);
+            return n <= MAX_ARRAY ? r.toArray() : r;
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] out = words.clone();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer a = (ArrayContainer) other;
+                int n = card;
+                for (int i = 0; i < a.card; i++) {
+                    char v = a.content[i];
+                    long before = out[v >>> 6];
+                    out[v >>> 6] = before | (1L << v);
+                    if (before != out[v >>> 6]) n++;
+                }
+                return new BitmapContainer(out, n);
+            }
+            long[] o = ((BitmapContainer) other).words;
+            int n = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                out[i] |= o[i];
+                n += Long.bitCount(out[i]);
+            }
+            return new BitmapContainer(out, n);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] out = words.clone();
+            int n;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer a = (ArrayContainer) other;
+                n = card;
+                for (int i = 0; i < a.card; i++) {
+                    char v = a.content[i];
+                    long before = out[v >>> 6];
+                    out[v >>> 6] = before & ~(1L << v);
+                    if (before != out[v >>> 6]) n--;
+                }
+            } else {
+                long[] o = ((BitmapContainer) other).words;
+                n = 0;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    out[i] &= ~o[i];
+                    n += Long.bitCount(out[i]);
+                }
+            }
+            BitmapContainer r = new BitmapContainer(out, n);
+            return n <= MAX_ARRAY ? r.toArray() : r;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), card);
+        }
+
+        @Override
+        int payloadBytes() {
+            return BITMAP_WORDS * 8;
+        }
+
+        @Override
+        void writePayload(ByteBuffer out) {
+            for (long w : words) out.putLong(w);
+        }
+
+        @Override
+        long sizeInBytes() {
+            return BITMAP_WORDS * 8L;
+        }
+    }
+
+    // ---------------------------------------------------------------- mapped view
+
+    // Read-only view over a serialized bitmap (heap, direct or memory-mapped buffer).
+    static final class Mapped {
+        private final ByteBuffer buf;
+        private final int count;
+
+        private Mapped(ByteBuffer buf) {
+            if (buf.getInt(0) != MAGIC) throw new IllegalArgumentException("Not a serialized RoaringBitmap");
+            this.buf = buf;
+            this.count = buf.getInt(4);
+        }
+
+        private int key(int i) {
+            return buf.getInt(8 + i * 12);
+        }
+
+        private int card(int i) {
+            return buf.getInt(12 + i * 12);
+        }
+
+        private int offset(int i) {
+            return buf.getInt(16 + i * 12);
+        }
+
+        private int indexOf(int key) {
+            int lo = 0, hi = count - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int k = key(mid);
+                if (k < key) lo = mid + 1;
+                else if (k > key) hi = mid - 1;
+                else return mid;
+            }
+            return -1;
+        }
+
+        boolean containsInt(int x) {
+            int i = indexOf(x >>> 16);
+            if (i < 0) return false;
+            char low = (char) x;
+            int card = card(i), off = offset(i);
+            if (card > MAX_ARRAY) {
+                return (buf.getLong(off + (low >>> 6) * 8) & (1L << low)) != 0;
+            }
+            int lo = 0, hi = card - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char v = buf.getChar(off + mid * 2);
+                if (v < low) lo = mid + 1;
+                else if (v > low) hi = mid - 1;
+                else return true;
+            }
+            return false;
+        }
+
+        long cardinality() {
+            long n = 0;
+            for (int i = 0; i < count; i++) n += card(i);
+            return n;
+        }
+
+        void forEachInt(IntConsumer action) {
+            for (int i = 0; i < count; i++) {
+                int high = key(i) << 16, card = card(i), off = offset(i);
+                if (card > MAX_ARRAY) {
+                    for (int w = 0; w < BITMAP_WORDS; w++) {
+                        long word = buf.getLong(off + w * 8);
+                        while (word != 0) {
+                            action.accept(high | (w << 6) + Long.numberOfTrailingZeros(word));
+                            word &= word - 1;
+                        }
+                    }
+                } else {
+                    for (int j = 0; j < card; j++) action.accept(high | buf.getChar(off + j * 2));
+                }
+            }
+        }
+
+        // Copies into a mutable heap bitmap (for set algebra).
+        RoaringBitmap toRoaringBitmap() {
+            RoaringBitmap rb = new RoaringBitmap();
+            for (int i = 0; i < count; i++) {
+                int card = card(i), off = offset(i);
+                Container c;
+                if (card > MAX_ARRAY) {
+                    long[] words = new long[BITMAP_WORDS];
+                    for (int w = 0; w < BITMAP_WORDS; w++) words[w] = buf.getLong(off + w * 8);
+                    c = new BitmapContainer(words, card);
+                } else {
+                    char[] content = new char[card];
+                    for (int j = 0; j < card; j++) content[j] = buf.getChar(off + j * 2);
+                    c = new ArrayContainer(content, card);
+                }
+                rb.append((char) key(i), c);
+            }
+            return rb;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        RoaringBitmap small = RoaringBitmap.of(1, 5, 70_000, 5, -1);
+        System.out.println(small + " size=" + small.size()); // [1, 5, 70000, -1] size=4 (unsigned order)
+
+        // Two cohorts out of 100M account ids: active (~30%) and premium (~5%), plus a sparse fraud list
+        int universe = 100_000_000;
+        Random rnd = new Random(5);
+        RoaringBitmap active = new RoaringBitmap(), premium = new RoaringBitmap(), fraud = new RoaringBitmap();
+        BitSet activeRef = new BitSet(universe), premiumRef = new BitSet(universe);
+        for (int id = 0; id < universe; id++) {
+            if (rnd.nextInt(100) < 30) { active.addInt(id); activeRef.set(id); }
+            if (rnd.nextInt(100) < 5) { premium.addInt(id); premiumRef.set(id); }
+        }
+        for (int i = 0; i < 50_000; i++) fraud.addInt(rnd.nextInt(universe));
+        fraud.addInt(universe + 70_000); // lone id in its own container → array container in the file
+
+        System.out.printf("active: %,d ids in %,d KB (HashSet<Integer> would need ~%,d MB)%n",
+                active.cardinality(), active.sizeInBytes() >> 10, active.cardinality() * 48 >> 20);
+        System.out.printf("premium: %,d ids in %,d KB, fraud: %,d ids in %,d KB%n",
+                premium.cardinality(), premium.sizeInBytes() >> 10, fraud.cardinality(), fraud.sizeInBytes() >> 10);
+
+        for (int round = 0; round < 3; round++) {
+            long s = System.nanoTime();
+            RoaringBitmap both = and(active, premium);
+            RoaringBitmap either = or(active, premium);
+            RoaringBitmap clean = andNot(active, fraud);
+            System.out.printf("and %,d / or %,d / andNot %,d in %.1f ms%n", both.cardinality(),
+                    either.cardinality(), clean.cardinality(), (System.nanoTime() - s) / 1e6);
+        }
+
+        // Cross-check against BitSet
+        BitSet expected = (BitSet) activeRef.clone();
+        expected.and(premiumRef);
+        BitSet actual = new BitSet(universe);
+        and(active, premium).forEachInt(actual::set);
+        System.out.println("and matches BitSet: " + actual.equals(expected));
+        expected = (BitSet) activeRef.clone();
+        expected.or(premiumRef);
+        actual.clear();
+        or(active, premium).forEachInt(actual::set);
+        System.out.println("or matches BitSet: " + actual.equals(expected));
+
+        // Random add/remove against HashSet, including array <-> bitmap conversions
+        RoaringBitmap rb = new RoaringBitmap();
+        HashSet<Integer> ref = new HashSet<>();
+        for (int i = 0; i < 500_000; i++) {
+            int v = rnd.nextInt(200_000) - 50_000;
+            if (rnd.nextInt(3) == 0) {
+                if (rb.removeInt(v) != ref.remove(v)) throw new AssertionError("remove " + v);
+            } else if (rb.addInt(v) != ref.add(v)) {
+                throw new AssertionError("add " + v);
+            }
+        }
+        rb.removeIf(v -> v % 7 == 0);
+        ref.removeIf(v -> v % 7 == 0);
+        System.out.println("matches HashSet: " + (rb.equals(ref) && ref.equals(rb)));
+
+        // Serialize to a file, memory-map it, query in place
+        Path file = Files.createTempFile("active", ".roar");
+        try {
+            RoaringBitmap flagged = or(active, fraud); // bitmap and array containers mixed
+            ByteBuffer out = ByteBuffer.allocate(flagged.serializedSizeInBytes());
+            flagged.serialize(out);
+            out.flip();
+            Files.write(file, out.array());
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                Mapped view = RoaringBitmap.map(mapped);
+                int hits = 0;
+                for (int id = 0; id < 1_000_000; id++) if (view.containsInt(id) == flagged.containsInt(id)) hits++;
+                System.out.printf("mapped %,d KB file: cardinality %,d, %,d/1000000 lookups agree, reload equal: %b%n",
+                        ch.size() >> 10, view.cardinality(), hits, view.toRoaringBitmap().equals(flagged) && view.containsInt(universe + 70_000));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+// ⏱️ Hierarchical timer wheel (instead of PriorityQueue for scheduled work)
+
+// CollectionsInJava.java: PriorityQueue → O(log n) insert and remove.
+// Millions of retries / session timeouts / delayed payments → every schedule and every
+// cancel pays log n, and cancel by value (remove(Object)) is even O(n).
+
+// ✅ Timer wheel = clock face with buckets:
+//  Level 0: 64 buckets, 1 tick each          (e.g. tick = 1 ms → 64 ms)
+//  Level 1: 64 buckets, 64 ticks each        (→ 4 s)
+//  Level 2: 64 buckets, 4096 ticks each      (→ 4.4 min) ... up to 7 levels (~139 years at 1 ms).
+//  schedule  → pick level + bucket from the deadline's bits, link into bucket   O(1)
+//  cancel    → mark cancelled, unlinked later by the tick thread              O(1)
+//  tick      → expire level-0 bucket; when a level wraps, re-spread ("cascade") the next
+//              bucket of the level above into the lower levels.
+
+// ✅ Tick batching: an occupancy bitmap per level (one long = 64 buckets) lets advance() jump
+//    straight to the next non-empty bucket instead of visiting every empty tick.
+// ✅ Concurrent submission: any thread can schedule/cancel; requests go through lock-free queues
+//    and are applied by the single thread that calls advance().
+// ✅ A task that throws (even an Error) goes to the exception handler; the rest of its bucket
+//    still runs. Default handler = the tick thread's UncaughtExceptionHandler.
+
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+final class TimerWheel {
+    private static final int BITS = 6;
+    private static final int BUCKETS = 1 << BITS;
+    private static final int MASK = BUCKETS - 1;
+    private static final int LEVELS = 7;
+    private static final long MAX_TICKS = (1L << (BITS * LEVELS)) - 1;
+
+    static final class Timeout {
+        private static final int PENDING = 0, CANCELLED = 1, EXPIRED = 2;
+
+        final Runnable task;
+        final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final TimerWheel wheel;
+        Timeout prev, next;   // bucket links, tick thread only
+        int level = -1, slot;
+
+        Timeout(TimerWheel wheel, long deadlineTick, Runnable task) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        // O(1): the tick thread unlinks the node on its next advance().
+        boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                wheel.cancelled.add(this);
+                return true;
+            }
+            return false;
+        }
+
+        boolean isCancelled() { return state.get() == CANCELLED; }
+        boolean isExpired() { return state.get() == EXPIRED; }
+    }
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout[][] buckets = new Timeout[LEVELS][BUCKETS];
+    private final long[] occupied = new long[LEVELS]; // bit i set = bucket i non-empty
+    private final Queue<Timeout> submitted = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger submittedCount = new AtomicInteger(); // size of submitted, O(1)
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final Consumer<Throwable> exceptionHandler;
+    private long currentTick;
+    private volatile int pending; // timeouts linked into buckets; written by the tick thread only
+
+    TimerWheel(long tick, TimeUnit unit, long startNanos, Consumer<Throwable> exceptionHandler) {
+        this.tickNanos = unit.toNanos(tick);
+        this.startNanos = startNanos;
+        this.exceptionHandler = Objects.requireNonNull(exceptionHandler);
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("tick must be > 0");
+        }
+    }
+
+    TimerWheel(long tick, TimeUnit unit, long startNanos) {
+        this(tick, unit, startNanos, TimerWheel::uncaught);
+    }
+
+    TimerWheel(long tick, TimeUnit unit) {
+        this(tick, unit, System.nanoTime());
+    }
+
+    private static void uncaught(Throwable e) {
+        Thread t = Thread.currentThread();
+        t.getUncaughtExceptionHandler().uncaughtException(t, e);
+    }
+
+    // Thread-safe. The task runs on the thread that calls advance().
+    Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduleAt(task, System.nanoTime() + unit.toNanos(delay));
+    }
+
+    Timeout scheduleAt(Runnable task, long deadlineNanos) {
+        long ticks = Math.max(0, deadlineNanos - startNanos + tickNanos - 1) / tickNanos; // round up
+        Timeout t = new Timeout(this, ticks, task);
+        submittedCount.incrementAndGet();
+        submitted.add(t);
+        return t;
+    }
+
+    int pendingCount() {
+        return pending + submittedCount.get();
+    }
+
+    // Single thread only. Expires everything due at nowNanos; returns how many tasks ran.
+    int advance(long nowNanos) {
+        long target = (nowNanos - startNanos) / tickNanos;
+        applyRequests();
+        int expired = expireBucket(0, (int) (currentTick & MASK)); // late submissions for "now"
+        while (currentTick < target) {
+            long next = nextInterestingTick(target);
+            currentTick = next;
+            if ((currentTick & MASK) == 0) {
+                cascade();
+            }
+            expired += expireBucket(0, (int) (currentTick & MASK));
+        }
+        return expired;
+    }
+
+    // Starts a daemon thread that advances the wheel every tick.
+    Thread startDriver(String name) {
+        Thread t = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                advance(System.nanoTime());
+                LockSupport.parkNanos(tickNanos);
+            }
+        }, name);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    // ---------------------------------------------------------------- internals (tick thread)
+
+    private void applyRequests() {
+        Timeout t;
+        while ((t = submitted.poll()) != null) {
+            submittedCount.decrementAndGet();
+            if (!t.isCancelled()) {
+                place(t);
+            }
+        }
+        while ((t = cancelled.poll()) != null) {
+            if (t.level >= 0) {
+                unlink(t);
+            }
+        }
+    }
+
+    // Next tick that has level-0 work or is a level-0 wrap (cascade point), capped at target.
+    private long nextInterestingTick(long target) {
+        if (pending == 0) {
+            return target;
+        }
+        int cur = (int) (currentTick & MASK);
+        long ahead = cur == MASK ? 0 : occupied[0] & (-1L << (cur + 1));
+        long next = ahead != 0
+                ? (currentTick & ~MASK) + Long.numberOfTrailingZeros(ahead)
+                : (currentTick | MASK) + 1;
+        return Math.min(next, target);
+    }
+
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int slot = (int) ((currentTick >>> (BITS * level)) & MASK);
+            if ((occupied[level] & (1L << slot)) != 0) {
+                Timeout t = buckets[level][slot];
+                buckets[level][slot] = null;
+                occupied[level] &= ~(1L << slot);
+                while (t != null) {
+                    Timeout next = t.next;
+                    t.prev = t.next = null;
+                    t.level = -1;
+                    pending--;
+                    place(t);
+                    t = next;
+                }
+            }
+            if (slot != 0) {
+                break; // higher levels only move when this one wraps
+            }
+        }
+    }
+
+    // Takes one node at a time off the bucket: if the exception handler itself throws, the
+    // rest of the bucket is still linked and runs on the next advance().
+    private int expireBucket(int level, int slot) {
+        if ((occupied[level] & (1L << slot)) == 0) {
+            return 0;
+        }
+        int ran = 0;
+        Timeout t;
+        while ((t = buckets[level][slot]) != null) {
+            unlink(t);
+            if (t.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                ran++;
+                try {
+                    t.task.run();
+                } catch (Throwable e) {
+                    exceptionHandler.accept(e); // one bad task must not lose the rest of the bucket
+                }
+            }
+        }
+        return ran;
+    }
+
+    private void place(Timeout t) {
+        long deadline = Math.max(t.deadlineTick, currentTick);
+        deadline = Math.min(deadline, currentTick + MAX_TICKS);
+        long diff = deadline ^ currentTick;
+        int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / BITS;
+        level = Math.min(level, LEVELS - 1);
+        int slot = (int) ((deadline >>> (BITS * level)) & MASK);
+        t.level = level;
+        t.slot = slot;
+        Timeout head = buckets[level][slot];
+        t.next = head;
+        if (head != null) head.prev = t;
+        buckets[level][slot] = t;
+        occupied[level] |= 1L << slot;
+        pending++;
+    }
+
+    private void unlink(Timeout t) {
+        if (t.prev != null) t.prev.next = t.next;
+        else buckets[t.level][t.slot] = t.next;
+        if (t.next != null) t.next.prev = t.prev;
+        if (buckets[t.level][t.slot] == null) {
+            occupied[t.level] &= ~(1L << t.slot);
+        }
+        t.prev = t.next = null;
+        t.level = -1;
+        pending--;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // Simulated clock: 1 ms ticks, time starts at 0
+        StringBuilder log = new StringBuilder();
+        TimerWheel wheel = new TimerWheel(1, TimeUnit.MILLISECONDS, 0, e -> log.append("failed(").append(e.getMessage()).append(") "));
+        long ms = TimeUnit.MILLISECONDS.toNanos(1);
+        wheel.scheduleAt(() -> {
+            throw new AssertionError("bad task@5"); // handled, the rest of the bucket still runs
+        }, 5 * ms);
+        wheel.scheduleAt(() -> log.append("retry@5 "), 5 * ms);
+        wheel.scheduleAt(() -> log.append("session@70 "), 70 * ms);
+        Timeout payment = wheel.scheduleAt(() -> log.append("payment@9000 "), 9_000 * ms);
+        wheel.scheduleAt(() -> log.append("report@300000 "), 300_000 * ms);
+        wheel.advance(10 * ms);
+        log.append("| ");
+        wheel.advance(100 * ms);
+        payment.cancel();
+        wheel.advance(400_000 * ms);
+        System.out.println(log);          // retry@5 failed(bad task@5) | session@70 report@300000 (payment cancelled)
+
+        // 2,000,000 deadlines within 10 minutes, half cancelled: wheel vs PriorityQueue
+        int n = 2_000_000;
+        Random rnd = new Random(3);
+        long[] deadlines = new long[n];
+        for (int i = 0; i < n; i++) deadlines[i] = (1 + rnd.nextInt(600_000)) * ms;
+        int[] fired = new int[1];
+        Runnable task = () -> fired[0]++;
+
+        TimerWheel w = new TimerWheel(1, TimeUnit.MILLISECONDS, 0);
+        long s = System.nanoTime();
+        Timeout[] handles = new Timeout[n];
+        for (int i = 0; i < n; i++) handles[i] = w.scheduleAt(task, deadlines[i]);
+        for (int i = 0; i < n; i += 2) handles[i].cancel();
+        for (long now = 0; now <= 600_000 * ms; now += 10 * ms) w.advance(now);
+        double wheelMs = (System.nanoTime() - s) / 1e6;
+        int wheelFired = fired[0];
+
+        PriorityQueue<long[]> pq = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        s = System.nanoTime();
+        long[][] entries = new long[n][];
+        for (int i = 0; i < n; i++) pq.add(entries[i] = new long[] {deadlines[i], 0});
+        for (int i = 0; i < n; i += 2) entries[i][1] = 1; // cancel = mark (remove(Object) would be O(n))
+        int pqFired = 0;
+        for (long now = 0; now <= 600_000 * ms; now += 10 * ms) {
+            while (!pq.isEmpty() && pq.peek()[0] <= now) {
+                if (pq.poll()[1] == 0) pqFired++;
+            }
+        }
+        double pqMs = (System.nanoTime() - s) / 1e6;
+        System.out.printf("TimerWheel: %.0f ms, PriorityQueue: %.0f ms (fired %d / %d)%n",
+                wheelMs, pqMs, wheelFired, pqFired);
+
+        // Real clock with concurrent submitters
+        TimerWheel live = new TimerWheel(1, TimeUnit.MILLISECONDS);
+        AtomicInteger done = new AtomicInteger();
+        Thread driver = live.startDriver("timer-wheel");
+        Thread[] submitters = new Thread[4];
+        for (int i = 0; i < submitters.length; i++) {
+            submitters[i] = new Thread(() -> {
+                for (int j = 0; j < 25_000; j++) live.schedule(done::incrementAndGet, j % 50, TimeUnit.MILLISECONDS);
+            });
+            submitters[i].start();
+        }
+        for (Thread t : submitters) t.join();
+        Thread.sleep(200);
+        driver.interrupt();
+        System.out.println("live expirations: " + done.get()); // 100000
+    }
+}
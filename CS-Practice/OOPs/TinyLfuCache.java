@@ -0,0 +1,396 @@
+// 🧊 Concurrent W-TinyLFU cache (instead of LinkedHashMap access-order LRU from CollectionsInJava.java)
+
+// LinkedHashMap(16, 0.75f, true) + removeEldestEntry = simple LRU, but:
+// ❌ every get() re-links a node → needs a lock, one thread at a time.
+// ❌ one big scan (report job reading every account once) flushes all the hot entries.
+
+// ✅ W-TinyLFU (the policy used by Caffeine):
+//  1. Window LRU (~1% of size)   → new entries land here, absorbs bursts.
+//  2. Main SLRU (~99%)           → probation (20%) + protected (80%) segments.
+//  3. TinyLFU admission          → when the window pushes an entry out, it only enters the main
+//                                  space if it was used more often than the entry it would evict.
+//                                  Frequencies live in a 4-bit count-min sketch (FrequencySketch.java),
+//                                  halved periodically so old popularity fades.
+//  → one-hit-wonders from a scan never push out hot entries.
+
+// ✅ Concurrency:
+//  Reads  → ConcurrentHashMap lookup + record the hit in a striped, lossy ring buffer (no lock).
+//  Writes → ConcurrentHashMap update + queue a task in a write buffer.
+//  Policy work (LRU re-linking, sketch, eviction) is replayed in batches by whichever thread
+//  wins tryLock() → amortized, and readers never wait for it.
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+final class TinyLfuCache<K, V> {
+    private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+    private static final int STRIPE_BUFFER = 16; // per-stripe read ring, power of two
+
+    static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile boolean retired;
+        int queue = -1;            // guarded by evictionLock
+        Node<K, V> prev, next;     // guarded by evictionLock
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    // Intrusive doubly-linked LRU list (head = least recent)
+    static final class AccessOrder<K, V> {
+        final Node<K, V> head = new Node<>(null, null);
+        int size;
+
+        AccessOrder() {
+            head.prev = head.next = head;
+        }
+
+        void addLast(Node<K, V> n) {
+            n.prev = head.prev;
+            n.next = head;
+            head.prev.next = n;
+            head.prev = n;
+            size++;
+        }
+
+        void unlink(Node<K, V> n) {
+            n.prev.next = n.next;
+            n.next.prev = n.prev;
+            n.prev = n.next = null;
+            size--;
+        }
+
+        void moveToLast(Node<K, V> n) {
+            unlink(n);
+            addLast(n);
+        }
+
+        Node<K, V> first() {
+            return head.next == head ? null : head.next;
+        }
+    }
+
+    // Lossy MPSC ring: a full stripe just drops the hit, it only feeds the policy.
+    static final class ReadStripe<K, V> {
+        final AtomicReferenceArray<Node<K, V>> ring = new AtomicReferenceArray<>(STRIPE_BUFFER);
+        final AtomicLong writes = new AtomicLong();
+        volatile long reads; // written under evictionLock
+
+        boolean offer(Node<K, V> n) {
+            long w = writes.get();
+            if (w - reads >= STRIPE_BUFFER) {
+                return false;
+            }
+            if (writes.compareAndSet(w, w + 1)) {
+                ring.lazySet((int) (w & (STRIPE_BUFFER - 1)), n);
+            }
+            return true;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final long maximumSize;
+    private final long windowMax;
+    private final long protectedMax;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedQ = new AccessOrder<>();
+
+    private final ReadStripe<K, V>[] stripes;
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    TinyLfuCache(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be > 0");
+        }
+        this.maximumSize = maximumSize;
+        this.windowMax = Math.max(1, maximumSize / 100);
+        this.protectedMax = (long) ((maximumSize - windowMax) * 0.8);
+        this.data = new ConcurrentHashMap<>((int) Math.min(maximumSize, 1 << 20));
+        this.sketch = new FrequencySketch(maximumSize);
+        int n = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        this.stripes = newStripes(n);
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new ReadStripe<>();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> ReadStripe<K, V>[] newStripes(int n) {
+        return (ReadStripe<K, V>[]) new ReadStripe[n]; // no generic array creation in Java
+    }
+
+    V getIfPresent(K key) {
+        Node<K, V> n = data.get(key);
+        if (n == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        afterRead(n);
+        return n.value;
+    }
+
+    // Loads and caches the value on a miss; concurrent misses for one key share a single load.
+    // A loader that returns null caches nothing (the next get loads again).
+    V get(K key, Function<? super K, ? extends V> loader) {
+        Node<K, V> n = data.get(key);
+        if (n != null) {
+            hits.increment();
+            afterRead(n);
+            return n.value;
+        }
+        misses.increment();
+        boolean[] created = new boolean[1];
+        n = data.computeIfAbsent(key, k -> {
+            V v = loader.apply(k);
+            if (v == null) return null; // computeIfAbsent stores no mapping
+            created[0] = true;
+            return new Node<>(k, v);
+        });
+        if (n == null) {
+            return null;
+        }
+        if (created[0]) {
+            afterWrite(addTask(n));
+        } else {
+            afterRead(n);
+        }
+        return n.value;
+    }
+
+    void put(K key, V value) {
+        Node<K, V> fresh = new Node<>(key, value);
+        // Under the bin lock: a node that eviction has already retired (but not yet removed)
+        // is replaced, otherwise the write would land in a node that is about to disappear.
+        Node<K, V> n = data.compute(key, (k, prev) -> {
+            if (prev == null || prev.retired) {
+                return fresh;
+            }
+            prev.value = value;
+            return prev;
+        });
+        if (n == fresh) {
+            afterWrite(addTask(fresh));
+        } else {
+            afterRead(n);
+        }
+    }
+
+    void invalidate(K key) {
+        Node<K, V> n = data.remove(key);
+        if (n != null) {
+            n.retired = true;
+            afterWrite(() -> unlinkFromQueue(n));
+        }
+    }
+
+    long estimatedSize() {
+        return data.size();
+    }
+
+    double hitRate() {
+        long h = hits.sum(), m = misses.sum();
+        return h + m == 0 ? 1.0 : (double) h / (h + m);
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    // Forces pending buffered work to be applied (handy before inspecting stats).
+    void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- buffers
+
+    private void afterRead(Node<K, V> n) {
+        // identity hash of the thread: stable per thread, so each thread keeps hitting one stripe
+        int probe = FrequencySketch.spread(Thread.currentThread().hashCode()) & (stripes.length - 1);
+        if (!stripes[probe].offer(n)) {
+            tryMaintenance();
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        tryMaintenance();
+    }
+
+    private void tryMaintenance() {
+        while (evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+            if (writeBuffer.isEmpty()) {
+                return; // a writer that lost tryLock() while we held it left work → loop
+            }
+        }
+    }
+
+    private void maintenance() {
+        for (ReadStripe<K, V> s : stripes) {
+            long r = s.reads, end = s.writes.get();
+            for (; r < end; r++) {
+                int idx = (int) (r & (STRIPE_BUFFER - 1));
+                Node<K, V> n = s.ring.get(idx);
+                if (n == null) {
+                    break; // claimed but not yet published; pick it up next time
+                }
+                s.ring.lazySet(idx, null);
+                onAccess(n);
+            }
+            s.reads = r;
+        }
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+        evict();
+    }
+
+    // ---------------------------------------------------------------- policy (under evictionLock)
+
+    private Runnable addTask(Node<K, V> n) {
+        return () -> {
+            if (n.retired) {
+                return;
+            }
+            sketch.increment(n.key);
+            n.queue = WINDOW;
+            window.addLast(n);
+        };
+    }
+
+    private void onAccess(Node<K, V> n) {
+        if (n.retired || n.queue < 0) {
+            return;
+        }
+        sketch.increment(n.key);
+        if (n.queue == WINDOW) {
+            window.moveToLast(n);
+        } else if (n.queue == PROBATION) {
+            probation.unlink(n);
+            n.queue = PROTECTED;
+            protectedQ.addLast(n);
+            while (protectedQ.size > protectedMax) {
+                Node<K, V> demoted = protectedQ.first();
+                protectedQ.unlink(demoted);
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+        } else {
+            protectedQ.moveToLast(n);
+        }
+    }
+
+    private void unlinkFromQueue(Node<K, V> n) {
+        if (n.queue == WINDOW) window.unlink(n);
+        else if (n.queue == PROBATION) probation.unlink(n);
+        else if (n.queue == PROTECTED) protectedQ.unlink(n);
+        n.queue = -1;
+    }
+
+    private void evict() {
+        // Window overflow → candidates move to probation's tail
+        while (window.size > windowMax) {
+            Node<K, V> c = window.first();
+            window.unlink(c);
+            c.queue = PROBATION;
+            probation.addLast(c);
+        }
+        // Over capacity → duel: newest probation candidate vs probation LRU victim
+        while (window.size + probation.size + protectedQ.size > maximumSize) {
+            Node<K, V> victim = probation.first();
+            Node<K, V> candidate = probation.head.prev;
+            if (victim == null) {
+                victim = protectedQ.first();
+                candidate = victim;
+            }
+            Node<K, V> loser = victim == candidate
+                    || sketch.frequency(candidate.key) <= sketch.frequency(victim.key) ? candidate : victim;
+            unlinkFromQueue(loser);
+            loser.retired = true;
+            data.remove(loser.key, loser);
+            evictions.increment();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int capacity = 1_000;
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(capacity);
+        Map<Integer, String> lru = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        // Hot accounts (skewed) mixed with a long sequential scan of cold ids
+        Random rnd = new Random(7);
+        long lruHits = 0, lruGets = 0;
+        int scanId = 1_000_000;
+        for (int i = 0; i < 2_000_000; i++) {
+            int key = (i % 3 == 0) ? scanId++ : (int) Math.abs(rnd.nextGaussian() * 400);
+            cache.get(key, k -> "user-" + k);
+            lruGets++;
+            if (lru.get(key) != null) lruHits++;
+            else lru.put(key, "user-" + key);
+        }
+        cache.cleanUp();
+        System.out.printf("scan-heavy hit rate: W-TinyLFU %.1f%% vs LRU %.1f%% (size=%d)%n",
+                cache.hitRate() * 100, 100.0 * lruHits / lruGets, cache.estimatedSize());
+
+        // Concurrent read throughput
+        TinyLfuCache<Integer, Integer> hot = new TinyLfuCache<>(100_000);
+        for (int i = 0; i < 100_000; i++) hot.put(i, i);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int perThread = 5_000_000;
+        Thread[] ts = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            ts[t] = new Thread(() -> {
+                int x = seed * 7919;
+                long sum = 0;
+                for (int i = 0; i < perThread; i++) {
+                    x = x * 1103515245 + 12345;
+                    Integer v = hot.getIfPresent((x >>> 8) % 100_000);
+                    if (v != null) sum += v;
+                }
+                if (sum == 42) System.out.println(sum);
+            });
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d threads: %.1f M gets/s%n", threads, threads * (double) perThread / secs / 1e6);
+    }
+}
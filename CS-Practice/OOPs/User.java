@@ -0,0 +1,18 @@
+// 👤 User row returned by UserService.getUser().
+
+final class User {
+    final long id;
+    final String name;
+    final String email;
+
+    User(long id, String name, String email) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+    }
+
+    @Override
+    public String toString() {
+        return "User{id=" + id + ", name=" + name + ", email=" + email + "}";
+    }
+}
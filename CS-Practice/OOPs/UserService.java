@@ -0,0 +1,31 @@
+// 👤 UserService from the DIP example in SoildPrinciples.java, made runnable:
+// it only knows Database → works unchanged with a direct connection, ConnectionPool or NearCache.
+
+import java.util.List;
+
+// The DIP example: depends only on Database, works unchanged with or without a pool.
+class UserService {
+    static final String FIND_BY_ID = "SELECT id, name, email FROM users WHERE id = ?";
+    static final String RENAME = "UPDATE users SET name = ? WHERE id = ?";
+
+    private final Database db;
+
+    UserService(Database db) {
+        this.db = db;
+    }
+
+    User getUser(long id) {
+        try (DbConnection c = db.connect()) {
+            List<Object[]> rows = c.prepare(FIND_BY_ID).query(id);
+            if (rows.isEmpty()) return null;
+            Object[] row = rows.get(0);
+            return new User((Long) row[0], (String) row[1], (String) row[2]);
+        }
+    }
+
+    boolean rename(long id, String name) {
+        try (DbConnection c = db.connect()) {
+            return c.prepare(RENAME).update(name, id) == 1;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+// ⏳ WaitStrategy: what a thread does while a queue is full / empty or an event is not there yet
+// Shared by MpmcRingQueue, BoundedChannel and EventBus.
+//    busySpin (lowest latency, burns a core) → yielding → parking → blocking (lowest CPU).
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+interface WaitStrategy {
+    // Called repeatedly while the queue is full/empty; attempt counts up from 0 for each wait.
+    void idle(int attempt) throws InterruptedException;
+
+    // Called after an element was added or removed; only blocking strategies need it.
+    default void signalAll() {}
+
+    static WaitStrategy busySpin() {
+        return attempt -> Thread.onSpinWait();
+    }
+
+    static WaitStrategy yielding() {
+        return attempt -> {
+            if (attempt < 100) Thread.onSpinWait();
+            else Thread.yield();
+        };
+    }
+
+    static WaitStrategy parking(long maxParkNanos) {
+        return attempt -> {
+            if (attempt < 100) {
+                Thread.onSpinWait();
+            } else if (attempt < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(maxParkNanos);
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+        };
+    }
+
+    static WaitStrategy blocking() {
+        return new WaitStrategy() {
+            private final ReentrantLock lock = new ReentrantLock();
+            private final Condition changed = lock.newCondition();
+            private final AtomicInteger waiters = new AtomicInteger();
+
+            @Override
+            public void idle(int attempt) throws InterruptedException {
+                if (attempt < 50) {
+                    Thread.onSpinWait();
+                    return;
+                }
+                lock.lock();
+                waiters.incrementAndGet();
+                try {
+                    // Timed wait: the state may change between our check and await()
+                    changed.awaitNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                } finally {
+                    waiters.decrementAndGet();
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public void signalAll() {
+                if (waiters.get() > 0) {
+                    lock.lock();
+                    try {
+                        changed.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+// 🪶 WeakInterner: interning table whose entries disappear once nobody uses the wrapper
+// (used by Patterns.of and SharedBox.of, see Flyweights.java)
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+class WeakInterner<V, W> extends Interner<V, W> {
+    // Weak to the wrapper only; the value stays reachable through the wrapper (or through the
+    // entry until the wrapper is collected and the entry is purged).
+    private static final class Ref<V, W> extends WeakReference<W> {
+        final V value;
+
+        Ref(V value, W wrapper, ReferenceQueue<? super W> queue) {
+            super(wrapper, queue);
+            this.value = value;
+        }
+    }
+
+    private final ConcurrentHashMap<V, Ref<V, W>> table = new ConcurrentHashMap<>();
+    private final ReferenceQueue<W> cleared = new ReferenceQueue<>();
+
+    WeakInterner(Function<? super V, ? extends W> factory) {
+        this(factory, DEFAULT_WRAPPER_BYTES);
+    }
+
+    WeakInterner(Function<? super V, ? extends W> factory, int wrapperBytes) {
+        super(factory, wrapperBytes);
+    }
+
+    @Override
+    W intern(V value) {
+        purge();
+        Ref<V, W> ref = table.get(value);
+        W w = ref == null ? null : ref.get();
+        if (w != null) {
+            hit();
+            return w;
+        }
+        W fresh = create(value);
+        Ref<V, W> mine = new Ref<>(value, fresh, cleared);
+        while (true) {
+            if (ref == null) {
+                ref = table.putIfAbsent(value, mine);
+                if (ref == null) return fresh;
+            } else if ((w = ref.get()) != null) {
+                return w; // another thread interned it first
+            } else if (table.replace(value, ref, mine)) {
+                return fresh; // replaced a cleared entry
+            } else {
+                ref = table.get(value);
+            }
+        }
+    }
+
+    @Override
+    int size() {
+        purge();
+        return table.size();
+    }
+
+    // Removes entries whose wrapper was collected (only if they were not replaced meanwhile).
+    @SuppressWarnings("unchecked")
+    private void purge() {
+        for (Object r; (r = cleared.poll()) != null; ) {
+            Ref<V, W> ref = (Ref<V, W>) r;
+            table.remove(ref.value, ref);
+        }
+    }
+}